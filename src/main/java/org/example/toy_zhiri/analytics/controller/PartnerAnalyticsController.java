@@ -0,0 +1,65 @@
+package org.example.toy_zhiri.analytics.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.analytics.dto.PartnerAnalyticsResponse;
+import org.example.toy_zhiri.analytics.service.PartnerAnalyticsService;
+import org.example.toy_zhiri.user.service.UserService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Контроллер аналитики партнёра (дашборд).
+ * Доступен только пользователям с ролью PARTNER.
+ */
+@RestController
+@RequestMapping("/api/v1/partner/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('PARTNER')")
+@Tag(name = "Partner Analytics", description = "Аналитика бронирований партнёра")
+public class PartnerAnalyticsController {
+    private final PartnerAnalyticsService analyticsService;
+    private final UserService userService;
+
+    /**
+     * Возвращает аналитику партнёра за период.
+     *
+     * @param from        начало периода
+     * @param to          конец периода
+     * @param userDetails данные аутентифицированного пользователя
+     * @return ResponseEntity<PartnerAnalyticsResponse> итоги и разбивка по месяцам
+     */
+    @GetMapping
+    @Operation(
+            summary = "Аналитика партнёра",
+            description = "Бронирования по статусам помесячно, выручка по завершённым сделкам, " +
+                    "конверсия просмотров в бронирования и среднее время ответа. " +
+                    "Строится по заранее агрегированным дневным данным.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<PartnerAnalyticsResponse> getAnalytics(
+            @Parameter(description = "Начало периода (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Конец периода (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(analyticsService.getAnalytics(userId, from, to));
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.toy_zhiri.analytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Аналитика партнёра за период: итоги и разбивка по месяцам.
+ * Счётчики статусов — число переходов в этот статус за период.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartnerAnalyticsResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private AnalyticsPeriod total;
+    private List<AnalyticsPeriod> months;
+
+    /**
+     * Показатели за период (месяц или весь запрошенный диапазон).
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AnalyticsPeriod {
+        /**
+         * Месяц в формате YYYY-MM; для итога — null.
+         */
+        private String month;
+        private Long createdCount;
+        private Long confirmedCount;
+        private Long rejectedCount;
+        private Long cancelledCount;
+        private Long completedCount;
+        private Long expiredCount;
+        private Long viewsCount;
+
+        /**
+         * Выручка по завершённым бронированиям (сумма totalPrice).
+         */
+        private BigDecimal revenue;
+
+        /**
+         * Конверсия просмотров в бронирования, % (createdCount / viewsCount).
+         */
+        private BigDecimal conversionRate;
+
+        /**
+         * Среднее время ответа партнёра (confirmedAt - createdAt) в минутах.
+         */
+        private Long averageResponseMinutes;
+    }
+}
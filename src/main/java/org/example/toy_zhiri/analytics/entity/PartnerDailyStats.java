@@ -0,0 +1,75 @@
+package org.example.toy_zhiri.analytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.partner.entity.Partner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Дневной агрегат по бронированиям и просмотрам партнёра.
+ * <p>
+ * Строка на пару (партнёр, день). Счётчики статусов отражают переходы,
+ * случившиеся в этот день: бронирование, созданное 1-го и подтверждённое 3-го,
+ * попадёт в created_count за 1-е и в confirmed_count за 3-е.
+ * Значения меняются только атомарными upsert-ами из PartnerAnalyticsService.
+ */
+@Entity
+@Table(name = "partner_daily_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartnerDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "partner_id", nullable = false)
+    private Partner partner;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "created_count", nullable = false)
+    private Integer createdCount;
+
+    @Column(name = "confirmed_count", nullable = false)
+    private Integer confirmedCount;
+
+    @Column(name = "rejected_count", nullable = false)
+    private Integer rejectedCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private Integer cancelledCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private Integer completedCount;
+
+    @Column(name = "expired_count", nullable = false)
+    private Integer expiredCount;
+
+    @Column(name = "views_count", nullable = false)
+    private Integer viewsCount;
+
+    /**
+     * Сумма totalPrice завершённых в этот день бронирований.
+     */
+    @Column(name = "revenue", precision = 14, scale = 2, nullable = false)
+    private BigDecimal revenue;
+
+    /**
+     * Сумма (confirmedAt - createdAt) в секундах по подтверждённым в этот день бронированиям.
+     */
+    @Column(name = "response_seconds_total", nullable = false)
+    private Long responseSecondsTotal;
+
+    @Column(name = "responses_count", nullable = false)
+    private Integer responsesCount;
+}
@@ -0,0 +1,64 @@
+package org.example.toy_zhiri.analytics.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.analytics.repository.PartnerDailyStatsRepository;
+import org.example.toy_zhiri.analytics.service.PartnerAnalyticsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Плановое задание пересборки дневных агрегатов партнёров по таблице bookings.
+ * <p>
+ * Нужно для первичного заполнения partner_daily_stats и для исправления дрейфа
+ * инкрементальных обновлений. Партнёры обрабатываются порциями (keyset по id),
+ * каждая порция — в отдельной транзакции.
+ * <p>
+ * Запускается еженедельно; при app.analytics.backfill-on-startup=true — ещё и при старте.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartnerAnalyticsBackfillJob {
+
+    private final PartnerDailyStatsRepository statsRepository;
+    private final PartnerAnalyticsService analyticsService;
+
+    @Value("${app.analytics.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.analytics.backfill-chunk-size:200}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    @Scheduled(cron = "${app.analytics.backfill-cron:0 30 3 * * SUN}")
+    public void backfill() {
+        UUID after = new UUID(0L, 0L);
+        int processed = 0;
+
+        while (true) {
+            List<UUID> partnerIds = statsRepository.findPartnerIdsAfter(after, chunkSize);
+            if (partnerIds.isEmpty()) {
+                break;
+            }
+
+            analyticsService.backfill(partnerIds);
+            processed += partnerIds.size();
+            after = partnerIds.get(partnerIds.size() - 1);
+        }
+
+        log.info("PartnerAnalyticsBackfillJob: пересобрана аналитика {} партнёров", processed);
+    }
+}
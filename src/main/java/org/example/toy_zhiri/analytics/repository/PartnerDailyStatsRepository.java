@@ -0,0 +1,184 @@
+package org.example.toy_zhiri.analytics.repository;
+
+import org.example.toy_zhiri.analytics.entity.PartnerDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PartnerDailyStatsRepository extends JpaRepository<PartnerDailyStats, UUID> {
+
+    /**
+     * Атомарно прибавляет дельты к дневному агрегату партнёра.
+     * Если строки за этот день ещё нет — создаёт её.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO partner_daily_stats AS s (partner_id, day,
+                created_count, confirmed_count, rejected_count, cancelled_count,
+                completed_count, expired_count, views_count, revenue,
+                response_seconds_total, responses_count)
+            VALUES (:partnerId, :day,
+                :created, :confirmed, :rejected, :cancelled,
+                :completed, :expired, :views, :revenue,
+                :responseSeconds, :responses)
+            ON CONFLICT (partner_id, day) DO UPDATE SET
+                created_count = s.created_count + EXCLUDED.created_count,
+                confirmed_count = s.confirmed_count + EXCLUDED.confirmed_count,
+                rejected_count = s.rejected_count + EXCLUDED.rejected_count,
+                cancelled_count = s.cancelled_count + EXCLUDED.cancelled_count,
+                completed_count = s.completed_count + EXCLUDED.completed_count,
+                expired_count = s.expired_count + EXCLUDED.expired_count,
+                views_count = s.views_count + EXCLUDED.views_count,
+                revenue = s.revenue + EXCLUDED.revenue,
+                response_seconds_total = s.response_seconds_total + EXCLUDED.response_seconds_total,
+                responses_count = s.responses_count + EXCLUDED.responses_count
+            """, nativeQuery = true)
+    void upsert(@Param("partnerId") UUID partnerId,
+                @Param("day") LocalDate day,
+                @Param("created") int created,
+                @Param("confirmed") int confirmed,
+                @Param("rejected") int rejected,
+                @Param("cancelled") int cancelled,
+                @Param("completed") int completed,
+                @Param("expired") int expired,
+                @Param("views") int views,
+                @Param("revenue") BigDecimal revenue,
+                @Param("responseSeconds") long responseSeconds,
+                @Param("responses") int responses);
+
+    /**
+     * Агрегаты партнёра за период, сгруппированные по месяцам.
+     * Читает не более одной строки на день периода, независимо от числа бронирований.
+     */
+    @Query(value = """
+            SELECT to_char(s.day, 'YYYY-MM') AS month,
+                   SUM(s.created_count) AS createdCount,
+                   SUM(s.confirmed_count) AS confirmedCount,
+                   SUM(s.rejected_count) AS rejectedCount,
+                   SUM(s.cancelled_count) AS cancelledCount,
+                   SUM(s.completed_count) AS completedCount,
+                   SUM(s.expired_count) AS expiredCount,
+                   SUM(s.views_count) AS viewsCount,
+                   SUM(s.revenue) AS revenue,
+                   SUM(s.response_seconds_total) AS responseSecondsTotal,
+                   SUM(s.responses_count) AS responsesCount
+            FROM partner_daily_stats s
+            WHERE s.partner_id = :partnerId
+              AND s.day BETWEEN :from AND :to
+            GROUP BY to_char(s.day, 'YYYY-MM')
+            ORDER BY month
+            """, nativeQuery = true)
+    List<MonthlyStats> findMonthlyStats(
+            @Param("partnerId") UUID partnerId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    /**
+     * Следующая порция ID партнёров для backfill (keyset по id).
+     */
+    @Query(value = "SELECT p.id FROM partners p WHERE p.id > :after ORDER BY p.id LIMIT :limit",
+            nativeQuery = true)
+    List<UUID> findPartnerIdsAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+    /**
+     * Пересобирает метрики бронирований по таблице bookings для набора партнёров.
+     * Просмотры не трогаются — у них нет таблицы-источника.
+     * Перед вызовом метрики бронирований этих партнёров обнуляются через resetBookingMetrics.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO partner_daily_stats AS s (partner_id, day,
+                created_count, confirmed_count, rejected_count, cancelled_count,
+                completed_count, expired_count, revenue,
+                response_seconds_total, responses_count)
+            SELECT e.partner_id, e.day,
+                   SUM(e.created), SUM(e.confirmed), SUM(e.rejected), SUM(e.cancelled),
+                   SUM(e.completed), SUM(e.expired), SUM(e.revenue),
+                   SUM(e.response_seconds), SUM(e.responses)
+            FROM (
+                SELECT partner_id, CAST(created_at AS date) AS day,
+                       1 AS created, 0 AS confirmed, 0 AS rejected, 0 AS cancelled,
+                       0 AS completed, 0 AS expired, CAST(0 AS numeric) AS revenue,
+                       CAST(0 AS bigint) AS response_seconds, 0 AS responses
+                FROM bookings WHERE partner_id IN (:partnerIds)
+                UNION ALL
+                SELECT partner_id, CAST(confirmed_at AS date), 0, 1, 0, 0, 0, 0, 0,
+                       CAST(EXTRACT(EPOCH FROM confirmed_at - created_at) AS bigint), 1
+                FROM bookings WHERE partner_id IN (:partnerIds) AND confirmed_at IS NOT NULL
+                UNION ALL
+                SELECT partner_id, CAST(rejected_at AS date), 0, 0, 1, 0, 0, 0, 0, 0, 0
+                FROM bookings WHERE partner_id IN (:partnerIds) AND rejected_at IS NOT NULL
+                UNION ALL
+                SELECT partner_id, CAST(cancelled_at AS date), 0, 0, 0, 1, 0, 0, 0, 0, 0
+                FROM bookings WHERE partner_id IN (:partnerIds) AND cancelled_at IS NOT NULL
+                UNION ALL
+                SELECT partner_id, CAST(completed_at AS date), 0, 0, 0, 0, 1, 0,
+                       COALESCE(total_price, 0), 0, 0
+                FROM bookings WHERE partner_id IN (:partnerIds) AND completed_at IS NOT NULL
+                UNION ALL
+                SELECT partner_id, CAST(COALESCE(expires_at, updated_at) AS date), 0, 0, 0, 0, 0, 1, 0, 0, 0
+                FROM bookings WHERE partner_id IN (:partnerIds) AND status = 'EXPIRED'
+            ) e
+            GROUP BY e.partner_id, e.day
+            ON CONFLICT (partner_id, day) DO UPDATE SET
+                created_count = EXCLUDED.created_count,
+                confirmed_count = EXCLUDED.confirmed_count,
+                rejected_count = EXCLUDED.rejected_count,
+                cancelled_count = EXCLUDED.cancelled_count,
+                completed_count = EXCLUDED.completed_count,
+                expired_count = EXCLUDED.expired_count,
+                revenue = EXCLUDED.revenue,
+                response_seconds_total = EXCLUDED.response_seconds_total,
+                responses_count = EXCLUDED.responses_count
+            """, nativeQuery = true)
+    void backfillFromBookings(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Обнуляет метрики бронирований (но не просмотры) для набора партнёров.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE partner_daily_stats SET
+                created_count = 0, confirmed_count = 0, rejected_count = 0, cancelled_count = 0,
+                completed_count = 0, expired_count = 0, revenue = 0,
+                response_seconds_total = 0, responses_count = 0
+            WHERE partner_id IN (:partnerIds)
+            """, nativeQuery = true)
+    void resetBookingMetrics(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Агрегат за месяц.
+     */
+    interface MonthlyStats {
+        String getMonth();
+
+        Long getCreatedCount();
+
+        Long getConfirmedCount();
+
+        Long getRejectedCount();
+
+        Long getCancelledCount();
+
+        Long getCompletedCount();
+
+        Long getExpiredCount();
+
+        Long getViewsCount();
+
+        BigDecimal getRevenue();
+
+        Long getResponseSecondsTotal();
+
+        Long getResponsesCount();
+    }
+}
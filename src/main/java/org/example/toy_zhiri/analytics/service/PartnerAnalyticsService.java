@@ -0,0 +1,235 @@
+package org.example.toy_zhiri.analytics.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.analytics.dto.PartnerAnalyticsResponse;
+import org.example.toy_zhiri.analytics.repository.PartnerDailyStatsRepository;
+import org.example.toy_zhiri.booking.entity.Booking;
+import org.example.toy_zhiri.exception.BadRequestException;
+import org.example.toy_zhiri.exception.NotFoundException;
+import org.example.toy_zhiri.partner.entity.Partner;
+import org.example.toy_zhiri.partner.repository.PartnerRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис аналитики партнёра на основе дневных агрегатов (partner_daily_stats).
+ * <p>
+ * BookingService и BookingExpirationJob сообщают о переходах статусов —
+ * каждый переход превращается в один upsert в рамках той же транзакции.
+ * Просмотры услуг копятся в памяти и сбрасываются раз в несколько секунд.
+ * Дашборд читает только агрегаты, поэтому стоимость запроса зависит от длины
+ * периода в днях, а не от числа бронирований.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartnerAnalyticsService {
+    private final PartnerDailyStatsRepository statsRepository;
+    private final PartnerRepository partnerRepository;
+
+    private final Map<PartnerDay, Integer> pendingViews = new ConcurrentHashMap<>();
+
+    public void recordCreated(Booking booking) {
+        statsRepository.upsert(booking.getPartner().getId(), day(booking.getCreatedAt()),
+                1, 0, 0, 0, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+    }
+
+    public void recordConfirmed(Booking booking) {
+        long responseSeconds = booking.getCreatedAt() != null && booking.getConfirmedAt() != null
+                ? Math.max(Duration.between(booking.getCreatedAt(), booking.getConfirmedAt()).getSeconds(), 0)
+                : 0;
+
+        statsRepository.upsert(booking.getPartner().getId(), day(booking.getConfirmedAt()),
+                0, 1, 0, 0, 0, 0, 0, BigDecimal.ZERO, responseSeconds, 1);
+    }
+
+    public void recordRejected(Booking booking) {
+        statsRepository.upsert(booking.getPartner().getId(), day(booking.getRejectedAt()),
+                0, 0, 1, 0, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+    }
+
+    public void recordCancelled(Booking booking) {
+        statsRepository.upsert(booking.getPartner().getId(), day(booking.getCancelledAt()),
+                0, 0, 0, 1, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+    }
+
+    public void recordCompleted(Booking booking) {
+        BigDecimal revenue = booking.getTotalPrice() != null ? booking.getTotalPrice() : BigDecimal.ZERO;
+
+        statsRepository.upsert(booking.getPartner().getId(), day(booking.getCompletedAt()),
+                0, 0, 0, 0, 1, 0, 0, revenue, 0, 0);
+    }
+
+    public void recordExpired(Booking booking) {
+        statsRepository.upsert(booking.getPartner().getId(), LocalDate.now(),
+                0, 0, 0, 0, 0, 1, 0, BigDecimal.ZERO, 0, 0);
+    }
+
+    /**
+     * Регистрирует просмотр услуги партнёра. Запись в БД — пакетно, см. flushViews.
+     */
+    public void recordView(UUID partnerId) {
+        pendingViews.merge(new PartnerDay(partnerId, LocalDate.now()), 1, Integer::sum);
+    }
+
+    /**
+     * Сбрасывает накопленные просмотры — один upsert на (партнёр, день).
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.views-flush-interval-ms:5000}")
+    @Transactional
+    public void flushViews() {
+        for (PartnerDay key : new ArrayList<>(pendingViews.keySet())) {
+            Integer views = pendingViews.remove(key);
+            if (views != null && views > 0) {
+                statsRepository.upsert(key.partnerId(), key.day(),
+                        0, 0, 0, 0, 0, 0, views, BigDecimal.ZERO, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Пересобирает метрики бронирований для порции партнёров по таблице bookings.
+     */
+    @Transactional
+    public void backfill(Collection<UUID> partnerIds) {
+        if (partnerIds.isEmpty()) {
+            return;
+        }
+        statsRepository.resetBookingMetrics(partnerIds);
+        statsRepository.backfillFromBookings(partnerIds);
+    }
+
+    /**
+     * Возвращает аналитику партнёра за период по дневным агрегатам.
+     */
+    public PartnerAnalyticsResponse getAnalytics(UUID userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Начало периода не может быть позже конца");
+        }
+
+        Partner partner = partnerRepository.findByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("Партнёр не найден"));
+
+        List<PartnerDailyStatsRepository.MonthlyStats> stats =
+                statsRepository.findMonthlyStats(partner.getId(), from, to);
+
+        List<PartnerAnalyticsResponse.AnalyticsPeriod> months = stats.stream()
+                .map(this::mapToPeriod)
+                .collect(Collectors.toList());
+
+        return PartnerAnalyticsResponse.builder()
+                .from(from)
+                .to(to)
+                .total(sumPeriods(stats))
+                .months(months)
+                .build();
+    }
+
+    private PartnerAnalyticsResponse.AnalyticsPeriod mapToPeriod(PartnerDailyStatsRepository.MonthlyStats stats) {
+        return buildPeriod(
+                stats.getMonth(),
+                stats.getCreatedCount(),
+                stats.getConfirmedCount(),
+                stats.getRejectedCount(),
+                stats.getCancelledCount(),
+                stats.getCompletedCount(),
+                stats.getExpiredCount(),
+                stats.getViewsCount(),
+                stats.getRevenue(),
+                stats.getResponseSecondsTotal(),
+                stats.getResponsesCount()
+        );
+    }
+
+    /**
+     * Итог за весь период. Среднее время ответа считается по суммам, а не как среднее месячных средних.
+     */
+    private PartnerAnalyticsResponse.AnalyticsPeriod sumPeriods(List<PartnerDailyStatsRepository.MonthlyStats> stats) {
+        long created = 0, confirmed = 0, rejected = 0, cancelled = 0, completed = 0, expired = 0, views = 0;
+        long responseSeconds = 0, responses = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        for (PartnerDailyStatsRepository.MonthlyStats month : stats) {
+            created += nullToZero(month.getCreatedCount());
+            confirmed += nullToZero(month.getConfirmedCount());
+            rejected += nullToZero(month.getRejectedCount());
+            cancelled += nullToZero(month.getCancelledCount());
+            completed += nullToZero(month.getCompletedCount());
+            expired += nullToZero(month.getExpiredCount());
+            views += nullToZero(month.getViewsCount());
+            responseSeconds += nullToZero(month.getResponseSecondsTotal());
+            responses += nullToZero(month.getResponsesCount());
+            if (month.getRevenue() != null) {
+                revenue = revenue.add(month.getRevenue());
+            }
+        }
+
+        return buildPeriod(null, created, confirmed, rejected, cancelled, completed, expired, views,
+                revenue, responseSeconds, responses);
+    }
+
+    private PartnerAnalyticsResponse.AnalyticsPeriod buildPeriod(String month,
+                                                                 Long created,
+                                                                 Long confirmed,
+                                                                 Long rejected,
+                                                                 Long cancelled,
+                                                                 Long completed,
+                                                                 Long expired,
+                                                                 Long views,
+                                                                 BigDecimal revenue,
+                                                                 Long responseSeconds,
+                                                                 Long responses) {
+        long createdCount = nullToZero(created);
+        long viewsCount = nullToZero(views);
+        long responsesCount = nullToZero(responses);
+
+        BigDecimal conversionRate = viewsCount > 0
+                ? BigDecimal.valueOf(createdCount * 100L)
+                .divide(BigDecimal.valueOf(viewsCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        Long averageResponseMinutes = responsesCount > 0
+                ? nullToZero(responseSeconds) / responsesCount / 60
+                : null;
+
+        return PartnerAnalyticsResponse.AnalyticsPeriod.builder()
+                .month(month)
+                .createdCount(createdCount)
+                .confirmedCount(nullToZero(confirmed))
+                .rejectedCount(nullToZero(rejected))
+                .cancelledCount(nullToZero(cancelled))
+                .completedCount(nullToZero(completed))
+                .expiredCount(nullToZero(expired))
+                .viewsCount(viewsCount)
+                .revenue(revenue != null ? revenue : BigDecimal.ZERO)
+                .conversionRate(conversionRate)
+                .averageResponseMinutes(averageResponseMinutes)
+                .build();
+    }
+
+    private long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private LocalDate day(LocalDateTime at) {
+        return at != null ? at.toLocalDate() : LocalDate.now();
+    }
+
+    private record PartnerDay(UUID partnerId, LocalDate day) {
+    }
+}
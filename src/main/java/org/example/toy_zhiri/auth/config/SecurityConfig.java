@@ -72,7 +72,8 @@ public class SecurityConfig {
                                 "/api/v1/services/*/variants",
                                 "/api/v1/services/*/variants/search",
                                 "/api/v1/stories/feed",
-                                "/api/v1/stories/*"
+                                "/api/v1/stories/*",
+                                "/api/v1/calendar-feed/*"
                         ).permitAll()
                         .requestMatchers("/api/v1/users/**").authenticated()
                         .requestMatchers("/api/v1/favorites/**").authenticated()
@@ -3,6 +3,7 @@ package org.example.toy_zhiri.auth.security;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.auth.service.TokenBlacklistService;
+import org.example.toy_zhiri.chat.service.PresenceTracker;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -24,6 +25,9 @@ import java.util.UUID;
  * <p>
  * Концептуально это «брат» JwtAuthenticationFilter — оба валидируют JWT,
  * только один для HTTP, другой для STOMP.
+ * <p>
+ * Любой фрейм аутентифицированной сессии (включая heartbeat) продлевает её присутствие
+ * в PresenceTracker — по этому признаку обнаруживаются оборванные соединения.
  */
 @Component
 @RequiredArgsConstructor
@@ -32,6 +36,7 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
 
     private final JwtTokenProvider tokenProvider;
     private final TokenBlacklistService tokenBlacklistService;
+    private final PresenceTracker presenceTracker;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -72,6 +77,8 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
             accessor.setUser(principal);
 
             log.debug("WebSocket подключение аутентифицировано: userId={}, email={}", userId, email);
+        } else if (accessor.getUser() instanceof StompPrincipal principal && accessor.getSessionId() != null) {
+            presenceTracker.touch(principal.getUserId(), accessor.getSessionId());
         }
 
         return message;
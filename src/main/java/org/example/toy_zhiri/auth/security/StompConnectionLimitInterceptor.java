@@ -0,0 +1,66 @@
+package org.example.toy_zhiri.auth.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.websocket.service.WebSocketMetricsService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Ограничивает число одновременных STOMP-сессий одного пользователя.
+ * <p>
+ * Срабатывает на CONNECT после JwtChannelInterceptor: если у пользователя уже
+ * app.websocket.max-sessions-per-user сессий, подключение отклоняется (клиент получает
+ * ERROR-фрейм). В режиме broker relay реестр учитывает сессии всех узлов.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompConnectionLimitInterceptor implements ChannelInterceptor {
+
+    // Реестр создаётся конфигурацией брокера, которая сама зависит от интерсепторов
+    private final ObjectProvider<SimpUserRegistry> simpUserRegistry;
+    private final WebSocketMetricsService metricsService;
+
+    @Value("${app.websocket.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor =
+                MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        Principal principal = accessor.getUser();
+        SimpUserRegistry registry = simpUserRegistry.getIfAvailable();
+        if (principal == null || registry == null) {
+            return message;
+        }
+
+        SimpUser user = registry.getUser(principal.getName());
+        int sessions = user != null ? user.getSessions().size() : 0;
+
+        if (sessions >= maxSessionsPerUser) {
+            metricsService.recordRejectedConnection();
+            log.warn("WebSocket CONNECT отклонён: у пользователя {} уже {} сессий", principal.getName(), sessions);
+            throw new MessageDeliveryException(message, "Превышено число одновременных подключений");
+        }
+
+        return message;
+    }
+}
@@ -6,8 +6,11 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.dto.BookingChangesResponse;
 import org.example.toy_zhiri.booking.dto.BookingHistoryFilter;
 import org.example.toy_zhiri.booking.dto.BookingResponse;
+import org.example.toy_zhiri.booking.dto.CheckoutRequest;
+import org.example.toy_zhiri.booking.dto.CheckoutResponse;
 import org.example.toy_zhiri.booking.dto.CreateBookingRequest;
 import org.example.toy_zhiri.booking.enums.BookingStatus;
 import org.example.toy_zhiri.booking.service.BookingService;
@@ -53,6 +56,32 @@ public class BookingController {
         return ResponseEntity.status(201).body(bookingService.createBooking(userId, request));
     }
 
+    /**
+     * Оформить все услуги из корзины.
+     *
+     * @param request выбранные варианты и общие параметры бронирований
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<CheckoutResponse> созданные бронирования
+     */
+    @PostMapping("/checkout")
+    @Operation(
+            summary = "Оформить корзину",
+            description = "Создаёт бронирования по всем позициям корзины одной транзакцией: " +
+                    "либо оформляются все, либо ни одной. Для услуг с вариантами нужно передать " +
+                    "variantId в поле variants (cartItemId → variantId). После оформления корзина очищается.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<CheckoutResponse> checkout(
+            @RequestBody(required = false) CheckoutRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        if (request == null) {
+            request = new CheckoutRequest();
+        }
+        return ResponseEntity.status(201).body(bookingService.checkout(userId, request));
+    }
+
     /**
      * Просмотр информации о моих бронированиях.
      *
@@ -85,6 +114,35 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getMyBookings(userId, status, pageable));
     }
 
+    /**
+     * Изменения в моих бронированиях после курсора.
+     *
+     * @param since курсор из предыдущего ответа — номер последней полученной транзакции (0 — с начала)
+     * @param limit максимальное количество изменений в ответе
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<BookingChangesResponse> изменённые и удалённые бронирования, следующий курсор
+     */
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Изменения в моих бронированиях",
+            description = "Дельта-синхронизация: возвращает только бронирования, изменённые после курсора, " +
+                    "и ID удалённых. Полученный nextCursor передаётся в следующий запрос. " +
+                    "При resyncRequired = true список нужно перезагрузить с since = 0.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<BookingChangesResponse> getChanges(
+            @Parameter(description = "Курсор — nextCursor из предыдущего ответа")
+            @RequestParam(defaultValue = "0") long since,
+
+            @Parameter(description = "Максимум изменений в ответе (до 500)")
+            @RequestParam(defaultValue = "100") int limit,
+
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(bookingService.getMyBookingChanges(userId, since, limit));
+    }
+
     /**
      * Просмотр деталей бронирования.
      *
@@ -0,0 +1,108 @@
+package org.example.toy_zhiri.booking.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.service.PartnerCalendarFeedService;
+import org.example.toy_zhiri.partner.repository.PartnerRepository.CalendarFeedState;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Публичная календарная лента партнёра.
+ * Доступ — по секретному токену в URL, без JWT: календарные клиенты не умеют передавать заголовки авторизации.
+ */
+@RestController
+@RequestMapping("/api/v1/calendar-feed")
+@RequiredArgsConstructor
+@Tag(name = "Calendar Feed", description = "Подписка на календарь бронирований партнёра")
+public class CalendarFeedController {
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    private final PartnerCalendarFeedService calendarFeedService;
+
+    /**
+     * Лента в формате iCalendar.
+     *
+     * @param token токен ленты
+     * @param request текущий запрос (условные заголовки)
+     * @return ResponseEntity<StreamingResponseBody> лента или 304, если она не менялась
+     */
+    @GetMapping("/{token}.ics")
+    @Operation(
+            summary = "Календарь в формате iCal",
+            description = "Бронирования и заблокированные даты партнёра. Поддерживает If-None-Match / If-Modified-Since."
+    )
+    public ResponseEntity<StreamingResponseBody> getIcsFeed(
+            @Parameter(description = "Токен ленты")
+            @PathVariable String token,
+            WebRequest request) {
+
+        CalendarFeedState state = calendarFeedService.getFeedState(token);
+        String etag = calendarFeedService.buildEtag(state, "ics");
+        long lastModified = calendarFeedService.getLastModified(state);
+
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return buildFeedResponse(TEXT_CALENDAR, etag, lastModified,
+                out -> calendarFeedService.writeIcs(state.getPartnerId(), out));
+    }
+
+    /**
+     * Лента в формате JSON.
+     *
+     * @param token токен ленты
+     * @param request текущий запрос (условные заголовки)
+     * @return ResponseEntity<StreamingResponseBody> лента или 304, если она не менялась
+     */
+    @GetMapping("/{token}.json")
+    @Operation(
+            summary = "Календарь в формате JSON",
+            description = "Те же записи, что и в iCal ленте. Поддерживает If-None-Match / If-Modified-Since."
+    )
+    public ResponseEntity<StreamingResponseBody> getJsonFeed(
+            @Parameter(description = "Токен ленты")
+            @PathVariable String token,
+            WebRequest request) {
+
+        CalendarFeedState state = calendarFeedService.getFeedState(token);
+        String etag = calendarFeedService.buildEtag(state, "json");
+        long lastModified = calendarFeedService.getLastModified(state);
+
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return buildFeedResponse(MediaType.APPLICATION_JSON, etag, lastModified,
+                out -> calendarFeedService.writeJson(state.getPartnerId(), state.getVersion(), out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildFeedResponse(
+            MediaType contentType,
+            String etag,
+            long lastModified,
+            StreamingResponseBody body) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType)
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body);
+    }
+}
@@ -5,10 +5,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.dto.BookingCursorPage;
+import org.example.toy_zhiri.booking.dto.BookingChangesResponse;
 import org.example.toy_zhiri.booking.dto.BookingResponse;
+import org.example.toy_zhiri.booking.dto.CalendarFeedResponse;
+import org.example.toy_zhiri.booking.dto.PartnerBookingSearchFilter;
 import org.example.toy_zhiri.booking.dto.RejectBookingRequest;
 import org.example.toy_zhiri.booking.enums.BookingStatus;
 import org.example.toy_zhiri.booking.service.BookingService;
+import org.example.toy_zhiri.booking.service.PartnerCalendarFeedService;
 import org.example.toy_zhiri.user.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -31,6 +36,7 @@ import java.util.UUID;
 @Tag(name = "Partner Bookings", description = "Управление бронированиями партнёра")
 public class PartnerBookingController {
     private final BookingService bookingService;
+    private final PartnerCalendarFeedService calendarFeedService;
     private final UserService userService;
 
     /**
@@ -65,6 +71,63 @@ public class PartnerBookingController {
         return ResponseEntity.ok(bookingService.getPartnerBookings(userId, status, pageable));
     }
 
+    /**
+     * Изменения во входящих бронированиях после курсора.
+     *
+     * @param since курсор из предыдущего ответа — номер последней полученной транзакции (0 — с начала)
+     * @param limit максимальное количество изменений в ответе
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<BookingChangesResponse> изменённые и удалённые бронирования, следующий курсор
+     */
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Изменения во входящих бронированиях",
+            description = "Дельта-синхронизация: возвращает только бронирования, изменённые после курсора, " +
+                    "и ID удалённых. Полученный nextCursor передаётся в следующий запрос. " +
+                    "При resyncRequired = true список нужно перезагрузить с since = 0.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<BookingChangesResponse> getChanges(
+            @Parameter(description = "Курсор — nextCursor из предыдущего ответа")
+            @RequestParam(defaultValue = "0") long since,
+
+            @Parameter(description = "Максимум изменений в ответе (до 500)")
+            @RequestParam(defaultValue = "100") int limit,
+
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(bookingService.getPartnerBookingChanges(userId, since, limit));
+    }
+
+    /**
+     * Поиск по входящим бронированиям.
+     *
+     * @param filter фильтры поиска и курсор
+     * @param size размер страницы
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<BookingCursorPage> страница бронирований и курсор следующей
+     */
+    @GetMapping("/search")
+    @Operation(
+            summary = "Поиск бронирований",
+            description = "Поиск по бронированиям партнёра: набор статусов, период мероприятия и создания, " +
+                    "вариант услуги, начало имени/фамилии или телефона клиента. " +
+                    "Пагинация курсорная: для следующей страницы передайте nextCursor в параметр cursor.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<BookingCursorPage> searchBookings(
+            @ModelAttribute PartnerBookingSearchFilter filter,
+
+            @Parameter(description = "Размер страницы (не более 100)")
+            @RequestParam(defaultValue = "20") int size,
+
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(bookingService.searchPartnerBookings(userId, filter, size));
+    }
+
     /**
      * Просмотр деталей бронирования.
      *
@@ -182,4 +245,43 @@ public class PartnerBookingController {
         UUID userId = userService.getIdByEmail(userDetails.getUsername());
         return ResponseEntity.ok(bookingService.getPartnerCalendar(userId, from, to));
     }
-}
\ No newline at end of file
+
+    /**
+     * Ссылки на календарную ленту для подписки.
+     *
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<CalendarFeedResponse> ссылки на iCal и JSON ленту
+     */
+    @GetMapping("/calendar/feed")
+    @Operation(
+            summary = "Ссылки на календарную ленту",
+            description = "Возвращает ссылки на ленту бронирований в форматах iCal и JSON " +
+                    "для подписки из Google Calendar, Apple Calendar и т.п. Токен выпускается при первом запросе.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<CalendarFeedResponse> getCalendarFeed(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(calendarFeedService.getFeedLinks(userId));
+    }
+
+    /**
+     * Перевыпуск токена календарной ленты.
+     *
+     * @param userDetails пользовательские поля
+     * @return ResponseEntity<CalendarFeedResponse> новые ссылки на ленту
+     */
+    @PostMapping("/calendar/feed/rotate")
+    @Operation(
+            summary = "Перевыпуск ссылки на календарь",
+            description = "Выпускает новый токен ленты. Ранее выданные ссылки перестают работать.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<CalendarFeedResponse> rotateCalendarFeed(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID userId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(calendarFeedService.rotateToken(userId));
+    }
+}
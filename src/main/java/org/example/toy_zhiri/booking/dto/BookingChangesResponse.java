@@ -0,0 +1,28 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Изменения в списке бронирований после переданного курсора.
+ * changed — бронирования в актуальном состоянии, removed — ID удалённых бронирований.
+ * nextCursor передаётся в следующий запрос; при hasMore = true изменения нужно дочитать сразу.
+ * resyncRequired = true — курсор старше срока хранения удалений: клиент сбрасывает локальный
+ * список и запрашивает изменения с since = 0.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingChangesResponse {
+    private List<BookingResponse> changed;
+    private List<UUID> removed;
+    private Long nextCursor;
+    private Boolean hasMore;
+    private Boolean resyncRequired;
+}
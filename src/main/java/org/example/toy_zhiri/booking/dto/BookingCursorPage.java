@@ -0,0 +1,23 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница бронирований с курсорной пагинацией.
+ * Для следующей страницы nextCursor передаётся обратно в запрос; null — страниц больше нет.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCursorPage {
+    private List<BookingResponse> content;
+    private Integer size;
+    private String nextCursor;
+    private Boolean hasMore;
+}
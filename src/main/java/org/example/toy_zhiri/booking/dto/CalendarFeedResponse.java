@@ -0,0 +1,20 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ссылки на календарную ленту партнёра.
+ * Ссылки содержат секретный токен — по ним лента доступна без авторизации.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarFeedResponse {
+    private String icsUrl;
+    private String jsonUrl;
+    private Long version;
+}
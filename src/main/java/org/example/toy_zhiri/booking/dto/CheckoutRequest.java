@@ -0,0 +1,35 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * DTO для оформления всех услуг из корзины одним запросом.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+
+    /**
+     * Выбранные варианты услуг: cartItemId → variantId.
+     * Обязательно для услуг, у которых есть варианты.
+     */
+    @Builder.Default
+    private Map<UUID, UUID> variants = new HashMap<>();
+
+    /**
+     * Время мероприятия — применяется ко всем создаваемым бронированиям.
+     */
+    private LocalTime eventTime;
+
+    private Integer guestsCount;
+}
@@ -0,0 +1,22 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Результат оформления корзины: созданные бронирования и итоговая сумма.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutResponse {
+    private List<BookingResponse> bookings;
+    private Integer totalBookings;
+    private BigDecimal totalPrice;
+}
@@ -0,0 +1,68 @@
+package org.example.toy_zhiri.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.booking.enums.BookingStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartnerBookingSearchFilter {
+
+    /**
+     * Фильтр по набору статусов. Пусто — все статусы.
+     */
+    private List<BookingStatus> statuses;
+
+    /**
+     * Фильтр по дате мероприятия — от.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate eventFrom;
+
+    /**
+     * Фильтр по дате мероприятия — до.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate eventTo;
+
+    /**
+     * Фильтр по дате создания заказа — от.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdFrom;
+
+    /**
+     * Фильтр по дате создания заказа — до.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate createdTo;
+
+    /**
+     * Фильтр по варианту услуги.
+     */
+    private UUID variantId;
+
+    /**
+     * Начало имени или фамилии клиента.
+     */
+    private String clientName;
+
+    /**
+     * Начало номера телефона клиента.
+     */
+    private String clientPhone;
+
+    /**
+     * Курсор из nextCursor предыдущей страницы. Пусто — первая страница.
+     */
+    private String cursor;
+}
@@ -51,8 +51,9 @@ public class Booking {
     @Column(name = "event_time")
     private LocalTime eventTime;
 
+    // Статус и поля переходов меняются только условными UPDATE-ами BookingStateMachine
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false, length = 30)
+    @Column(nullable = false, length = 30, updatable = false)
     private BookingStatus status = BookingStatus.PENDING_CONFIRMATION;
 
     @Column(columnDefinition = "TEXT")
@@ -64,7 +65,7 @@ public class Booking {
     @Column(name = "total_price", precision = 12, scale = 2)
     private BigDecimal totalPrice;
 
-    @Column(name = "rejection_reason", length = 500)
+    @Column(name = "rejection_reason", length = 500, updatable = false)
     private String rejectionReason;
 
     @JdbcTypeCode(SqlTypes.JSON)
@@ -73,11 +74,11 @@ public class Booking {
 
     // Флаги двойного подтверждения завершения сделки
     @Builder.Default
-    @Column(name = "client_confirmed", nullable = false)
+    @Column(name = "client_confirmed", nullable = false, updatable = false)
     private Boolean clientConfirmed = false;
 
     @Builder.Default
-    @Column(name = "partner_confirmed", nullable = false)
+    @Column(name = "partner_confirmed", nullable = false, updatable = false)
     private Boolean partnerConfirmed = false;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -87,27 +88,31 @@ public class Booking {
     @Column(name = "customer_notes", columnDefinition = "TEXT")
     private String customerNotes;
 
-    @Column(name = "client_confirmed_at")
+    @Column(name = "client_confirmed_at", updatable = false)
     private LocalDateTime clientConfirmedAt;
 
-    @Column(name = "partner_confirmed_at")
+    @Column(name = "partner_confirmed_at", updatable = false)
     private LocalDateTime partnerConfirmedAt;
 
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
 
-    @Column(name = "confirmed_at")
+    @Column(name = "confirmed_at", updatable = false)
     private LocalDateTime confirmedAt;
 
-    @Column(name = "rejected_at")
+    @Column(name = "rejected_at", updatable = false)
     private LocalDateTime rejectedAt;
 
-    @Column(name = "cancelled_at")
+    @Column(name = "cancelled_at", updatable = false)
     private LocalDateTime cancelledAt;
 
-    @Column(name = "completed_at")
+    @Column(name = "completed_at", updatable = false)
     private LocalDateTime completedAt;
 
+    // Номер последнего изменения строки — выставляется в БД (booking_change_seq), используется для дельта-синхронизации
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
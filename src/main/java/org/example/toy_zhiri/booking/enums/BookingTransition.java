@@ -0,0 +1,55 @@
+package org.example.toy_zhiri.booking.enums;
+
+import lombok.Getter;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Таблица переходов статусов бронирования.
+ * <p>
+ * Каждый переход задаёт допустимые исходные статусы, целевой статус и колонку
+ * с временем перехода. Переход выполняется BookingStateMachine одним условным
+ * {@code UPDATE bookings ... WHERE id = :id AND status IN (:from)}.
+ */
+@Getter
+public enum BookingTransition {
+    CONFIRM("Подтвердить", BookingStatus.CONFIRMED, "confirmed_at",
+            BookingStatus.PENDING_CONFIRMATION),
+    REJECT("Отклонить", BookingStatus.REJECTED, "rejected_at",
+            BookingStatus.PENDING_CONFIRMATION),
+    CANCEL("Отменить", BookingStatus.CANCELLED, "cancelled_at",
+            BookingStatus.PENDING_CONFIRMATION, BookingStatus.CONFIRMED),
+    COMPLETE("Завершить", BookingStatus.COMPLETED, "completed_at",
+            BookingStatus.CONFIRMED),
+    EXPIRE("Пометить истёкшим", BookingStatus.EXPIRED, null,
+            BookingStatus.PENDING_CONFIRMATION);
+
+    private final String action;
+    private final BookingStatus target;
+    private final String timestampColumn;
+    private final Set<BookingStatus> sources;
+
+    BookingTransition(String action, BookingStatus target, String timestampColumn,
+                      BookingStatus source, BookingStatus... otherSources) {
+        this.action = action;
+        this.target = target;
+        this.timestampColumn = timestampColumn;
+        this.sources = EnumSet.of(source, otherSources);
+    }
+
+    /**
+     * Проверяет, допустим ли переход из указанного статуса.
+     */
+    public boolean isAllowedFrom(BookingStatus status) {
+        return sources.contains(status);
+    }
+
+    /**
+     * Исходные статусы в виде строк — для параметра SQL-запроса.
+     */
+    public Set<String> getSourceNames() {
+        return sources.stream().map(Enum::name).collect(Collectors.toSet());
+    }
+}
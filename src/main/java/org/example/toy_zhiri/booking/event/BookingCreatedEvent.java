@@ -0,0 +1,21 @@
+package org.example.toy_zhiri.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Событие создания бронирования.
+ * Публикуется внутри транзакции и обрабатывается только после её коммита.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingCreatedEvent {
+    private final UUID bookingId;
+    private final UUID partnerUserId;
+    private final String clientFullName;
+    private final String serviceName;
+    private final LocalDate eventDate;
+}
@@ -0,0 +1,33 @@
+package org.example.toy_zhiri.booking.event;
+
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+import org.example.toy_zhiri.notification.service.NotificationService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Рассылает уведомления о событиях бронирования.
+ * Срабатывает только после успешного коммита транзакции, поэтому откат оформления
+ * не порождает «висящих» уведомлений; сама доставка идёт через NotificationDispatcher.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingEventListener {
+    private final NotificationService notificationService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookingCreated(BookingCreatedEvent event) {
+        notificationService.send(
+                event.getPartnerUserId(),
+                NotificationType.BOOKING_CREATED,
+                "Новый заказ",
+                "Новый заказ от " + event.getClientFullName() + " — " +
+                        event.getServiceName() + ", " + event.getEventDate(),
+                RelatedEntityType.BOOKING,
+                event.getBookingId()
+        );
+    }
+}
@@ -3,9 +3,13 @@ package org.example.toy_zhiri.booking.job;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.analytics.service.PartnerAnalyticsService;
 import org.example.toy_zhiri.booking.entity.Booking;
 import org.example.toy_zhiri.booking.enums.BookingStatus;
+import org.example.toy_zhiri.booking.enums.BookingTransition;
 import org.example.toy_zhiri.booking.repository.BookingRepository;
+import org.example.toy_zhiri.booking.service.BookingStateMachine;
+import org.example.toy_zhiri.booking.service.PartnerCalendarFeedService;
 import org.example.toy_zhiri.notification.enums.NotificationType;
 import org.example.toy_zhiri.notification.enums.RelatedEntityType;
 import org.example.toy_zhiri.notification.service.NotificationService;
@@ -15,7 +19,9 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Плановое задание для обработки просроченных бронирований.
@@ -31,7 +37,10 @@ import java.util.List;
 public class BookingExpirationJob {
 
     private final BookingRepository bookingRepository;
+    private final BookingStateMachine stateMachine;
     private final NotificationService notificationService;
+    private final PartnerAnalyticsService analyticsService;
+    private final PartnerCalendarFeedService calendarFeedService;
 
     @EventListener(ApplicationReadyEvent.class)
     @Scheduled(cron = "0 */30 * * * *")
@@ -48,9 +57,16 @@ public class BookingExpirationJob {
 
         log.info("BookingExpirationJob: найдено {} просроченных бронирований", overdueBookings.size());
 
+        List<Booking> expiredBookings = new ArrayList<>();
+
         for (Booking booking : overdueBookings) {
-            booking.setStatus(BookingStatus.EXPIRED);
-            bookingRepository.save(booking);
+            // Партнёр мог успеть подтвердить или отклонить бронирование — такие пропускаем
+            if (!stateMachine.tryApply(booking, BookingTransition.EXPIRE)) {
+                log.info("Бронирование {} уже не ожидает подтверждения, пропускаем", booking.getId());
+                continue;
+            }
+            expiredBookings.add(booking);
+            analyticsService.recordExpired(booking);
 
             String serviceName = booking.getService().getName();
             String eventDate = booking.getEventDate().toString();
@@ -82,6 +98,10 @@ public class BookingExpirationJob {
                     booking.getId(), serviceName, booking.getUser().getFullName());
         }
 
-        log.info("BookingExpirationJob: обработано {} бронирований", overdueBookings.size());
+        calendarFeedService.touch(expiredBookings.stream()
+                .map(booking -> booking.getPartner().getId())
+                .collect(Collectors.toSet()));
+
+        log.info("BookingExpirationJob: обработано {} бронирований", expiredBookings.size());
     }
 }
\ No newline at end of file
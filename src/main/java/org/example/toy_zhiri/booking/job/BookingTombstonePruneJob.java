@@ -0,0 +1,59 @@
+package org.example.toy_zhiri.booking.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Очистка tombstone-ов удалённых бронирований.
+ * <p>
+ * Раз в сутки (в 04:00) удаляет tombstone-ы старше app.booking.changes.tombstone-retention-days
+ * дней и поднимает границу очистки до номера последней удалённой транзакции. Клиент с курсором
+ * ниже границы получает resyncRequired и перезагружает список целиком, поэтому удаления
+ * не теряются даже после очистки.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingTombstonePruneJob {
+
+    private static final String PRUNE_SQL = """
+            WITH pruned AS (
+                DELETE FROM booking_tombstones
+                WHERE deleted_at < :cutoff
+                RETURNING change_xid
+            ), stats AS (
+                SELECT count(*) AS removed, max(change_xid) AS max_xid FROM pruned
+            )
+            UPDATE booking_tombstone_watermark w
+            SET pruned_until = GREATEST(w.pruned_until, s.max_xid), updated_at = NOW()
+            FROM stats s
+            WHERE w.id = 1 AND s.removed > 0
+            RETURNING s.removed
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${app.booking.changes.tombstone-retention-days:30}")
+    private int retentionDays;
+
+    @Scheduled(cron = "${app.booking.changes.prune-cron:0 0 4 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+
+        Long removed = jdbcTemplate.query(PRUNE_SQL, new MapSqlParameterSource("cutoff", cutoff),
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+
+        if (removed != null && removed > 0) {
+            log.info("BookingTombstonePruneJob: удалено {} tombstone-ов старше {}", removed, cutoff);
+        }
+    }
+}
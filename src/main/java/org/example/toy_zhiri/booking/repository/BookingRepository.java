@@ -1,18 +1,24 @@
 package org.example.toy_zhiri.booking.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.toy_zhiri.booking.entity.Booking;
 import org.example.toy_zhiri.booking.enums.BookingStatus;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
@@ -63,6 +69,62 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             UUID partnerId, LocalDate from, LocalDate to
     );
 
+    /**
+     * Поиск по бронированиям партнёра с курсорной пагинацией.
+     * Возвращает только ID в порядке (created_at DESC, id DESC); детали догружаются
+     * отдельным запросом findAllWithDetailsByIdIn.
+     * <p>
+     * Курсор — пара (created_at, id) последней строки предыдущей страницы.
+     * Имя клиента ищется по началу любого слова (trigram-индекс idx_users_full_name_trgm),
+     * телефон — по началу номера (idx_users_phone_prefix).
+     */
+    @Query(value = """
+            SELECT b.id FROM bookings b
+            JOIN users u ON u.id = b.user_id
+            WHERE b.partner_id = :partnerId
+              AND (:allStatuses = true OR b.status IN (:statuses))
+              AND (CAST(:eventFrom AS date) IS NULL OR b.event_date >= CAST(:eventFrom AS date))
+              AND (CAST(:eventTo AS date) IS NULL OR b.event_date <= CAST(:eventTo AS date))
+              AND (CAST(:createdFrom AS timestamp) IS NULL OR b.created_at >= CAST(:createdFrom AS timestamp))
+              AND (CAST(:createdBefore AS timestamp) IS NULL OR b.created_at < CAST(:createdBefore AS timestamp))
+              AND (CAST(:variantId AS uuid) IS NULL OR b.variant_id = CAST(:variantId AS uuid))
+              AND (CAST(:namePrefix AS text) IS NULL
+                   OR lower(u.first_name || ' ' || u.last_name) LIKE CAST(:namePrefix AS text) || '%'
+                   OR lower(u.first_name || ' ' || u.last_name) LIKE '% ' || CAST(:namePrefix AS text) || '%')
+              AND (CAST(:phonePrefix AS text) IS NULL OR u.phone LIKE CAST(:phonePrefix AS text) || '%')
+              AND (CAST(:cursorCreatedAt AS timestamp) IS NULL
+                   OR (b.created_at, b.id) < (CAST(:cursorCreatedAt AS timestamp), CAST(:cursorId AS uuid)))
+            ORDER BY b.created_at DESC, b.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchPartnerBookingIds(
+            @Param("partnerId") UUID partnerId,
+            @Param("allStatuses") boolean allStatuses,
+            @Param("statuses") Collection<String> statuses,
+            @Param("eventFrom") LocalDate eventFrom,
+            @Param("eventTo") LocalDate eventTo,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdBefore") LocalDateTime createdBefore,
+            @Param("variantId") UUID variantId,
+            @Param("namePrefix") String namePrefix,
+            @Param("phonePrefix") String phonePrefix,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Загружает бронирования вместе со всеми связями, нужными для BookingResponse, одним запросом.
+     */
+    @Query("SELECT b FROM Booking b " +
+            "JOIN FETCH b.user " +
+            "JOIN FETCH b.service s " +
+            "JOIN FETCH s.category " +
+            "JOIN FETCH b.partner " +
+            "LEFT JOIN FETCH b.variant " +
+            "WHERE b.id IN :ids")
+    List<Booking> findAllWithDetailsByIdIn(@Param("ids") Collection<UUID> ids);
+
     // Проверка конфликтов по дате.
     // PAID убран — активными считаются только PENDING_CONFIRMATION и CONFIRMED.
 
@@ -108,4 +170,239 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     boolean existsActiveBookingForVariantOnDate(
             @Param("variantId") UUID variantId,
             @Param("date") LocalDate date);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает все занятые слоты по набору услуг и дат одним запросом:
+     * активные бронирования (PENDING_CONFIRMATION, CONFIRMED) и даты, заблокированные партнёром.
+     * Используется при оформлении корзины — сопоставление с конкретными позициями идёт в сервисе.
+     */
+    @Query(value = """
+            SELECT b.service_id AS serviceId, b.variant_id AS variantId,
+                   b.event_date AS eventDate, false AS blocked
+            FROM bookings b
+            WHERE b.service_id IN (:serviceIds)
+              AND b.event_date IN (:dates)
+              AND b.status IN ('PENDING_CONFIRMATION', 'CONFIRMED')
+            UNION ALL
+            SELECT a.service_id, NULL, a.date, true
+            FROM service_availability a
+            WHERE a.service_id IN (:serviceIds)
+              AND a.date IN (:dates)
+              AND a.status = 'BLOCKED'
+            """, nativeQuery = true)
+    List<SlotConflict> findSlotConflicts(
+            @Param("serviceIds") Collection<UUID> serviceIds,
+            @Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * Занятый слот: бронирование услуги (или её варианта) либо блокировка даты партнёром.
+     */
+    interface SlotConflict {
+        UUID getServiceId();
+
+        UUID getVariantId();
+
+        LocalDate getEventDate();
+
+        boolean getBlocked();
+    }
+
+    /**
+     * Потоково читает записи календарной ленты партнёра, начиная с указанной даты:
+     * активные и завершённые бронирования и даты, заблокированные партнёром.
+     * Результат читается курсором порциями — должен вызываться внутри транзакции
+     * и закрываться после использования.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = """
+            SELECT 'BOOKING' AS kind, b.id AS id, b.event_date AS eventDate, b.event_time AS eventTime,
+                   b.status AS status, s.name AS serviceName,
+                   u.first_name || ' ' || u.last_name AS clientName,
+                   b.guests_count AS guestsCount, b.notes AS note, b.updated_at AS updatedAt
+            FROM bookings b
+            JOIN services s ON s.id = b.service_id
+            JOIN users u ON u.id = b.user_id
+            WHERE b.partner_id = :partnerId
+              AND b.event_date >= :from
+              AND b.status IN ('PENDING_CONFIRMATION', 'CONFIRMED', 'COMPLETED')
+            UNION ALL
+            SELECT 'BLOCKED', a.id, a.date, NULL, a.status, s.name, NULL, NULL, a.note, a.updated_at
+            FROM service_availability a
+            JOIN services s ON s.id = a.service_id
+            WHERE s.partner_id = :partnerId
+              AND a.date >= :from
+              AND a.status = 'BLOCKED'
+            ORDER BY eventDate, id
+            """, nativeQuery = true)
+    Stream<CalendarFeedEntry> streamCalendarFeed(
+            @Param("partnerId") UUID partnerId,
+            @Param("from") LocalDate from);
+
+    /**
+     * Запись календарной ленты: бронирование или заблокированная дата услуги.
+     */
+    interface CalendarFeedEntry {
+        String getKind();
+
+        UUID getId();
+
+        LocalDate getEventDate();
+
+        LocalTime getEventTime();
+
+        String getStatus();
+
+        String getServiceName();
+
+        String getClientName();
+
+        Integer getGuestsCount();
+
+        String getNote();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    /**
+     * Подтверждённые бронирования с датой мероприятия в периоде — для загрузки в планировщик напоминаний.
+     */
+    @Query(value = """
+            SELECT b.id AS id, b.user_id AS userId, b.event_date AS eventDate,
+                   b.event_time AS eventTime, s.name AS serviceName
+            FROM bookings b
+            JOIN services s ON s.id = b.service_id
+            WHERE b.status = 'CONFIRMED'
+              AND b.event_date BETWEEN :from AND :to
+            """, nativeQuery = true)
+    List<ReminderTarget> findReminderTargetsByEventDateBetween(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    /**
+     * Подтверждённые бронирования из набора — перепроверка перед отправкой напоминаний.
+     */
+    @Query(value = """
+            SELECT b.id AS id, b.user_id AS userId, b.event_date AS eventDate,
+                   b.event_time AS eventTime, s.name AS serviceName
+            FROM bookings b
+            JOIN services s ON s.id = b.service_id
+            WHERE b.status = 'CONFIRMED'
+              AND b.id IN (:ids)
+            """, nativeQuery = true)
+    List<ReminderTarget> findReminderTargetsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Подтверждённое бронирование, о котором нужно напомнить клиенту.
+     */
+    interface ReminderTarget {
+        UUID getId();
+
+        UUID getUserId();
+
+        LocalDate getEventDate();
+
+        LocalTime getEventTime();
+
+        String getServiceName();
+    }
+
+    /**
+     * Изменения бронирований клиента из транзакций после курсора: изменённые строки и tombstone-ы
+     * удалённых, в порядке номера транзакции. Отдаются только транзакции старше самой старой
+     * незавершённой — они уже не станут видимыми позже курсора. Обе ветки — диапазонные сканы
+     * по индексам (user_id, change_xid, change_seq).
+     */
+    @Query(value = """
+            (SELECT b.id AS id, b.change_xid AS changeXid, b.change_seq AS changeSeq, false AS removed
+             FROM bookings b
+             WHERE b.user_id = :userId AND b.change_xid > :since AND b.change_xid < stable_change_xid()
+             ORDER BY b.change_xid, b.change_seq
+             LIMIT :limit)
+            UNION ALL
+            (SELECT t.booking_id, t.change_xid, t.change_seq, true
+             FROM booking_tombstones t
+             WHERE t.user_id = :userId AND t.change_xid > :since AND t.change_xid < stable_change_xid()
+             ORDER BY t.change_xid, t.change_seq
+             LIMIT :limit)
+            ORDER BY changeXid, changeSeq
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BookingChange> findUserChangesSince(
+            @Param("userId") UUID userId,
+            @Param("since") long since,
+            @Param("limit") int limit);
+
+    /**
+     * Все изменения бронирований клиента из одной транзакции.
+     * Нужны, когда транзакция не помещается в страницу — она отдаётся целиком.
+     */
+    @Query(value = """
+            SELECT b.id AS id, b.change_xid AS changeXid, b.change_seq AS changeSeq, false AS removed
+            FROM bookings b
+            WHERE b.user_id = :userId AND b.change_xid = :xid
+            UNION ALL
+            SELECT t.booking_id, t.change_xid, t.change_seq, true
+            FROM booking_tombstones t
+            WHERE t.user_id = :userId AND t.change_xid = :xid
+            ORDER BY changeSeq
+            """, nativeQuery = true)
+    List<BookingChange> findUserChangesOfXid(@Param("userId") UUID userId, @Param("xid") long xid);
+
+    /**
+     * Изменения бронирований партнёра после курсора — аналог findUserChangesSince
+     * по индексам (partner_id, change_xid, change_seq).
+     */
+    @Query(value = """
+            (SELECT b.id AS id, b.change_xid AS changeXid, b.change_seq AS changeSeq, false AS removed
+             FROM bookings b
+             WHERE b.partner_id = :partnerId AND b.change_xid > :since AND b.change_xid < stable_change_xid()
+             ORDER BY b.change_xid, b.change_seq
+             LIMIT :limit)
+            UNION ALL
+            (SELECT t.booking_id, t.change_xid, t.change_seq, true
+             FROM booking_tombstones t
+             WHERE t.partner_id = :partnerId AND t.change_xid > :since AND t.change_xid < stable_change_xid()
+             ORDER BY t.change_xid, t.change_seq
+             LIMIT :limit)
+            ORDER BY changeXid, changeSeq
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BookingChange> findPartnerChangesSince(
+            @Param("partnerId") UUID partnerId,
+            @Param("since") long since,
+            @Param("limit") int limit);
+
+    /**
+     * Все изменения бронирований партнёра из одной транзакции — аналог findUserChangesOfXid.
+     */
+    @Query(value = """
+            SELECT b.id AS id, b.change_xid AS changeXid, b.change_seq AS changeSeq, false AS removed
+            FROM bookings b
+            WHERE b.partner_id = :partnerId AND b.change_xid = :xid
+            UNION ALL
+            SELECT t.booking_id, t.change_xid, t.change_seq, true
+            FROM booking_tombstones t
+            WHERE t.partner_id = :partnerId AND t.change_xid = :xid
+            ORDER BY changeSeq
+            """, nativeQuery = true)
+    List<BookingChange> findPartnerChangesOfXid(@Param("partnerId") UUID partnerId, @Param("xid") long xid);
+
+    /**
+     * Граница очистки tombstone-ов: курсоры ниже неё могли пропустить удаления.
+     */
+    @Query(value = "SELECT pruned_until FROM booking_tombstone_watermark WHERE id = 1", nativeQuery = true)
+    long findTombstonesPrunedUntil();
+
+    /**
+     * Изменение в списке бронирований: обновлённая строка или удаление.
+     */
+    interface BookingChange {
+        UUID getId();
+
+        Long getChangeXid();
+
+        Long getChangeSeq();
+
+        boolean getRemoved();
+    }
+}
@@ -2,14 +2,28 @@ package org.example.toy_zhiri.booking.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.analytics.service.PartnerAnalyticsService;
+import org.example.toy_zhiri.booking.dto.BookingChangesResponse;
+import org.example.toy_zhiri.booking.dto.BookingCursorPage;
 import org.example.toy_zhiri.booking.dto.BookingHistoryFilter;
 import org.example.toy_zhiri.booking.dto.BookingResponse;
+import org.example.toy_zhiri.booking.dto.CheckoutRequest;
+import org.example.toy_zhiri.booking.dto.CheckoutResponse;
 import org.example.toy_zhiri.booking.dto.CreateBookingRequest;
+import org.example.toy_zhiri.booking.dto.PartnerBookingSearchFilter;
 import org.example.toy_zhiri.booking.dto.RejectBookingRequest;
 import org.example.toy_zhiri.booking.entity.Booking;
 import org.example.toy_zhiri.booking.enums.BookingStatus;
+import org.example.toy_zhiri.booking.enums.BookingTransition;
+import org.example.toy_zhiri.booking.event.BookingCreatedEvent;
 import org.example.toy_zhiri.booking.repository.BookingRepository;
+import org.example.toy_zhiri.booking.repository.BookingRepository.BookingChange;
+import org.example.toy_zhiri.cart.entity.CartItem;
+import org.example.toy_zhiri.cart.repository.CartItemRepository;
+import org.example.toy_zhiri.chat.entity.Chat;
 import org.example.toy_zhiri.chat.repository.ChatRepository;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.exception.AccessDeniedException;
 import org.example.toy_zhiri.exception.BadRequestException;
 import org.example.toy_zhiri.exception.ConflictException;
@@ -20,6 +34,7 @@ import org.example.toy_zhiri.notification.enums.RelatedEntityType;
 import org.example.toy_zhiri.notification.service.NotificationService;
 import org.example.toy_zhiri.partner.entity.Partner;
 import org.example.toy_zhiri.partner.repository.PartnerRepository;
+import org.example.toy_zhiri.reminder.service.EventReminderService;
 import org.example.toy_zhiri.service.dto.UnavailableDatesResponse;
 import org.example.toy_zhiri.service.entity.Service;
 import org.example.toy_zhiri.service.entity.ServiceAvailability;
@@ -30,15 +45,25 @@ import org.example.toy_zhiri.service.repository.ServiceRepository;
 import org.example.toy_zhiri.service.service.ServiceVariantService;
 import org.example.toy_zhiri.user.entity.User;
 import org.example.toy_zhiri.user.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -46,8 +71,11 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class BookingService {
     private static final int BOOKING_EXPIRY_HOURS = 24;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int MAX_CHANGES_BATCH_SIZE = 500;
 
     private final BookingRepository bookingRepository;
+    private final BookingStateMachine stateMachine;
     private final UserRepository userRepository;
     private final ServiceRepository serviceRepository;
     private final PartnerRepository partnerRepository;
@@ -55,6 +83,12 @@ public class BookingService {
     private final NotificationService notificationService;
     private final ChatRepository chatRepository;
     private final ServiceVariantService serviceVariantService;
+    private final CartItemRepository cartItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CounterService counterService;
+    private final PartnerAnalyticsService analyticsService;
+    private final PartnerCalendarFeedService calendarFeedService;
+    private final EventReminderService reminderService;
 
     /**
      * Создаёт новое бронирование.
@@ -105,12 +139,14 @@ public class BookingService {
                 .customerNotes(request.getCustomerNotes())
                 .extraParams(request.getExtraParams())
                 .status(BookingStatus.PENDING_CONFIRMATION)
+                .expiresAt(LocalDateTime.now().plusHours(BOOKING_EXPIRY_HOURS))
                 .build();
 
         Booking saved = bookingRepository.save(booking);
 
-        service.setBookingsCount(service.getBookingsCount() + 1);
-        serviceRepository.save(service);
+        counterService.increment(CounterType.SERVICE_BOOKINGS, service.getId());
+        analyticsService.recordCreated(saved);
+        calendarFeedService.touch(saved.getPartner().getId());
 
         notificationService.send(
                 partner.getUser().getId(),
@@ -125,6 +161,109 @@ public class BookingService {
         return mapToResponse(saved);
     }
 
+    /**
+     * Оформляет все услуги из корзины клиента одной транзакцией — всё или ничего.
+     * <p>
+     * Варианты и доступность всех позиций проверяются пакетно (один запрос на занятые слоты),
+     * бронирования вставляются JDBC-батчем, счётчики услуг обновляются одним атомарным UPDATE на услугу.
+     * Корзина очищается, а уведомления партнёрам уходят только после коммита.
+     */
+    @Transactional
+    public CheckoutResponse checkout(UUID userId, CheckoutRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        List<CartItem> items = cartItemRepository.findByUserIdWithService(userId);
+        if (items.isEmpty()) {
+            throw new BadRequestException("Корзина пуста");
+        }
+
+        Map<UUID, UUID> selectedVariants = request.getVariants() != null ? request.getVariants() : Map.of();
+
+        Set<UUID> serviceIds = items.stream()
+                .map(item -> item.getService().getId())
+                .collect(Collectors.toSet());
+        Set<UUID> servicesWithVariants = serviceVariantService.findServiceIdsWithVariants(serviceIds);
+        Map<UUID, ServiceVariant> variants = serviceVariantService.findAllByIds(selectedVariants.values());
+
+        List<Booking> bookings = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            Service service = item.getService();
+
+            if (!service.getIsActive() || !service.getIsApproved()) {
+                throw new BadRequestException("Услуга «" + service.getName() + "» недоступна для бронирования");
+            }
+            if (item.getEventDate() == null || !item.getEventDate().isAfter(LocalDate.now())) {
+                throw new BadRequestException(
+                        "Для услуги «" + service.getName() + "» не указана дата мероприятия в будущем");
+            }
+
+            UUID variantId = selectedVariants.get(item.getId());
+            ServiceVariant variant = null;
+            if (variantId != null) {
+                variant = variants.get(variantId);
+                if (variant == null) {
+                    throw new NotFoundException("Вариант услуги с ID " + variantId + " не найден");
+                }
+            }
+            variant = validateVariant(service, variant, servicesWithVariants.contains(service.getId()));
+
+            bookings.add(Booking.builder()
+                    .user(user)
+                    .service(service)
+                    .partner(service.getPartner())
+                    .variant(variant)
+                    .eventDate(item.getEventDate())
+                    .eventTime(request.getEventTime())
+                    .guestsCount(request.getGuestsCount())
+                    .totalPrice(variant != null ? variant.getPrice() : service.getPriceFrom())
+                    .customerNotes(item.getNotes())
+                    .status(BookingStatus.PENDING_CONFIRMATION)
+                    .expiresAt(LocalDateTime.now().plusHours(BOOKING_EXPIRY_HOURS))
+                    .build());
+        }
+
+        assertSlotsAvailable(bookings, serviceIds);
+
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+
+        saved.stream()
+                .collect(Collectors.groupingBy(b -> b.getService().getId(), Collectors.counting()))
+                .forEach((serviceId, count) ->
+                        counterService.add(CounterType.SERVICE_BOOKINGS, serviceId, count));
+
+        cartItemRepository.deleteAllInBatch(items);
+        calendarFeedService.touch(saved.stream()
+                .map(b -> b.getPartner().getId())
+                .collect(Collectors.toSet()));
+
+        for (Booking booking : saved) {
+            analyticsService.recordCreated(booking);
+            eventPublisher.publishEvent(new BookingCreatedEvent(
+                    booking.getId(),
+                    booking.getPartner().getUser().getId(),
+                    user.getFullName(),
+                    booking.getService().getName(),
+                    booking.getEventDate()
+            ));
+        }
+
+        List<BookingResponse> responses = saved.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+
+        BigDecimal totalPrice = saved.stream()
+                .map(Booking::getTotalPrice)
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return CheckoutResponse.builder()
+                .bookings(responses)
+                .totalBookings(responses.size())
+                .totalPrice(totalPrice)
+                .build();
+    }
+
     /**
      * Возвращает список бронирований клиента с опциональной фильтрацией по статусу.
      */
@@ -136,6 +275,23 @@ public class BookingService {
         return bookings.map(this::mapToResponse);
     }
 
+    /**
+     * Изменения в бронированиях клиента после курсора (номера последней полученной транзакции).
+     * Без изменений — один диапазонный скан индекса и пустой ответ.
+     */
+    public BookingChangesResponse getMyBookingChanges(UUID userId, long since, int limit) {
+        if (isBehindTombstonePruning(since)) {
+            return resyncResponse();
+        }
+
+        int batchSize = Math.max(1, Math.min(limit, MAX_CHANGES_BATCH_SIZE));
+        List<BookingChange> changes = bookingRepository.findUserChangesSince(userId, since, batchSize + 1);
+
+        return buildChangesResponse(changes, since, batchSize,
+                xid -> bookingRepository.findUserChangesOfXid(userId, xid),
+                bookings -> bookings.stream().map(this::mapToResponse).collect(Collectors.toList()));
+    }
+
     /**
      * История бронирований клиента с расширенной фильтрацией.
      * Поддерживает фильтрацию по статусу, категории, диапазону дат создания и мероприятия.
@@ -185,18 +341,11 @@ public class BookingService {
             throw new AccessDeniedException("У вас нет доступа к этому бронированию");
         }
 
-        if (booking.getStatus() != BookingStatus.PENDING_CONFIRMATION
-                && booking.getStatus() != BookingStatus.CONFIRMED) {
-            throw new InvalidStateException(
-                    "Отменить можно только бронирование со статусом PENDING_CONFIRMATION или CONFIRMED. " +
-                            "Текущий статус: " + booking.getStatus()
-            );
-        }
-
-        booking.setStatus(BookingStatus.CANCELLED);
-        booking.setCancelledAt(LocalDateTime.now());
+        stateMachine.apply(booking, BookingTransition.CANCEL);
 
-        Booking saved = bookingRepository.save(booking);
+        analyticsService.recordCancelled(booking);
+        calendarFeedService.touch(booking.getPartner().getId());
+        reminderService.onBookingClosed(booking.getId());
 
         notificationService.send(
                 booking.getPartner().getUser().getId(),
@@ -208,7 +357,7 @@ public class BookingService {
                 booking.getId()
         );
 
-        return mapToResponse(saved);
+        return mapToResponse(booking);
     }
 
     /**
@@ -235,14 +384,7 @@ public class BookingService {
             throw new ConflictException("Вы уже подтвердили завершение сделки");
         }
 
-        booking.setClientConfirmed(true);
-        booking.setClientConfirmedAt(LocalDateTime.now());
-
-        if (Boolean.TRUE.equals(booking.getPartnerConfirmed())) {
-            completeBooking(booking);
-        }
-
-        Booking saved = bookingRepository.save(booking);
+        stateMachine.confirmCompletion(booking, true);
 
         notificationService.send(
                 booking.getPartner().getUser().getId(),
@@ -254,11 +396,14 @@ public class BookingService {
                 booking.getId()
         );
 
-        if (saved.getStatus() == BookingStatus.COMPLETED) {
-            sendCompletionNotifications(saved);
+        if (booking.getStatus() == BookingStatus.COMPLETED) {
+            analyticsService.recordCompleted(booking);
+            calendarFeedService.touch(booking.getPartner().getId());
+            reminderService.onBookingClosed(booking.getId());
+            sendCompletionNotifications(booking);
         }
 
-        return mapToResponse(saved);
+        return mapToResponse(booking);
     }
 
     /**
@@ -274,6 +419,85 @@ public class BookingService {
         return bookings.map(this::mapToResponse);
     }
 
+    /**
+     * Изменения во входящих бронированиях партнёра после курсора.
+     */
+    public BookingChangesResponse getPartnerBookingChanges(UUID userId, long since, int limit) {
+        Partner partner = findPartnerOrThrow(userId);
+        if (isBehindTombstonePruning(since)) {
+            return resyncResponse();
+        }
+
+        int batchSize = Math.max(1, Math.min(limit, MAX_CHANGES_BATCH_SIZE));
+        List<BookingChange> changes = bookingRepository.findPartnerChangesSince(partner.getId(), since, batchSize + 1);
+
+        return buildChangesResponse(changes, since, batchSize,
+                xid -> bookingRepository.findPartnerChangesOfXid(partner.getId(), xid),
+                bookings -> mapToResponses(partner.getId(), bookings));
+    }
+
+    /**
+     * Поиск по бронированиям партнёра: набор статусов, диапазоны дат мероприятия и создания,
+     * вариант, начало имени или телефона клиента. Пагинация курсорная — без OFFSET,
+     * поэтому стоимость страницы не растёт с её номером.
+     */
+    public BookingCursorPage searchPartnerBookings(UUID userId, PartnerBookingSearchFilter filter, int size) {
+        Partner partner = findPartnerOrThrow(userId);
+
+        int limit = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+
+        LocalDateTime cursorCreatedAt = null;
+        UUID cursorId = null;
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            String[] cursor = decodeCursor(filter.getCursor());
+            cursorCreatedAt = LocalDateTime.parse(cursor[0]);
+            cursorId = UUID.fromString(cursor[1]);
+        }
+
+        boolean allStatuses = filter.getStatuses() == null || filter.getStatuses().isEmpty();
+        List<String> statuses = allStatuses
+                ? List.of("")
+                : filter.getStatuses().stream().map(Enum::name).collect(Collectors.toList());
+
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        List<UUID> ids = bookingRepository.searchPartnerBookingIds(
+                partner.getId(),
+                allStatuses,
+                statuses,
+                filter.getEventFrom(),
+                filter.getEventTo(),
+                filter.getCreatedFrom() != null ? filter.getCreatedFrom().atStartOfDay() : null,
+                filter.getCreatedTo() != null ? filter.getCreatedTo().plusDays(1).atStartOfDay() : null,
+                filter.getVariantId(),
+                normalizeNamePrefix(filter.getClientName()),
+                normalizePhonePrefix(filter.getClientPhone()),
+                cursorCreatedAt,
+                cursorId,
+                limit + 1
+        );
+
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+
+        List<Booking> bookings = loadInOrder(ids);
+        List<BookingResponse> content = mapToResponses(partner.getId(), bookings);
+
+        String nextCursor = null;
+        if (hasMore && !bookings.isEmpty()) {
+            Booking last = bookings.get(bookings.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return BookingCursorPage.builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     /**
      * Возвращает детали бронирования.
      * Доступно только партнёру-владельцу услуги.
@@ -302,17 +526,11 @@ public class BookingService {
             throw new AccessDeniedException("У вас нет доступа к этому бронированию");
         }
 
-        if (booking.getStatus() != BookingStatus.PENDING_CONFIRMATION) {
-            throw new InvalidStateException(
-                    "Подтвердить можно только бронирование со статусом PENDING_CONFIRMATION. " +
-                            "Текущий статус: " + booking.getStatus()
-            );
-        }
-
-        booking.setStatus(BookingStatus.CONFIRMED);
-        booking.setConfirmedAt(LocalDateTime.now());
+        stateMachine.apply(booking, BookingTransition.CONFIRM);
 
-        Booking saved = bookingRepository.save(booking);
+        analyticsService.recordConfirmed(booking);
+        calendarFeedService.touch(booking.getPartner().getId());
+        reminderService.onBookingConfirmed(booking);
 
         notificationService.send(
                 booking.getUser().getId(),
@@ -324,7 +542,7 @@ public class BookingService {
                 booking.getId()
         );
 
-        return mapToResponse(saved);
+        return mapToResponse(booking);
     }
 
     /**
@@ -340,18 +558,10 @@ public class BookingService {
             throw new AccessDeniedException("У вас нет доступа к этому бронированию");
         }
 
-        if (booking.getStatus() != BookingStatus.PENDING_CONFIRMATION) {
-            throw new InvalidStateException(
-                    "Отклонить можно только бронирование со статусом PENDING_CONFIRMATION. " +
-                            "Текущий статус: " + booking.getStatus()
-            );
-        }
+        stateMachine.reject(booking, request.getRejectionReason());
 
-        booking.setStatus(BookingStatus.REJECTED);
-        booking.setRejectionReason(request.getRejectionReason());
-        booking.setRejectedAt(LocalDateTime.now());
-
-        Booking saved = bookingRepository.save(booking);
+        analyticsService.recordRejected(booking);
+        calendarFeedService.touch(booking.getPartner().getId());
 
         String message = "Бронирование отклонено — " + booking.getService().getName();
         if (request.getRejectionReason() != null && !request.getRejectionReason().isBlank()) {
@@ -366,7 +576,7 @@ public class BookingService {
                 booking.getId()
         );
 
-        return mapToResponse(saved);
+        return mapToResponse(booking);
     }
 
     /**
@@ -394,14 +604,7 @@ public class BookingService {
             throw new ConflictException("Вы уже подтвердили завершение сделки");
         }
 
-        booking.setPartnerConfirmed(true);
-        booking.setPartnerConfirmedAt(LocalDateTime.now());
-
-        if (Boolean.TRUE.equals(booking.getClientConfirmed())) {
-            completeBooking(booking);
-        }
-
-        Booking saved = bookingRepository.save(booking);
+        stateMachine.confirmCompletion(booking, false);
 
         notificationService.send(
                 booking.getUser().getId(),
@@ -413,11 +616,14 @@ public class BookingService {
                 booking.getId()
         );
 
-        if (saved.getStatus() == BookingStatus.COMPLETED) {
-            sendCompletionNotifications(saved);
+        if (booking.getStatus() == BookingStatus.COMPLETED) {
+            analyticsService.recordCompleted(booking);
+            calendarFeedService.touch(booking.getPartner().getId());
+            reminderService.onBookingClosed(booking.getId());
+            sendCompletionNotifications(booking);
         }
 
-        return mapToResponse(saved);
+        return mapToResponse(booking);
     }
 
     /**
@@ -474,6 +680,17 @@ public class BookingService {
         boolean serviceHasVariants = serviceVariantService.serviceHasVariants(service.getId());
 
         if (variantId == null) {
+            return validateVariant(service, null, serviceHasVariants);
+        }
+
+        return validateVariant(service, serviceVariantService.findByIdOrThrow(variantId), serviceHasVariants);
+    }
+
+    /**
+     * Валидирует уже загруженный вариант (или его отсутствие) для услуги.
+     */
+    private ServiceVariant validateVariant(Service service, ServiceVariant variant, boolean serviceHasVariants) {
+        if (variant == null) {
             if (serviceHasVariants) {
                 throw new BadRequestException(
                         "Эта услуга имеет варианты — необходимо выбрать конкретный вариант (variantId)");
@@ -481,8 +698,6 @@ public class BookingService {
             return null;
         }
 
-        ServiceVariant variant = serviceVariantService.findByIdOrThrow(variantId);
-
         if (!variant.getService().getId().equals(service.getId())) {
             throw new BadRequestException("Вариант не принадлежит выбранной услуге");
         }
@@ -509,9 +724,48 @@ public class BookingService {
         }
     }
 
-    private void completeBooking(Booking booking) {
-        booking.setStatus(BookingStatus.COMPLETED);
-        booking.setCompletedAt(LocalDateTime.now());
+    /**
+     * Пакетная проверка доступности для набора новых бронирований.
+     * Все занятые слоты по услугам и датам загружаются одним запросом и сопоставляются в памяти
+     * по тем же правилам, что и в assertAvailability.
+     */
+    private void assertSlotsAvailable(List<Booking> bookings, Set<UUID> serviceIds) {
+        Set<LocalDate> dates = bookings.stream()
+                .map(Booking::getEventDate)
+                .collect(Collectors.toSet());
+
+        Set<String> blocked = new HashSet<>();
+        Set<String> bookedServices = new HashSet<>();
+        Set<String> bookedVariants = new HashSet<>();
+        for (BookingRepository.SlotConflict conflict : bookingRepository.findSlotConflicts(serviceIds, dates)) {
+            if (conflict.getBlocked()) {
+                blocked.add(conflict.getServiceId() + "|" + conflict.getEventDate());
+                continue;
+            }
+            bookedServices.add(conflict.getServiceId() + "|" + conflict.getEventDate());
+            if (conflict.getVariantId() != null) {
+                bookedVariants.add(conflict.getVariantId() + "|" + conflict.getEventDate());
+            }
+        }
+
+        for (Booking booking : bookings) {
+            Service service = booking.getService();
+            String serviceSlot = service.getId() + "|" + booking.getEventDate();
+
+            if (blocked.contains(serviceSlot)) {
+                throw new ConflictException("Дата " + booking.getEventDate() + " недоступна для услуги «" +
+                        service.getName() + "». Партнёр заблокировал эту дату.");
+            }
+
+            boolean occupied = booking.getVariant() != null
+                    ? bookedVariants.contains(booking.getVariant().getId() + "|" + booking.getEventDate())
+                    : bookedServices.contains(serviceSlot);
+
+            if (occupied) {
+                throw new ConflictException("Дата " + booking.getEventDate() + " для услуги «" +
+                        service.getName() + "» уже занята. Пожалуйста, выберите другую дату.");
+            }
+        }
     }
 
     private void sendCompletionNotifications(Booking booking) {
@@ -548,6 +802,139 @@ public class BookingService {
                 .orElseThrow(() -> new NotFoundException("Партнёр не найден"));
     }
 
+    /**
+     * Собирает страницу изменений. Транзакция не делится между страницами: если последняя
+     * транзакция страницы не поместилась целиком, она переносится на следующую страницу,
+     * а если она одна занимает всю страницу — отдаётся целиком. Курсор — номер последней
+     * отданной транзакции, поэтому повторный запрос не пропускает и не дробит изменения.
+     * Бронирования загружаются с деталями одним запросом в порядке изменений.
+     */
+    private BookingChangesResponse buildChangesResponse(
+            List<BookingChange> changes,
+            long since,
+            int batchSize,
+            LongFunction<List<BookingChange>> xidLoader,
+            Function<List<Booking>, List<BookingResponse>> mapper) {
+
+        boolean hasMore = changes.size() > batchSize;
+        List<BookingChange> batch = hasMore ? changes.subList(0, batchSize) : changes;
+
+        if (hasMore) {
+            long splitXid = changes.get(batchSize).getChangeXid();
+            int end = batch.size();
+            while (end > 0 && batch.get(end - 1).getChangeXid() == splitXid) {
+                end--;
+            }
+            batch = end > 0 ? batch.subList(0, end) : xidLoader.apply(splitXid);
+        }
+
+        List<UUID> changedIds = new ArrayList<>();
+        List<UUID> removedIds = new ArrayList<>();
+        for (BookingChange change : batch) {
+            (change.getRemoved() ? removedIds : changedIds).add(change.getId());
+        }
+
+        long nextCursor = batch.isEmpty() ? since : batch.get(batch.size() - 1).getChangeXid();
+
+        return BookingChangesResponse.builder()
+                .changed(mapper.apply(loadInOrder(changedIds)))
+                .removed(removedIds)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .resyncRequired(false)
+                .build();
+    }
+
+    /**
+     * Курсор старше границы очистки tombstone-ов: удаления между ними уже не восстановить.
+     */
+    private boolean isBehindTombstonePruning(long since) {
+        return since > 0 && since < bookingRepository.findTombstonesPrunedUntil();
+    }
+
+    private BookingChangesResponse resyncResponse() {
+        return BookingChangesResponse.builder()
+                .changed(List.of())
+                .removed(List.of())
+                .nextCursor(0L)
+                .hasMore(false)
+                .resyncRequired(true)
+                .build();
+    }
+
+    private List<Booking> loadInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Booking> byId = bookingRepository.findAllWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Маппит бронирования одного партнёра, подбирая ссылки на чаты одним запросом.
+     */
+    private List<BookingResponse> mapToResponses(UUID partnerId, List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+
+        Set<UUID> userIds = bookings.stream()
+                .map(b -> b.getUser().getId())
+                .collect(Collectors.toSet());
+
+        Map<UUID, UUID> chatIdByUserId = chatRepository.findByPartnerIdAndUserIdIn(partnerId, userIds).stream()
+                .collect(Collectors.toMap(c -> c.getUser().getId(), Chat::getId, (a, b) -> a));
+
+        return bookings.stream()
+                .map(b -> {
+                    UUID chatId = chatIdByUserId.get(b.getUser().getId());
+                    return mapToResponse(b, chatId != null ? "/chat/" + chatId : null);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private String normalizeNamePrefix(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        // Спецсимволы LIKE из пользовательского ввода не используем
+        return name.trim().toLowerCase().replace("%", "").replace("_", "");
+    }
+
+    private String normalizePhonePrefix(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("\\D", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            UUID.fromString(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Некорректный курсор пагинации");
+        }
+    }
+
     private String buildChatUrl(Booking booking) {
         return chatRepository
                 .findByUserIdAndPartnerId(booking.getUser().getId(), booking.getPartner().getId())
@@ -556,6 +943,10 @@ public class BookingService {
     }
 
     private BookingResponse mapToResponse(Booking booking) {
+        return mapToResponse(booking, buildChatUrl(booking));
+    }
+
+    private BookingResponse mapToResponse(Booking booking, String chatUrl) {
         return BookingResponse.builder()
                 .id(booking.getId())
                 .userId(booking.getUser().getId())
@@ -580,7 +971,7 @@ public class BookingService {
                 .clientConfirmed(booking.getClientConfirmed())
                 .partnerConfirmed(booking.getPartnerConfirmed())
                 .serviceUrl("/services/" + booking.getService().getSlug())
-                .chatUrl(buildChatUrl(booking))
+                .chatUrl(chatUrl)
                 .expiresAt(booking.getExpiresAt())
                 .confirmedAt(booking.getConfirmedAt())
                 .rejectedAt(booking.getRejectedAt())
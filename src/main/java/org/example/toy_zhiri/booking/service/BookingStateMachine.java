@@ -0,0 +1,132 @@
+package org.example.toy_zhiri.booking.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.entity.Booking;
+import org.example.toy_zhiri.booking.enums.BookingTransition;
+import org.example.toy_zhiri.exception.InvalidStateException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Выполняет переходы статусов бронирования условными UPDATE-ами.
+ * <p>
+ * Статус и связанные с ним поля Booking не обновляются через save() (updatable = false) —
+ * только здесь, запросом {@code UPDATE ... WHERE id = :id AND status IN (:from)}.
+ * Если параллельная транзакция успела сменить статус, запрос не затронет ни одной строки
+ * и проигравший сразу получит InvalidStateException: без SELECT ... FOR UPDATE и
+ * без перезаписи чужого результата (например, EXPIRED поверх CONFIRMED).
+ * После успешного перехода сущность перечитывается из БД.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingStateMachine {
+    private static final String CONCURRENT_CHANGE_MESSAGE =
+            "Статус бронирования был изменён параллельно. Обновите данные и повторите действие";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    /**
+     * Выполняет переход или бросает InvalidStateException.
+     *
+     * @param booking    бронирование (должно быть управляемой сущностью текущей транзакции)
+     * @param transition переход из таблицы переходов
+     */
+    public void apply(Booking booking, BookingTransition transition) {
+        apply(booking, transition, null);
+    }
+
+    /**
+     * Отклоняет бронирование с указанием причины.
+     *
+     * @param booking бронирование
+     * @param reason  причина отклонения (может быть null)
+     */
+    public void reject(Booking booking, String reason) {
+        apply(booking, BookingTransition.REJECT, reason);
+    }
+
+    /**
+     * Пытается выполнить переход; при неподходящем статусе возвращает false без исключения.
+     * Используется плановыми заданиями, для которых проигрыш гонки — штатная ситуация.
+     */
+    public boolean tryApply(Booking booking, BookingTransition transition) {
+        if (!transition.isAllowedFrom(booking.getStatus()) || update(booking, transition, null) == 0) {
+            return false;
+        }
+        entityManager.refresh(booking);
+        return true;
+    }
+
+    /**
+     * Отмечает подтверждение завершения сделки одной из сторон.
+     * Если вторая сторона уже подтвердила, в том же запросе бронирование переводится в COMPLETED.
+     *
+     * @param booking бронирование в статусе CONFIRMED
+     * @param byClient true — подтверждает клиент, false — партнёр
+     */
+    public void confirmCompletion(Booking booking, boolean byClient) {
+        String own = byClient ? "client_confirmed" : "partner_confirmed";
+        String other = byClient ? "partner_confirmed" : "client_confirmed";
+        BookingTransition complete = BookingTransition.COMPLETE;
+
+        String sql = "UPDATE bookings SET " +
+                own + " = TRUE, " +
+                own + "_at = :now, " +
+                "status = CASE WHEN " + other + " THEN :target ELSE status END, " +
+                complete.getTimestampColumn() + " = CASE WHEN " + other + " THEN :now ELSE " +
+                complete.getTimestampColumn() + " END, " +
+                "updated_at = :now " +
+                "WHERE id = :id AND status IN (:sources) AND " + own + " = FALSE";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", booking.getId())
+                .addValue("now", LocalDateTime.now())
+                .addValue("target", complete.getTarget().name())
+                .addValue("sources", complete.getSourceNames());
+
+        if (jdbcTemplate.update(sql, params) == 0) {
+            throw new InvalidStateException(CONCURRENT_CHANGE_MESSAGE);
+        }
+        entityManager.refresh(booking);
+    }
+
+    private void apply(Booking booking, BookingTransition transition, String reason) {
+        if (!transition.isAllowedFrom(booking.getStatus())) {
+            throw new InvalidStateException(
+                    transition.getAction() + " можно только бронирование со статусом " +
+                            String.join(" или ", transition.getSources().stream().map(Enum::name).toList()) +
+                            ". Текущий статус: " + booking.getStatus()
+            );
+        }
+
+        if (update(booking, transition, reason) == 0) {
+            throw new InvalidStateException(CONCURRENT_CHANGE_MESSAGE);
+        }
+        entityManager.refresh(booking);
+    }
+
+    private int update(Booking booking, BookingTransition transition, String reason) {
+        StringBuilder sql = new StringBuilder("UPDATE bookings SET status = :target, updated_at = :now");
+        if (transition.getTimestampColumn() != null) {
+            sql.append(", ").append(transition.getTimestampColumn()).append(" = :now");
+        }
+        if (transition == BookingTransition.REJECT) {
+            sql.append(", rejection_reason = :reason");
+        }
+        sql.append(" WHERE id = :id AND status IN (:sources)");
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", booking.getId())
+                .addValue("now", LocalDateTime.now())
+                .addValue("target", transition.getTarget().name())
+                .addValue("sources", transition.getSourceNames())
+                .addValue("reason", reason);
+
+        return jdbcTemplate.update(sql.toString(), params);
+    }
+}
@@ -0,0 +1,342 @@
+package org.example.toy_zhiri.booking.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.dto.CalendarFeedResponse;
+import org.example.toy_zhiri.booking.repository.BookingRepository;
+import org.example.toy_zhiri.booking.repository.BookingRepository.CalendarFeedEntry;
+import org.example.toy_zhiri.exception.NotFoundException;
+import org.example.toy_zhiri.partner.entity.Partner;
+import org.example.toy_zhiri.partner.repository.PartnerRepository;
+import org.example.toy_zhiri.partner.repository.PartnerRepository.CalendarFeedState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Календарная лента партнёра для подписки из внешних календарей (iCal) и интеграций (JSON).
+ * <p>
+ * Лента адресуется секретным токеном партнёра. Каждое изменение, видимое в ленте
+ * (переход статуса бронирования, блокировка даты), увеличивает partners.calendar_version —
+ * по нему строятся ETag и Last-Modified, так что повторный опрос без изменений
+ * отвечает 304 после чтения одной строки партнёра. Сама лента не собирается в памяти:
+ * записи читаются курсором и сразу пишутся в ответ.
+ */
+@Service
+@RequiredArgsConstructor
+public class PartnerCalendarFeedService {
+    private static final String FEED_PATH = "/api/v1/calendar-feed/";
+    private static final int ICS_LINE_LIMIT = 75;
+
+    private static final DateTimeFormatter ICS_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter ICS_LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ICS_UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final PartnerRepository partnerRepository;
+    private final BookingRepository bookingRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.calendar.past-days:30}")
+    private int pastDays;
+
+    /**
+     * Возвращает ссылки на календарную ленту партнёра, выпуская токен при первом обращении.
+     *
+     * @param userId ID текущего пользователя (партнёра)
+     * @return ссылки на iCal и JSON ленту
+     */
+    @Transactional
+    public CalendarFeedResponse getFeedLinks(UUID userId) {
+        Partner partner = findPartnerOrThrow(userId);
+        if (partner.getCalendarToken() == null) {
+            partner.setCalendarToken(generateToken());
+            partnerRepository.save(partner);
+        }
+        return buildResponse(partner);
+    }
+
+    /**
+     * Выпускает новый токен ленты. Старые ссылки перестают работать.
+     *
+     * @param userId ID текущего пользователя (партнёра)
+     * @return новые ссылки на iCal и JSON ленту
+     */
+    @Transactional
+    public CalendarFeedResponse rotateToken(UUID userId) {
+        Partner partner = findPartnerOrThrow(userId);
+        partner.setCalendarToken(generateToken());
+        partnerRepository.save(partner);
+        return buildResponse(partner);
+    }
+
+    /**
+     * Отмечает изменение календаря партнёра. Выполняется в текущей транзакции,
+     * поэтому версия растёт только вместе с зафиксированным изменением.
+     *
+     * @param partnerId ID партнёра
+     */
+    @Transactional
+    public void touch(UUID partnerId) {
+        touch(Set.of(partnerId));
+    }
+
+    /**
+     * Отмечает изменение календарей нескольких партнёров одним запросом.
+     *
+     * @param partnerIds ID партнёров
+     */
+    @Transactional
+    public void touch(Collection<UUID> partnerIds) {
+        if (partnerIds.isEmpty()) {
+            return;
+        }
+        partnerRepository.incrementCalendarVersion(partnerIds);
+    }
+
+    /**
+     * Находит состояние ленты по токену.
+     *
+     * @param token токен ленты из URL
+     * @return версия ленты и время последнего изменения
+     */
+    public CalendarFeedState getFeedState(String token) {
+        return partnerRepository.findCalendarFeedStateByToken(token)
+                .orElseThrow(() -> new NotFoundException("Календарь не найден"));
+    }
+
+    /**
+     * Строит ETag ленты по версии и формату.
+     */
+    public String buildEtag(CalendarFeedState state, String format) {
+        return "\"" + state.getVersion() + "-" + format + "\"";
+    }
+
+    /**
+     * Время последнего изменения ленты в миллисекундах; -1, если календарь ещё не менялся.
+     */
+    public long getLastModified(CalendarFeedState state) {
+        if (state.getUpdatedAt() == null) {
+            return -1;
+        }
+        return state.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Пишет ленту в формате iCalendar (RFC 5545).
+     *
+     * @param partnerId ID партнёра
+     * @param out       поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void writeIcs(UUID partnerId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        writeIcsLine(writer, "BEGIN:VCALENDAR");
+        writeIcsLine(writer, "VERSION:2.0");
+        writeIcsLine(writer, "PRODID:-//ToyZhiri//Partner Calendar//RU");
+        writeIcsLine(writer, "CALSCALE:GREGORIAN");
+        writeIcsLine(writer, "METHOD:PUBLISH");
+        writeIcsLine(writer, "X-WR-CALNAME:" + escapeIcs("ToyZhiri — бронирования"));
+
+        try (Stream<CalendarFeedEntry> entries = bookingRepository.streamCalendarFeed(partnerId, feedStart())) {
+            Iterator<CalendarFeedEntry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                writeIcsEvent(writer, iterator.next());
+            }
+        }
+
+        writeIcsLine(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    /**
+     * Пишет ленту в формате JSON.
+     *
+     * @param partnerId ID партнёра
+     * @param version   версия ленты
+     * @param out       поток ответа
+     */
+    @Transactional(readOnly = true)
+    public void writeJson(UUID partnerId, long version, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+            json.writeStartObject();
+            json.writeNumberField("version", version);
+            json.writeArrayFieldStart("events");
+
+            try (Stream<CalendarFeedEntry> entries = bookingRepository.streamCalendarFeed(partnerId, feedStart())) {
+                Iterator<CalendarFeedEntry> iterator = entries.iterator();
+                while (iterator.hasNext()) {
+                    writeJsonEvent(json, iterator.next());
+                }
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private void writeIcsEvent(Writer writer, CalendarFeedEntry entry) throws IOException {
+        boolean blocked = isBlocked(entry);
+
+        writeIcsLine(writer, "BEGIN:VEVENT");
+        writeIcsLine(writer, "UID:" + entry.getId() + "@toyzhiri.kz");
+        writeIcsLine(writer, "DTSTAMP:" + formatUtc(entry.getUpdatedAt()));
+
+        if (entry.getEventTime() == null) {
+            writeIcsLine(writer, "DTSTART;VALUE=DATE:" + ICS_DATE.format(entry.getEventDate()));
+            writeIcsLine(writer, "DTEND;VALUE=DATE:" + ICS_DATE.format(entry.getEventDate().plusDays(1)));
+        } else {
+            writeIcsLine(writer, "DTSTART:" + ICS_LOCAL_DATE_TIME.format(entry.getEventDate().atTime(entry.getEventTime())));
+        }
+
+        String summary = blocked
+                ? "Недоступно: " + entry.getServiceName()
+                : entry.getServiceName() + " — " + entry.getClientName();
+        writeIcsLine(writer, "SUMMARY:" + escapeIcs(summary));
+
+        String description = buildDescription(entry, blocked);
+        if (!description.isEmpty()) {
+            writeIcsLine(writer, "DESCRIPTION:" + escapeIcs(description));
+        }
+
+        writeIcsLine(writer, "STATUS:" + ("PENDING_CONFIRMATION".equals(entry.getStatus()) ? "TENTATIVE" : "CONFIRMED"));
+        writeIcsLine(writer, "TRANSP:OPAQUE");
+        writeIcsLine(writer, "END:VEVENT");
+    }
+
+    private void writeJsonEvent(JsonGenerator json, CalendarFeedEntry entry) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", entry.getKind());
+        json.writeStringField("id", entry.getId().toString());
+        json.writeStringField("date", entry.getEventDate().toString());
+        if (entry.getEventTime() != null) {
+            json.writeStringField("time", entry.getEventTime().toString());
+        }
+        json.writeStringField("status", entry.getStatus());
+        json.writeStringField("serviceName", entry.getServiceName());
+        if (entry.getClientName() != null) {
+            json.writeStringField("clientName", entry.getClientName());
+        }
+        if (entry.getGuestsCount() != null) {
+            json.writeNumberField("guestsCount", entry.getGuestsCount());
+        }
+        if (entry.getNote() != null) {
+            json.writeStringField("note", entry.getNote());
+        }
+        json.writeStringField("updatedAt", entry.getUpdatedAt().toString());
+        json.writeEndObject();
+    }
+
+    private String buildDescription(CalendarFeedEntry entry, boolean blocked) {
+        StringBuilder description = new StringBuilder();
+        if (!blocked) {
+            description.append("Статус: ").append(entry.getStatus());
+            if (entry.getGuestsCount() != null) {
+                description.append("\nГостей: ").append(entry.getGuestsCount());
+            }
+        }
+        if (entry.getNote() != null && !entry.getNote().isBlank()) {
+            if (!description.isEmpty()) {
+                description.append("\n");
+            }
+            description.append(entry.getNote());
+        }
+        return description.toString();
+    }
+
+    /**
+     * Пишет строку iCalendar с переносом длинных строк по 75 октетов (RFC 5545, 3.1).
+     */
+    private void writeIcsLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        int i = 0;
+        while (i < line.length()) {
+            int codePoint = line.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            int size = utf8Length(codePoint);
+
+            if (octets + size > ICS_LINE_LIMIT) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(line, i, charCount);
+            octets += size;
+            i += charCount;
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeIcs(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    private int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    private String formatUtc(LocalDateTime dateTime) {
+        return ICS_UTC_DATE_TIME.format(dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC));
+    }
+
+    private boolean isBlocked(CalendarFeedEntry entry) {
+        return "BLOCKED".equals(entry.getKind());
+    }
+
+    private LocalDate feedStart() {
+        return LocalDate.now().minusDays(pastDays);
+    }
+
+    private CalendarFeedResponse buildResponse(Partner partner) {
+        String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(FEED_PATH + partner.getCalendarToken())
+                .toUriString();
+        return CalendarFeedResponse.builder()
+                .icsUrl(baseUrl + ".ics")
+                .jsonUrl(baseUrl + ".json")
+                .version(partner.getCalendarVersion())
+                .build();
+    }
+
+    private String generateToken() {
+        return UUID.randomUUID().toString().replace("-", "")
+                + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private Partner findPartnerOrThrow(UUID userId) {
+        return partnerRepository.findByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("Партнёр не найден"));
+    }
+}
@@ -2,6 +2,8 @@ package org.example.toy_zhiri.cart.repository;
 
 import org.example.toy_zhiri.cart.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,6 +24,22 @@ public interface CartItemRepository extends JpaRepository<CartItem, UUID> {
      */
     List<CartItem> findByUserId(UUID userId);
 
+    /**
+     * Возвращает элементы корзины вместе с услугой, её категорией и партнёром одним запросом.
+     * Используется при оформлении корзины, чтобы не подгружать связи по одной.
+     *
+     * @param userId идентификатор пользователя
+     * @return List<CartItem> список элементов корзины
+     */
+    @Query("SELECT ci FROM CartItem ci " +
+            "JOIN FETCH ci.service s " +
+            "JOIN FETCH s.category " +
+            "JOIN FETCH s.partner p " +
+            "JOIN FETCH p.user " +
+            "WHERE ci.user.id = :userId " +
+            "ORDER BY ci.createdAt ASC")
+    List<CartItem> findByUserIdWithService(@Param("userId") UUID userId);
+
     /**
      * Находит элемент корзины по паре (user, service).
      *
@@ -5,8 +5,10 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.chat.dto.ChatMessageHistoryResponse;
 import org.example.toy_zhiri.chat.dto.ChatMessageResponse;
 import org.example.toy_zhiri.chat.dto.ChatResponse;
+import org.example.toy_zhiri.chat.dto.ChatSearchResponse;
 import org.example.toy_zhiri.chat.dto.CreateChatRequest;
 import org.example.toy_zhiri.chat.dto.SendMessageRequest;
 import org.example.toy_zhiri.chat.service.ChatService;
@@ -180,6 +182,71 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Ищет сообщения по тексту во всех чатах текущего пользователя.
+     *
+     * @param userDetails данные аутентифицированного пользователя
+     * @param q           поисковая строка
+     * @param chatId      искать только в этом чате (опционально)
+     * @param cursor      курсор следующей страницы (опционально)
+     * @param size        размер страницы
+     * @return ResponseEntity<ChatSearchResponse> страница результатов
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('USER', 'PARTNER', 'ADMIN')")
+    @Operation(
+            summary = "Поиск по сообщениям",
+            description = "Полнотекстовый поиск по чатам, где текущий пользователь — клиент " +
+                    "или владелец партнёра. Поддерживает \"фразы\", -исключения и or. " +
+                    "Результаты — от новых к старым с фрагментом текста и seq сообщения; " +
+                    "следующая страница — по nextCursor",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ChatSearchResponse> searchMessages(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam String q,
+            @RequestParam(required = false) UUID chatId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        User user = userService.getUserByEmailOrThrow(userDetails.getUsername());
+        ChatSearchResponse response = chatService.searchMessages(user.getId(), q, chatId, cursor, size);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Возвращает порцию истории сообщений по курсору seq.
+     *
+     * @param userDetails данные аутентифицированного пользователя
+     * @param chatId      идентификатор чата
+     * @param beforeSeq   вернуть сообщения старше данного номера (листание вверх)
+     * @param afterSeq    вернуть сообщения новее данного номера (догрузка после переподключения)
+     * @param limit       максимальный размер порции
+     * @return ResponseEntity<ChatMessageHistoryResponse> порция истории
+     */
+    @GetMapping("/{chatId}/messages/history")
+    @PreAuthorize("hasAnyRole('USER', 'PARTNER', 'ADMIN')")
+    @Operation(
+            summary = "История сообщений по курсору",
+            description = "Курсорная выборка по номеру сообщения в чате (seq). " +
+                    "beforeSeq — более старые сообщения, afterSeq — всё, что пришло после " +
+                    "последнего увиденного номера. Без курсоров — последние сообщения. " +
+                    "Сообщения в ответе отсортированы по возрастанию seq",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ChatMessageHistoryResponse> getMessageHistory(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable UUID chatId,
+            @RequestParam(required = false) Long beforeSeq,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int limit) {
+        User user = userService.getUserByEmailOrThrow(userDetails.getUsername());
+        ChatMessageHistoryResponse response = chatService.getMessageHistory(
+                chatId, user.getId(), beforeSeq, afterSeq, limit);
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Отправляет сообщение в чат.
      *
@@ -203,7 +270,7 @@ public class ChatController {
             @Valid @RequestBody SendMessageRequest request) {
         User user = userService.getUserByEmailOrThrow(userDetails.getUsername());
         ChatMessageResponse response = chatService.sendMessage(
-                chatId, user.getId(), request.getContent(), request.getAttachmentUrls());
+                chatId, user.getId(), request.getContent(), request.getAttachmentUrls(), request.getClientMessageId());
 
         return ResponseEntity
                 .created(URI.create("/api/v1/chats/" + chatId + "/messages/" + response.getId()))
@@ -5,12 +5,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.auth.security.StompPrincipal;
 import org.example.toy_zhiri.chat.dto.ChatMessageResponse;
+import org.example.toy_zhiri.chat.dto.PresenceEvent;
 import org.example.toy_zhiri.chat.dto.SendMessageRequest;
+import org.example.toy_zhiri.chat.dto.TypingRequest;
+import org.example.toy_zhiri.chat.service.ChatPresenceService;
 import org.example.toy_zhiri.chat.service.ChatService;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -28,6 +32,11 @@ import java.util.UUID;
  * Сама публикация в топик происходит внутри ChatService — это значит,
  * что REST-эндпоинт POST /api/v1/chats/{chatId}/messages тоже автоматически
  * рассылает сообщения по WebSocket. Единая точка записи в БД.
+ * <p>
+ * Индикаторы (без записи в БД):
+ * /app/chat.typing/{chatId}        — «печатает…», уходит собеседнику в /user/queue/typing
+ * /app/chats/{chatId}/presence     — подписка, возвращает текущий статус собеседника;
+ *                                    изменения приходят в /user/queue/presence
  */
 @Controller
 @RequiredArgsConstructor
@@ -35,13 +44,15 @@ import java.util.UUID;
 public class ChatWebSocketController {
 
     private final ChatService chatService;
+    private final ChatPresenceService chatPresenceService;
 
     /**
      * Принимает сообщение от клиента через STOMP, сохраняет и публикует в топик.
      * <p>
      * Возвращает результат отправителю в персональную очередь /user/queue/chat-ack —
      * это позволяет фронту понять, что сообщение действительно сохранилось,
-     * и получить его реальный ID и timestamp.
+     * и получить его реальный ID, seq и timestamp. Повтор с тем же clientMessageId
+     * (например, после переподключения) вернёт то же сообщение без дубля.
      *
      * @param chatId    идентификатор чата (из destination variable)
      * @param request   запрос с текстом и/или вложениями
@@ -63,6 +74,46 @@ public class ChatWebSocketController {
         log.debug("WebSocket-сообщение в чат {} от пользователя {}", chatId, senderId);
 
         return chatService.sendMessage(
-                chatId, senderId, request.getContent(), request.getAttachmentUrls());
+                chatId, senderId, request.getContent(), request.getAttachmentUrls(), request.getClientMessageId());
+    }
+
+    /**
+     * Принимает индикатор набора текста и пересылает его другой стороне диалога.
+     * Частые повторы прореживаются, ответ отправителю не возвращается.
+     *
+     * @param chatId    идентификатор чата (из destination variable)
+     * @param request   запрос с флагом typing (опционально)
+     * @param principal STOMP-принципал аутентифицированного пользователя
+     * @throws IllegalStateException если WebSocket-сессия не аутентифицирована
+     */
+    @MessageMapping("/chat.typing/{chatId}")
+    public void typing(
+            @DestinationVariable UUID chatId,
+            @Payload(required = false) TypingRequest request,
+            Principal principal) {
+        if (!(principal instanceof StompPrincipal stompPrincipal)) {
+            throw new IllegalStateException("WebSocket-сессия не аутентифицирована");
+        }
+
+        boolean typing = request == null || request.getTyping() == null || request.getTyping();
+        chatPresenceService.typing(chatId, stompPrincipal.getUserId(), typing);
+    }
+
+    /**
+     * Возвращает текущий статус собеседника при подписке
+     * (online=null, если присутствие выключено в режиме broker relay).
+     *
+     * @param chatId    идентификатор чата (из destination variable)
+     * @param principal STOMP-принципал аутентифицированного пользователя
+     * @return PresenceEvent собеседника
+     * @throws IllegalStateException если WebSocket-сессия не аутентифицирована
+     */
+    @SubscribeMapping("/chats/{chatId}/presence")
+    public PresenceEvent getPresence(@DestinationVariable UUID chatId, Principal principal) {
+        if (!(principal instanceof StompPrincipal stompPrincipal)) {
+            throw new IllegalStateException("WebSocket-сессия не аутентифицирована");
+        }
+
+        return chatPresenceService.getPresence(chatId, stompPrincipal.getUserId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO порции истории сообщений по курсору seq.
+ * <p>
+ * Сообщения всегда отсортированы по seq по возрастанию. hasMore относится
+ * к направлению запроса: есть ли ещё более старые (beforeSeq) или более новые (afterSeq).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageHistoryResponse {
+
+    /**
+     * Сообщения порции (по возрастанию seq)
+     */
+    private List<ChatMessageResponse> messages;
+
+    /**
+     * Есть ли ещё сообщения в направлении запроса
+     */
+    private boolean hasMore;
+
+    /**
+     * Номер последнего записанного сообщения в чате на момент запроса;
+     * все сообщения с меньшими номерами уже видны в истории
+     */
+    private long lastSeq;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.file.dto.AttachmentPreviewResponse;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,19 +14,31 @@ import java.util.UUID;
  * DTO для отображения сообщения в чате.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChatMessageResponse {
     private UUID id;
     private UUID chatId;
 
+    /**
+     * Номер сообщения внутри чата — курсор для истории и догрузки.
+     * Выдаётся при записи; пустой в ответе на отправку при app.chat.writer.ack=ENQUEUE
+     */
+    private Long seq;
+    private UUID clientMessageId;
+
     private UUID senderId;
     private String senderFullName;
 
     private String content;
     private List<String> attachmentUrls;
 
+    /**
+     * Вложения с миниатюрами и уменьшенными копиями (в порядке attachmentUrls)
+     */
+    private List<AttachmentPreviewResponse> attachments;
+
     private Boolean isRead;
     private LocalDateTime readAt;
 
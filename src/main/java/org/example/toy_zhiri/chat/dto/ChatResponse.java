@@ -32,6 +32,7 @@ public class ChatResponse {
     private String lastMessageContent;
     private UUID lastMessageSenderId;
     private LocalDateTime lastMessageAt;
+    private Long lastMessageSeq;
 
     // Количество непрочитанных сообщений для текущего пользователя
     private Long unreadCount;
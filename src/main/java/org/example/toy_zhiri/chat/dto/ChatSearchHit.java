@@ -0,0 +1,32 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Найденное сообщение.
+ * По chatId и seq клиент открывает историю вокруг найденного места
+ * (GET /api/v1/chats/{chatId}/messages/history?beforeSeq=seq+1).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchHit {
+    private UUID chatId;
+    private UUID messageId;
+    private Long seq;
+    private UUID senderId;
+
+    /**
+     * Фрагмент текста с выделенными совпадениями (<b>…</b>)
+     */
+    private String snippet;
+
+    private LocalDateTime createdAt;
+}
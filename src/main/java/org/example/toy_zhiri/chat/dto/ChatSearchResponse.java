@@ -0,0 +1,23 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница результатов поиска по чатам, от новых сообщений к старым.
+ * Для следующей страницы nextCursor передаётся обратно в запрос; null — страниц больше нет.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchResponse {
+    private List<ChatSearchHit> hits;
+    private Integer size;
+    private String nextCursor;
+    private Boolean hasMore;
+}
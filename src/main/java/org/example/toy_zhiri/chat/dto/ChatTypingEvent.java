@@ -0,0 +1,22 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Событие «печатает…» в /user/queue/typing.
+ * Клиент показывает индикатор до события typing=false или до истечения нескольких секунд.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatTypingEvent {
+    private UUID chatId;
+    private UUID userId;
+    private Boolean typing;
+}
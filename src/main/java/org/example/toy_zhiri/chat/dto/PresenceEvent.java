@@ -0,0 +1,32 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Событие присутствия собеседника в /user/queue/presence.
+ * Отправляется только другой стороне открытого диалога и нигде не сохраняется.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceEvent {
+    private UUID chatId;
+    private UUID userId;
+
+    /**
+     * null — присутствие не ведётся (несколько экземпляров за broker relay)
+     */
+    private Boolean online;
+
+    /**
+     * Момент смены статуса; в начальном состоянии офлайн-собеседника — null.
+     */
+    private LocalDateTime lastSeenAt;
+}
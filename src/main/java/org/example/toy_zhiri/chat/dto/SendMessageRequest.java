@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
  * DTO для запроса отправки сообщения в чат.
@@ -26,4 +27,10 @@ public class SendMessageRequest {
      */
     @Size(max = 10, message = "Можно прикрепить не более 10 файлов")
     private List<String> attachmentUrls;
+
+    /**
+     * Клиентский ID сообщения (опционально). Повторная отправка с тем же ID
+     * возвращает уже сохранённое сообщение, не создавая дубль.
+     */
+    private UUID clientMessageId;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package org.example.toy_zhiri.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Запрос на отправку индикатора набора текста через WebSocket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingRequest {
+
+    /**
+     * true — начал/продолжает печатать, false — перестал (по умолчанию true).
+     */
+    private Boolean typing;
+}
@@ -43,6 +43,32 @@ public class Chat {
     @Column(name = "last_message_at")
     private LocalDateTime lastMessageAt;
 
+    /**
+     * Превью и автор последнего сообщения — для списка диалогов без запроса к chat_messages.
+     */
+    @Column(name = "last_message_preview", columnDefinition = "TEXT")
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_sender_id")
+    private UUID lastMessageSenderId;
+
+    /**
+     * Номер последнего сообщения в чате; следующий номер выдаётся под блокировкой строки чата.
+     */
+    @Builder.Default
+    @Column(name = "last_message_seq", nullable = false)
+    private Long lastMessageSeq = 0L;
+
+    /**
+     * Непрочитанные сообщения клиента и владельца партнёра.
+     * Меняются только атомарными UPDATE через CounterService.
+     */
+    @Column(name = "client_unread_count", insertable = false, updatable = false)
+    private Long clientUnreadCount;
+
+    @Column(name = "partner_unread_count", insertable = false, updatable = false)
+    private Long partnerUnreadCount;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
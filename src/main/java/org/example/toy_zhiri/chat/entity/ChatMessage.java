@@ -20,6 +20,9 @@ import java.util.UUID;
  * <p>
  * Сообщение может содержать только текст, только вложения, либо и то, и другое.
  * Гарантия «не пустое» обеспечивается чек-констрейнтом chk_chat_messages_content_or_attachments.
+ * <p>
+ * Таблица секционирована по месяцам created_at; месяцы старше горизонта архивации
+ * переносятся в chat_message_archive (см. ChatPartitionMaintenanceJob).
  */
 @Entity
 @Table(name = "chat_messages")
@@ -40,6 +43,19 @@ public class ChatMessage {
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
+    /**
+     * Монотонный номер сообщения внутри чата (1, 2, 3, ...).
+     * Используется как курсор истории и для догрузки после переподключения.
+     */
+    @Column(name = "seq", nullable = false, updatable = false)
+    private Long seq;
+
+    /**
+     * Клиентский идентификатор для идемпотентной отправки (может быть null).
+     */
+    @Column(name = "client_message_id", updatable = false)
+    private UUID clientMessageId;
+
     @Column(columnDefinition = "TEXT")
     private String content;
 
@@ -0,0 +1,19 @@
+package org.example.toy_zhiri.chat.enums;
+
+/**
+ * Момент подтверждения отправки сообщения отправителю.
+ */
+public enum ChatWriteAck {
+    /**
+     * Ответ после коммита пачки, в которую попало сообщение.
+     * Подтверждённое сообщение переживает падение экземпляра.
+     */
+    COMMIT,
+
+    /**
+     * Ответ сразу после постановки в очередь записи, без номера — сообщение с номером
+     * приходит в топик чата после коммита.
+     * Минимальная задержка; сообщения в очереди теряются при аварийной остановке.
+     */
+    ENQUEUE
+}
@@ -0,0 +1,199 @@
+package org.example.toy_zhiri.chat.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Плановое обслуживание секций chat_messages.
+ * <p>
+ * При старте и раз в сутки (в 03:30) создаёт помесячные секции на
+ * app.chat.partitions.months-ahead месяцев вперёд, чтобы вставка никогда не попадала
+ * в секцию по умолчанию.
+ * <p>
+ * Секции старше app.chat.archive.horizon-months месяцев переносятся в chat_message_archive:
+ * сообщения каждого чата за месяц сворачиваются в один сжатый JSON-массив, счётчики
+ * непрочитанного уменьшаются на архивированные непрочитанные сообщения (как и при сверке,
+ * они считаются только по живой таблице), ключи уникальности её сообщений (chat_message_keys,
+ * chat_message_client_ids) удаляются, после чего секция отсоединяется и удаляется.
+ * Номера архивированных сообщений повторно не выдаются — счётчик chats.last_message_seq монотонен.
+ * Каждая секция обрабатывается в своей транзакции; на время переноса секция блокируется
+ * от изменений, поэтому пометки прочтения не расходятся с архивом.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatPartitionMaintenanceJob {
+    private static final Pattern PARTITION_NAME = Pattern.compile("^chat_messages_(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT child.relname
+            FROM pg_inherits i
+            JOIN pg_class parent ON parent.oid = i.inhparent
+            JOIN pg_class child ON child.oid = i.inhrelid
+            WHERE parent.relname = 'chat_messages'
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CounterService counterService;
+
+    @Value("${app.chat.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.chat.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${app.chat.archive.horizon-months:12}")
+    private int horizonMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.chat.partitions.cron:0 30 3 * * *}")
+    public void maintain() {
+        createUpcomingPartitions();
+        if (archiveEnabled) {
+            archiveColdPartitions();
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            String name = jdbcTemplate.queryForObject("SELECT create_chat_messages_partition(:month)",
+                    new MapSqlParameterSource("month", current.plusMonths(i).atDay(1)), String.class);
+            log.debug("ChatPartitionMaintenanceJob: секция {} на месте", name);
+        }
+    }
+
+    private void archiveColdPartitions() {
+        YearMonth horizon = YearMonth.now().minusMonths(horizonMonths);
+
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, new MapSqlParameterSource(), String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(horizon)) {
+                continue;
+            }
+
+            try {
+                Integer archived = transactionTemplate.execute(status -> archivePartition(month));
+                log.info("ChatPartitionMaintenanceJob: секция {} перенесена в архив ({} чатов)", partition, archived);
+            } catch (RuntimeException e) {
+                log.error("ChatPartitionMaintenanceJob: не удалось архивировать секцию {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Переносит секцию месяца в архив в текущей транзакции.
+     *
+     * @return количество заархивированных чатов
+     */
+    private int archivePartition(YearMonth month) {
+        // Имя проверено шаблоном PARTITION_NAME — подстановка в SQL безопасна
+        String partition = "chat_messages_" + month.format(PARTITION_SUFFIX);
+        LocalDate periodStart = month.atDay(1);
+
+        // Блокируем изменения секции (пометки прочтения) до конца переноса
+        jdbcTemplate.update("LOCK TABLE " + partition + " IN SHARE ROW EXCLUSIVE MODE", new MapSqlParameterSource());
+
+        releaseUnreadCounters(partition);
+
+        int chats = jdbcTemplate.update("""
+                INSERT INTO chat_message_archive (chat_id, period_start, min_seq, max_seq, message_count, messages)
+                SELECT m.chat_id, :periodStart, MIN(m.seq), MAX(m.seq), COUNT(*),
+                       jsonb_agg(jsonb_build_object(
+                               'id', m.id,
+                               'seq', m.seq,
+                               'senderId', m.sender_id,
+                               'clientMessageId', m.client_message_id,
+                               'content', m.content,
+                               'attachmentUrls', m.attachment_urls,
+                               'isRead', m.is_read,
+                               'readAt', m.read_at,
+                               'createdAt', m.created_at) ORDER BY m.seq)
+                FROM %s m
+                GROUP BY m.chat_id
+                ON CONFLICT (chat_id, period_start) DO NOTHING
+                """.formatted(partition), new MapSqlParameterSource("periodStart", periodStart));
+
+        jdbcTemplate.update("""
+                DELETE FROM chat_message_keys k
+                USING %s m
+                WHERE k.chat_id = m.chat_id AND k.seq = m.seq
+                """.formatted(partition), new MapSqlParameterSource());
+        jdbcTemplate.update("""
+                DELETE FROM chat_message_client_ids k
+                USING %s m
+                WHERE k.chat_id = m.chat_id AND k.sender_id = m.sender_id
+                  AND k.client_message_id = m.client_message_id
+                """.formatted(partition), new MapSqlParameterSource());
+
+        jdbcTemplate.update("ALTER TABLE chat_messages DETACH PARTITION " + partition, new MapSqlParameterSource());
+        jdbcTemplate.update("DROP TABLE " + partition, new MapSqlParameterSource());
+        return chats;
+    }
+
+    /**
+     * Уменьшает счётчики непрочитанного на непрочитанные сообщения архивируемой секции.
+     */
+    private void releaseUnreadCounters(String partition) {
+        Map<UUID, Long> clientUnread = new HashMap<>();
+        Map<UUID, Long> partnerUnread = new HashMap<>();
+        Map<UUID, Long> userUnread = new HashMap<>();
+
+        jdbcTemplate.query("""
+                SELECT m.chat_id,
+                       c.user_id AS client_user_id,
+                       p.user_id AS partner_user_id,
+                       m.sender_id = c.user_id AS sent_by_client,
+                       COUNT(*) AS unread
+                FROM %s m
+                JOIN chats c ON c.id = m.chat_id
+                JOIN partners p ON p.id = c.partner_id
+                WHERE m.is_read = false
+                GROUP BY m.chat_id, c.user_id, p.user_id, m.sender_id = c.user_id
+                """.formatted(partition), new MapSqlParameterSource(), rs -> {
+            UUID chatId = rs.getObject("chat_id", UUID.class);
+            long unread = rs.getLong("unread");
+
+            // Сообщение клиента не прочитано владельцем партнёра, и наоборот
+            if (rs.getBoolean("sent_by_client")) {
+                partnerUnread.merge(chatId, -unread, Long::sum);
+                userUnread.merge(rs.getObject("partner_user_id", UUID.class), -unread, Long::sum);
+            } else {
+                clientUnread.merge(chatId, -unread, Long::sum);
+                userUnread.merge(rs.getObject("client_user_id", UUID.class), -unread, Long::sum);
+            }
+        });
+
+        counterService.addAll(CounterType.CHAT_CLIENT_UNREAD, clientUnread);
+        counterService.addAll(CounterType.CHAT_PARTNER_UNREAD, partnerUnread);
+        counterService.addAll(CounterType.USER_UNREAD_CHAT_MESSAGES, userUnread);
+    }
+}
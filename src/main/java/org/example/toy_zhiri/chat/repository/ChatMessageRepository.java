@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,44 +30,50 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
     Page<ChatMessage> findByChatIdOrderByCreatedAtDesc(UUID chatId, Pageable pageable);
 
     /**
-     * Находит последнее сообщение в чате (для превью в списке диалогов).
+     * Возвращает сообщения с номером меньше курсора (от новых к старым).
      *
-     * @param chatId идентификатор чата
-     * @return Optional с последним сообщением
+     * @param chatId    идентификатор чата
+     * @param beforeSeq курсор (не включительно)
+     * @param pageable  лимит выборки (страница 0)
+     * @return List<ChatMessage> сообщения
      */
-    Optional<ChatMessage> findFirstByChatIdOrderByCreatedAtDesc(UUID chatId);
+    @Query("""
+            SELECT m FROM ChatMessage m
+            WHERE m.chat.id = :chatId
+              AND m.seq < :beforeSeq
+            ORDER BY m.seq DESC
+            """)
+    List<ChatMessage> findBeforeSeq(@Param("chatId") UUID chatId,
+                                    @Param("beforeSeq") long beforeSeq,
+                                    Pageable pageable);
 
     /**
-     * Подсчитывает количество непрочитанных сообщений в чате
-     * для конкретного получателя (сообщения, отправленные НЕ им).
+     * Возвращает сообщения с номером больше курсора (от старых к новым).
      *
-     * @param chatId      идентификатор чата
-     * @param recipientId идентификатор получателя
-     * @return количество непрочитанных сообщений
+     * @param chatId   идентификатор чата
+     * @param afterSeq курсор (не включительно)
+     * @param pageable лимит выборки (страница 0)
+     * @return List<ChatMessage> сообщения
      */
     @Query("""
-            SELECT COUNT(m) FROM ChatMessage m
+            SELECT m FROM ChatMessage m
             WHERE m.chat.id = :chatId
-              AND m.sender.id <> :recipientId
-              AND m.isRead = false
+              AND m.seq > :afterSeq
+            ORDER BY m.seq ASC
             """)
-    long countUnreadForRecipient(@Param("chatId") UUID chatId,
-                                 @Param("recipientId") UUID recipientId);
+    List<ChatMessage> findAfterSeq(@Param("chatId") UUID chatId,
+                                   @Param("afterSeq") long afterSeq,
+                                   Pageable pageable);
 
     /**
-     * Подсчитывает общее количество непрочитанных сообщений пользователя
-     * по всем его чатам (для бейджика в шапке).
+     * Находит сообщение, уже отправленное с данным клиентским ID.
      *
-     * @param userId идентификатор пользователя
-     * @return общее количество непрочитанных сообщений
+     * @param chatId          идентификатор чата
+     * @param senderId        идентификатор отправителя
+     * @param clientMessageId клиентский идентификатор сообщения
+     * @return Optional с найденным сообщением
      */
-    @Query("""
-            SELECT COUNT(m) FROM ChatMessage m
-            WHERE m.sender.id <> :userId
-              AND m.isRead = false
-              AND (m.chat.user.id = :userId OR m.chat.partner.user.id = :userId)
-            """)
-    long countAllUnreadForUser(@Param("userId") UUID userId);
+    Optional<ChatMessage> findByChatIdAndSenderIdAndClientMessageId(UUID chatId, UUID senderId, UUID clientMessageId);
 
     /**
      * Помечает все непрочитанные сообщения чата как прочитанные
@@ -89,4 +96,64 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
     int markAllAsReadForRecipient(@Param("chatId") UUID chatId,
                                   @Param("recipientId") UUID recipientId,
                                   @Param("readAt") LocalDateTime readAt);
-}
\ No newline at end of file
+
+    /**
+     * Полнотекстовый поиск по сообщениям чатов, где пользователь — клиент или владелец партнёра.
+     * Сначала выбираются чаты пользователя, затем совпадения ищутся только в них по составному
+     * GIN-индексу (chat_id, content_tsv); сортировка — от новых к старым с курсором (created_at, id).
+     * Фрагмент с подсветкой строится только для строк страницы.
+     *
+     * @param userId          идентификатор пользователя
+     * @param chatId          ограничение одним чатом (опционально)
+     * @param query           поисковая строка (синтаксис websearch: "фраза", -исключение, or)
+     * @param cursorCreatedAt время последнего сообщения предыдущей страницы (опционально)
+     * @param cursorId        идентификатор последнего сообщения предыдущей страницы (опционально)
+     * @param limit           размер выборки
+     * @return List<SearchHitView> найденные сообщения
+     */
+    @Query(value = """
+            SELECT hit.id AS messageId,
+                   hit.chat_id AS chatId,
+                   hit.seq AS seq,
+                   hit.sender_id AS senderId,
+                   hit.created_at AS createdAt,
+                   ts_headline('russian', hit.content, websearch_to_tsquery('russian', :query),
+                               'MaxWords=30, MinWords=10, MaxFragments=2') AS snippet
+            FROM (SELECT m.id, m.chat_id, m.seq, m.sender_id, m.created_at, m.content
+                  FROM chat_messages m
+                  WHERE m.chat_id = ANY (ARRAY(SELECT c.id
+                                               FROM chats c
+                                               JOIN partners p ON p.id = c.partner_id
+                                               WHERE (c.user_id = :userId OR p.user_id = :userId)
+                                                 AND (CAST(:chatId AS uuid) IS NULL OR c.id = CAST(:chatId AS uuid))))
+                    AND m.content_tsv @@ websearch_to_tsquery('russian', :query)
+                    AND (CAST(:cursorCreatedAt AS timestamp) IS NULL
+                         OR (m.created_at, m.id) < (CAST(:cursorCreatedAt AS timestamp), CAST(:cursorId AS uuid)))
+                  ORDER BY m.created_at DESC, m.id DESC
+                  LIMIT :limit) hit
+            ORDER BY hit.created_at DESC, hit.id DESC
+            """, nativeQuery = true)
+    List<SearchHitView> search(@Param("userId") UUID userId,
+                               @Param("chatId") UUID chatId,
+                               @Param("query") String query,
+                               @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                               @Param("cursorId") UUID cursorId,
+                               @Param("limit") int limit);
+
+    /**
+     * Найденное сообщение.
+     */
+    interface SearchHitView {
+        UUID getMessageId();
+
+        UUID getChatId();
+
+        Long getSeq();
+
+        UUID getSenderId();
+
+        LocalDateTime getCreatedAt();
+
+        String getSnippet();
+    }
+}
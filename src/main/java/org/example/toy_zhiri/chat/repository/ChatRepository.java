@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,31 +28,109 @@ public interface ChatRepository extends JpaRepository<Chat, UUID> {
      */
     Optional<Chat> findByUserIdAndPartnerId(UUID userId, UUID partnerId);
 
+    /**
+     * Возвращает состав участников чата одним запросом — для проверки доступа
+     * и формирования ответов без загрузки сущностей.
+     *
+     * @param chatId идентификатор чата
+     * @return Optional с участниками чата
+     */
+    @Query("""
+            SELECT c.id AS chatId,
+                   u.id AS clientUserId,
+                   u.email AS clientEmail,
+                   CONCAT(u.firstName, ' ', u.lastName) AS clientFullName,
+                   p.id AS partnerId,
+                   pu.id AS partnerUserId,
+                   pu.email AS partnerUserEmail,
+                   CONCAT(pu.firstName, ' ', pu.lastName) AS partnerUserFullName,
+                   p.companyName AS partnerCompanyName
+            FROM Chat c
+            JOIN c.user u
+            JOIN c.partner p
+            JOIN p.user pu
+            WHERE c.id = :chatId
+            """)
+    Optional<MembershipView> findMembership(@Param("chatId") UUID chatId);
+
+    /**
+     * Возвращает номер последнего сообщения чата.
+     *
+     * @param chatId идентификатор чата
+     * @return Optional с номером (пустой, если чата нет)
+     */
+    @Query("SELECT c.lastMessageSeq FROM Chat c WHERE c.id = :chatId")
+    Optional<Long> findLastMessageSeq(@Param("chatId") UUID chatId);
+
+    /**
+     * Находит диалоги партнёра с набором клиентов одним запросом.
+     *
+     * @param partnerId идентификатор партнёра
+     * @param userIds   идентификаторы пользователей-клиентов
+     * @return List<Chat> найденные диалоги
+     */
+    List<Chat> findByPartnerIdAndUserIdIn(UUID partnerId, Collection<UUID> userIds);
+
     /**
      * Возвращает все диалоги клиента, отсортированные по последнему сообщению.
+     * Клиент, партнёр и владелец партнёра подгружаются тем же запросом;
+     * превью и счётчик непрочитанного денормализованы в chats.
      *
      * @param userId   идентификатор пользователя-клиента
      * @param pageable параметры пагинации
      * @return Page<Chat> страница с диалогами
      */
-    @Query("""
+    @Query(value = """
             SELECT c FROM Chat c
+            JOIN FETCH c.user
+            JOIN FETCH c.partner p
+            JOIN FETCH p.user
             WHERE c.user.id = :userId
             ORDER BY COALESCE(c.lastMessageAt, c.createdAt) DESC
-            """)
+            """,
+            countQuery = "SELECT COUNT(c) FROM Chat c WHERE c.user.id = :userId")
     Page<Chat> findAllByUserId(@Param("userId") UUID userId, Pageable pageable);
 
     /**
      * Возвращает все диалоги партнёра, отсортированные по последнему сообщению.
+     * Клиент, партнёр и владелец партнёра подгружаются тем же запросом;
+     * превью и счётчик непрочитанного денормализованы в chats.
      *
      * @param partnerId идентификатор партнёра
      * @param pageable  параметры пагинации
      * @return Page<Chat> страница с диалогами
      */
-    @Query("""
+    @Query(value = """
             SELECT c FROM Chat c
+            JOIN FETCH c.user
+            JOIN FETCH c.partner p
+            JOIN FETCH p.user
             WHERE c.partner.id = :partnerId
             ORDER BY COALESCE(c.lastMessageAt, c.createdAt) DESC
-            """)
+            """,
+            countQuery = "SELECT COUNT(c) FROM Chat c WHERE c.partner.id = :partnerId")
     Page<Chat> findAllByPartnerId(@Param("partnerId") UUID partnerId, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Состав участников чата.
+     */
+    interface MembershipView {
+        UUID getChatId();
+
+        UUID getClientUserId();
+
+        String getClientEmail();
+
+        String getClientFullName();
+
+        UUID getPartnerId();
+
+        UUID getPartnerUserId();
+
+        String getPartnerUserEmail();
+
+        String getPartnerUserFullName();
+
+        String getPartnerCompanyName();
+    }
+}
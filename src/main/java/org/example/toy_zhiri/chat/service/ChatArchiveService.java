@@ -0,0 +1,95 @@
+package org.example.toy_zhiri.chat.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.chat.dto.ChatMessageResponse;
+import org.example.toy_zhiri.file.service.AttachmentPreviewService;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Чтение архивированных сообщений (chat_message_archive).
+ * <p>
+ * Архив хранит сообщения чата помесячными блоками, поэтому блоки читаются по одному,
+ * от новых к старым, пока не наберётся нужное количество — история обращается
+ * к архиву, только когда живые сообщения закончились.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatArchiveService {
+    private static final String FIND_BLOCK_SQL = """
+            SELECT min_seq, messages
+            FROM chat_message_archive
+            WHERE chat_id = :chatId
+              AND min_seq < :beforeSeq
+            ORDER BY max_seq DESC
+            LIMIT 1
+            """;
+
+    private static final TypeReference<List<ChatMessageResponse>> MESSAGES_TYPE = new TypeReference<>() {
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AttachmentPreviewService attachmentPreviewService;
+
+    /**
+     * Возвращает архивированные сообщения с номером меньше курсора (от новых к старым).
+     *
+     * @param membership участники чата (для имён отправителей)
+     * @param beforeSeq  курсор (не включительно)
+     * @param limit      максимальное количество сообщений
+     * @return List<ChatMessageResponse> сообщения по убыванию seq
+     */
+    public List<ChatMessageResponse> findBefore(ChatMembership membership, long beforeSeq, int limit) {
+        List<ChatMessageResponse> result = new ArrayList<>();
+        long cursor = beforeSeq;
+
+        while (result.size() < limit) {
+            List<ArchiveBlock> blocks = jdbcTemplate.query(FIND_BLOCK_SQL, new MapSqlParameterSource()
+                            .addValue("chatId", membership.chatId())
+                            .addValue("beforeSeq", cursor),
+                    (rs, rowNum) -> new ArchiveBlock(rs.getLong("min_seq"), rs.getString("messages")));
+            if (blocks.isEmpty()) {
+                break;
+            }
+
+            ArchiveBlock block = blocks.get(0);
+            long upper = cursor;
+            parse(block.messages()).stream()
+                    .filter(message -> message.getSeq() < upper)
+                    .sorted(Comparator.comparing(ChatMessageResponse::getSeq).reversed())
+                    .limit(limit - result.size())
+                    .forEach(message -> result.add(enrich(message, membership)));
+            cursor = block.minSeq();
+        }
+        return result;
+    }
+
+    private List<ChatMessageResponse> parse(String json) {
+        try {
+            return objectMapper.readValue(json, MESSAGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждён блок архива сообщений", e);
+        }
+    }
+
+    private ChatMessageResponse enrich(ChatMessageResponse message, ChatMembership membership) {
+        UUID senderId = message.getSenderId();
+        message.setChatId(membership.chatId());
+        message.setSenderFullName(membership.fullNameOf(senderId));
+        message.setAttachments(attachmentPreviewService.resolve(message.getAttachmentUrls()));
+        return message;
+    }
+
+    private record ArchiveBlock(long minSeq, String messages) {
+    }
+}
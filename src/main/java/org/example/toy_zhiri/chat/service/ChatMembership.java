@@ -0,0 +1,72 @@
+package org.example.toy_zhiri.chat.service;
+
+import java.util.UUID;
+
+/**
+ * Неизменяемый состав участников диалога: клиент и владелец партнёра.
+ * <p>
+ * Участники чата после создания не меняются, поэтому запись безопасно кэшируется
+ * (см. ChatMembershipCache); отображаемые имена и email обновляются по TTL кэша.
+ *
+ * @param chatId                идентификатор чата
+ * @param clientUserId          идентификатор пользователя-клиента
+ * @param clientEmail           email клиента (имя пользователя в STOMP)
+ * @param clientFullName        полное имя клиента
+ * @param partnerId             идентификатор партнёра
+ * @param partnerUserId         идентификатор владельца партнёра
+ * @param partnerUserEmail      email владельца партнёра
+ * @param partnerUserFullName   полное имя владельца партнёра
+ * @param partnerCompanyName    название компании партнёра
+ */
+public record ChatMembership(UUID chatId,
+                             UUID clientUserId,
+                             String clientEmail,
+                             String clientFullName,
+                             UUID partnerId,
+                             UUID partnerUserId,
+                             String partnerUserEmail,
+                             String partnerUserFullName,
+                             String partnerCompanyName) {
+
+    /**
+     * Является ли пользователь клиентом или владельцем партнёра в этом чате.
+     */
+    public boolean isParticipant(UUID userId) {
+        return clientUserId.equals(userId) || partnerUserId.equals(userId);
+    }
+
+    /**
+     * Является ли пользователь клиентом в этом чате.
+     */
+    public boolean isClient(UUID userId) {
+        return clientUserId.equals(userId);
+    }
+
+    /**
+     * Идентификатор другой стороны диалога.
+     */
+    public UUID otherUserId(UUID userId) {
+        return isClient(userId) ? partnerUserId : clientUserId;
+    }
+
+    /**
+     * Email участника (имя пользователя в STOMP).
+     */
+    public String emailOf(UUID userId) {
+        return isClient(userId) ? clientEmail : partnerUserEmail;
+    }
+
+    /**
+     * Полное имя участника — как отправителя сообщения.
+     */
+    public String fullNameOf(UUID userId) {
+        return isClient(userId) ? clientFullName : partnerUserFullName;
+    }
+
+    /**
+     * Имя участника для уведомлений: для партнёра — название компании.
+     */
+    public String displayNameOf(UUID userId) {
+        return isClient(userId) ? clientFullName : partnerCompanyName;
+    }
+}
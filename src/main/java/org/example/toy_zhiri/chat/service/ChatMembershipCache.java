@@ -0,0 +1,69 @@
+package org.example.toy_zhiri.chat.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.chat.repository.ChatRepository;
+import org.example.toy_zhiri.common.LruTtlCache;
+import org.example.toy_zhiri.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Кэш состава участников чатов для горячего пути отправки и чтения сообщений.
+ * <p>
+ * Ограничен app.chat.membership-cache-size записями (LRU), запись живёт
+ * app.chat.membership-cache-ttl-ms — столько могут устаревать имена и email участников.
+ * Промах загружает запись одним запросом с join клиента, партнёра и его владельца.
+ * Несуществующие чаты не кэшируются. Состав участников чата не меняется после создания,
+ * поэтому явная инвалидация не нужна.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMembershipCache {
+    private final ChatRepository chatRepository;
+
+    @Value("${app.chat.membership-cache-size:50000}")
+    private int maxSize;
+
+    @Value("${app.chat.membership-cache-ttl-ms:300000}")
+    private long ttlMillis;
+
+    private LruTtlCache<UUID, ChatMembership> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new LruTtlCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Возвращает участников чата.
+     *
+     * @param chatId идентификатор чата
+     * @return ChatMembership состав участников
+     * @throws NotFoundException если чат не найден
+     */
+    public ChatMembership get(UUID chatId) {
+        ChatMembership cached = cache.get(chatId);
+        if (cached != null) {
+            return cached;
+        }
+
+        ChatMembership membership = chatRepository.findMembership(chatId)
+                .map(view -> new ChatMembership(
+                        view.getChatId(),
+                        view.getClientUserId(),
+                        view.getClientEmail(),
+                        view.getClientFullName(),
+                        view.getPartnerId(),
+                        view.getPartnerUserId(),
+                        view.getPartnerUserEmail(),
+                        view.getPartnerUserFullName(),
+                        view.getPartnerCompanyName()))
+                .orElseThrow(() -> new NotFoundException("Чат не найден"));
+
+        cache.put(chatId, membership);
+        return membership;
+    }
+}
@@ -0,0 +1,564 @@
+package org.example.toy_zhiri.chat.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.chat.dto.ChatMessageResponse;
+import org.example.toy_zhiri.chat.enums.ChatWriteAck;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
+import org.example.toy_zhiri.exception.ServiceUnavailableException;
+import org.example.toy_zhiri.notification.service.NotificationPushService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Асинхронная запись сообщений чата упорядоченными очередями.
+ * <p>
+ * Сообщение попадает в одну из app.chat.writer.workers очередей по хэшу чата — у каждой
+ * очереди свой поток, поэтому сообщения одного чата пишутся в порядке постановки. Поток
+ * забирает до app.chat.writer.batch-size сообщений и в одной транзакции отсекает повторы
+ * clientMessageId, выдаёт остальным номера (chats.last_message_seq), выполняет JDBC-батчи
+ * INSERT-ов ключей и сообщений и по одному UPDATE на чат (последнее сообщение и счётчики
+ * непрочитанного схлопываются по всей пачке).
+ * <p>
+ * Номер выдаётся под блокировкой строки чата, которая держится до коммита, поэтому
+ * порядок номеров совпадает с порядком коммитов даже при записи одного чата с нескольких
+ * экземпляров: last_message_seq — граница записанного, и догрузка «после seq» ничего
+ * не пропускает. Рассылка в топик чата, уведомления и push счётчиков уходят только
+ * после коммита и только для действительно вставленных сообщений.
+ * <p>
+ * Момент ответа отправителю задаёт app.chat.writer.ack (см. ChatWriteAck).
+ * Неудачная пачка повторяется до app.chat.writer.max-attempts раз в том же потоке,
+ * чтобы не нарушить порядок; после последней попытки сообщения пишутся по одному
+ * в отдельных транзакциях, и с ошибкой завершается только сообщение, которое её вызывает.
+ * <p>
+ * Уникальные индексы секционированной chat_messages включают created_at, поэтому уникальность
+ * держат несекционированные chat_message_keys (chat_id, seq) и chat_message_client_ids
+ * (chat_id, sender_id, client_message_id). Повтор clientMessageId, в том числе отправленный
+ * через другой экземпляр, отсекается ON CONFLICT ещё до выдачи номера и подтверждается уже
+ * сохранённым сообщением.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatMessageWriter {
+    private static final String CLAIM_CLIENT_ID_SQL = """
+            INSERT INTO chat_message_client_ids (chat_id, sender_id, client_message_id, message_id, created_at)
+            VALUES (:chatId, :senderId, :clientMessageId, :id, :createdAt)
+            ON CONFLICT (chat_id, sender_id, client_message_id) DO NOTHING
+            """;
+
+    private static final String INSERT_KEY_SQL = """
+            INSERT INTO chat_message_keys (chat_id, seq, message_id)
+            VALUES (:chatId, :seq, :id)
+            """;
+
+    private static final String INSERT_MESSAGE_SQL = """
+            INSERT INTO chat_messages (id, chat_id, sender_id, seq, client_message_id,
+                                       content, attachment_urls, is_read, created_at)
+            VALUES (:id, :chatId, :senderId, :seq, :clientMessageId,
+                    :content, :attachmentUrls, false, :createdAt)
+            """;
+
+    // Строки чатов блокируются до коммита — в порядке chatId, чтобы пачки разных узлов не взаимоблокировались
+    private static final String ALLOCATE_SEQ_SQL = """
+            UPDATE chats
+               SET last_message_seq = last_message_seq + :count
+             WHERE id = :chatId
+            RETURNING last_message_seq
+            """;
+
+    private static final String FIND_BY_CLIENT_ID_SQL = """
+            SELECT m.id, m.seq, m.created_at
+              FROM chat_message_client_ids k
+              JOIN chat_messages m ON m.id = k.message_id AND m.created_at = k.created_at
+             WHERE k.chat_id = :chatId AND k.sender_id = :senderId AND k.client_message_id = :clientMessageId
+            """;
+
+    // Превью не откатывается назад, если более позднее сообщение уже записано
+    private static final String UPDATE_CHAT_SQL = """
+            UPDATE chats
+               SET last_message_preview = CASE WHEN last_message_at IS NULL OR last_message_at <= :sentAt
+                                               THEN :preview ELSE last_message_preview END,
+                   last_message_sender_id = CASE WHEN last_message_at IS NULL OR last_message_at <= :sentAt
+                                                 THEN :senderId ELSE last_message_sender_id END,
+                   last_message_at = GREATEST(COALESCE(last_message_at, :sentAt), :sentAt),
+                   client_unread_count = COALESCE(client_unread_count, 0) + :clientDelta,
+                   partner_unread_count = COALESCE(partner_unread_count, 0) + :partnerDelta,
+                   updated_at = now()
+             WHERE id = :chatId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CounterService counterService;
+    private final NotificationPushService notificationPushService;
+    private final ChatNotificationCoalescer notificationCoalescer;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.chat.writer.workers:4}")
+    private int workers;
+
+    @Value("${app.chat.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.chat.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.chat.writer.ack:COMMIT}")
+    private ChatWriteAck ack;
+
+    @Value("${app.chat.writer.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    @Value("${app.chat.writer.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.chat.writer.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.chat.writer.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.chat.writer.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${app.chat.writer.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    // Сообщения, ещё не записанные в БД, — для идемпотентного повтора отправки
+    private final Map<IdempotencyKey, PendingWrite> pendingByClientId = new ConcurrentHashMap<>();
+
+    private List<BlockingQueue<PendingWrite>> lanes;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        int laneCapacity = Math.max(queueCapacity / workers, 1);
+        lanes = new ArrayList<>(workers);
+        executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("chat-writer-"));
+        running = true;
+
+        for (int i = 0; i < workers; i++) {
+            BlockingQueue<PendingWrite> lane = new ArrayBlockingQueue<>(laneCapacity);
+            lanes.add(lane);
+            executor.execute(() -> runWorker(lane));
+        }
+        log.info("ChatMessageWriter: {} очередей по {}, подтверждение {}", workers, laneCapacity, ack);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Воркеры дописывают свои очереди до конца
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+            int lost = lanes.stream().mapToInt(BlockingQueue::size).sum();
+            log.warn("ChatMessageWriter: при остановке не записано {} сообщений", lost);
+        }
+    }
+
+    /**
+     * Ставит сообщение в очередь записи его чата.
+     *
+     * @param membership участники чата
+     * @param message    сообщение (id и время уже назначены, номер выдаётся при записи)
+     * @return future с записанным сообщением, завершающийся после коммита
+     * @throws ServiceUnavailableException если очередь переполнена
+     */
+    public CompletableFuture<ChatMessageResponse> enqueue(ChatMembership membership, ChatMessageResponse message) {
+        PendingWrite write = new PendingWrite(membership, message, new CompletableFuture<>());
+        BlockingQueue<PendingWrite> lane = lanes.get(Math.floorMod(message.getChatId().hashCode(), lanes.size()));
+
+        // Регистрируем до постановки: воркер может записать сообщение раньше, чем offer вернёт управление
+        IdempotencyKey key = IdempotencyKey.of(message);
+        if (key != null) {
+            pendingByClientId.put(key, write);
+        }
+
+        boolean accepted;
+        try {
+            accepted = running && lane.offer(write, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            if (key != null) {
+                pendingByClientId.remove(key, write);
+            }
+            log.warn("Очередь записи сообщений переполнена, сообщение {} в чат {} отклонено",
+                    message.getId(), message.getChatId());
+            throw new ServiceUnavailableException("Сервис перегружен, повторите отправку");
+        }
+        return write.persisted();
+    }
+
+    /**
+     * Ожидает записи сообщения, если отправитель получает ответ после коммита.
+     *
+     * @param queued    сообщение, переданное в enqueue
+     * @param persisted future из enqueue
+     * @return записанное сообщение с номером (при ack=COMMIT) или queued без номера (при ack=ENQUEUE)
+     * @throws ServiceUnavailableException если запись не подтверждена за app.chat.writer.ack-timeout-ms
+     */
+    public ChatMessageResponse awaitAck(ChatMessageResponse queued, CompletableFuture<ChatMessageResponse> persisted) {
+        if (ack != ChatWriteAck.COMMIT) {
+            return queued;
+        }
+
+        try {
+            return persisted.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Не удалось подтвердить отправку сообщения");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new ServiceUnavailableException("Не удалось подтвердить отправку сообщения");
+        }
+    }
+
+    /**
+     * Возвращает сообщение, ещё ожидающее записи, по клиентскому идентификатору.
+     * Подтверждается так же, как исходная отправка (см. awaitAck).
+     *
+     * @throws ServiceUnavailableException если запись не подтверждена за app.chat.writer.ack-timeout-ms
+     */
+    public Optional<ChatMessageResponse> findPending(UUID chatId, UUID senderId, UUID clientMessageId) {
+        return Optional.ofNullable(pendingByClientId.get(new IdempotencyKey(chatId, senderId, clientMessageId)))
+                .map(write -> awaitAck(write.message(), write.persisted()));
+    }
+
+    private void runWorker(BlockingQueue<PendingWrite> lane) {
+        try {
+            while (running || !lane.isEmpty()) {
+                PendingWrite first = lane.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingWrite> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                lane.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeWithRetry(List<PendingWrite> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            List<WrittenMessage> written;
+            try {
+                written = transactionTemplate.execute(status -> writeBatch(batch));
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts && batch.size() > 1) {
+                    // Одно «ядовитое» сообщение (например, чат удалён) не должно ронять всю пачку
+                    log.warn("Не удалось записать пачку из {} сообщений (попытка {}), записываем по одному: {}",
+                            batch.size(), attempt, e.getMessage());
+                    batch.forEach(this::writeSingle);
+                    return;
+                }
+                if (attempt >= maxAttempts) {
+                    log.error("Не удалось записать сообщение {} в чат {} (попытка {}): {}",
+                            batch.get(0).message().getId(), batch.get(0).message().getChatId(), attempt, e.getMessage());
+                    complete(batch.get(0), null, e);
+                    return;
+                }
+                log.warn("Ошибка записи пачки из {} сообщений (попытка {}), повтор: {}",
+                        batch.size(), attempt, e.getMessage());
+                Thread.sleep(retryBackoffMs * attempt);
+                continue;
+            }
+
+            written.forEach(this::publish);
+            return;
+        }
+    }
+
+    /**
+     * Записывает одно сообщение в своей транзакции — после неудачи всей пачки.
+     * Ошибка завершает исключением только это сообщение.
+     */
+    private void writeSingle(PendingWrite write) {
+        List<WrittenMessage> written;
+        try {
+            written = transactionTemplate.execute(status -> writeBatch(List.of(write)));
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать сообщение {} в чат {}: {}",
+                    write.message().getId(), write.message().getChatId(), e.getMessage());
+            complete(write, null, e);
+            return;
+        }
+        written.forEach(this::publish);
+    }
+
+    /**
+     * Рассылает записанное сообщение в топик чата и подтверждает его отправителю.
+     * Повтор по clientMessageId только подтверждается — его уже разослала исходная запись.
+     */
+    private void publish(WrittenMessage result) {
+        if (result.inserted()) {
+            try {
+                messagingTemplate.convertAndSend("/topic/chats/" + result.stored().getChatId(), result.stored());
+            } catch (RuntimeException e) {
+                log.warn("Не удалось разослать сообщение {} в чат {}: {}",
+                        result.stored().getId(), result.stored().getChatId(), e.getMessage());
+            }
+        }
+        complete(result.write(), result.stored(), null);
+    }
+
+    /**
+     * Записывает пачку в текущей транзакции: отсечение повторов, номера по чатам,
+     * INSERT-ы ключей и сообщений батчами, затем по UPDATE на чат.
+     *
+     * @return результат по каждому сообщению пачки (в порядке пачки)
+     */
+    private List<WrittenMessage> writeBatch(List<PendingWrite> batch) {
+        boolean[] duplicate = claimClientIds(batch);
+        ChatMessageResponse[] numbered = allocateSeqs(batch, duplicate);
+
+        SqlParameterSource[] inserts = Arrays.stream(numbered)
+                .filter(Objects::nonNull)
+                .map(this::toInsertParams)
+                .toArray(SqlParameterSource[]::new);
+        if (inserts.length > 0) {
+            // Повтор номера — ошибка: пачка откатывается целиком и не записывает дубль
+            jdbcTemplate.batchUpdate(INSERT_KEY_SQL, inserts);
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, inserts);
+        }
+
+        List<WrittenMessage> written = new ArrayList<>(batch.size());
+        Map<UUID, ChatUpdate> chatUpdates = new LinkedHashMap<>();
+        Map<UUID, Long> userUnread = new HashMap<>();
+        Map<UUID, PendingWrite> notified = new LinkedHashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (duplicate[i]) {
+                // Повтор по clientMessageId — подтверждаем уже сохранённым сообщением
+                written.add(new WrittenMessage(write, findStored(write.message()), false));
+                continue;
+            }
+            ChatMessageResponse message = numbered[i];
+            written.add(new WrittenMessage(write, message, true));
+
+            ChatMembership membership = write.membership();
+            UUID recipientId = membership.otherUserId(message.getSenderId());
+
+            chatUpdates.computeIfAbsent(membership.chatId(), id -> new ChatUpdate())
+                    .add(message, membership.isClient(recipientId));
+            userUnread.merge(recipientId, 1L, Long::sum);
+            notified.put(recipientId, write);
+        }
+
+        if (!chatUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_CHAT_SQL, chatUpdates.entrySet().stream()
+                    .map(entry -> entry.getValue().toParams(entry.getKey()))
+                    .toArray(SqlParameterSource[]::new));
+        }
+        counterService.addAll(CounterType.USER_UNREAD_CHAT_MESSAGES, userUnread);
+
+        // Выполняются после коммита (см. afterCommit в этих сервисах)
+        notified.forEach((recipientId, write) ->
+                notificationPushService.pushUnreadCounts(recipientId, write.membership().emailOf(recipientId)));
+        for (WrittenMessage result : written) {
+            if (!result.inserted()) {
+                continue;
+            }
+            ChatMembership membership = result.write().membership();
+            UUID senderId = result.stored().getSenderId();
+            UUID recipientId = membership.otherUserId(senderId);
+            notificationCoalescer.onMessage(recipientId, membership.emailOf(recipientId),
+                    membership.chatId(), membership.displayNameOf(senderId));
+        }
+        return written;
+    }
+
+    /**
+     * Занимает clientMessageId сообщений пачки. Повтор — уже занятый ключ, в том числе
+     * более ранним сообщением этой же пачки или параллельной записью другого экземпляра.
+     *
+     * @return признак повтора по каждому сообщению пачки
+     */
+    private boolean[] claimClientIds(List<PendingWrite> batch) {
+        boolean[] duplicate = new boolean[batch.size()];
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).message().getClientMessageId() != null) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return duplicate;
+        }
+
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM_CLIENT_ID_SQL, positions.stream()
+                .map(position -> toInsertParams(batch.get(position).message()))
+                .toArray(SqlParameterSource[]::new));
+        for (int i = 0; i < positions.size(); i++) {
+            duplicate[positions.get(i)] = claimed[i] == 0;
+        }
+        return duplicate;
+    }
+
+    /**
+     * Выдаёт номера сообщениям пачки, кроме повторов, одним UPDATE на чат в порядке постановки
+     * в очередь. Строки чатов остаются заблокированными до коммита пачки.
+     *
+     * @return копии сообщений с номерами (в порядке пачки; null на месте повторов)
+     */
+    private ChatMessageResponse[] allocateSeqs(List<PendingWrite> batch, boolean[] duplicate) {
+        Map<UUID, List<Integer>> positionsByChat = new TreeMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!duplicate[i]) {
+                positionsByChat.computeIfAbsent(batch.get(i).message().getChatId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        ChatMessageResponse[] numbered = new ChatMessageResponse[batch.size()];
+        positionsByChat.forEach((chatId, positions) -> {
+            Long last = jdbcTemplate.queryForObject(ALLOCATE_SEQ_SQL, new MapSqlParameterSource()
+                    .addValue("chatId", chatId)
+                    .addValue("count", positions.size()), Long.class);
+
+            long seq = last - positions.size();
+            for (int position : positions) {
+                numbered[position] = batch.get(position).message().toBuilder().seq(++seq).build();
+            }
+        });
+        return numbered;
+    }
+
+    /**
+     * Находит уже сохранённое сообщение с тем же clientMessageId.
+     *
+     * @throws IllegalStateException если ключ занят, а сообщения нет
+     */
+    private ChatMessageResponse findStored(ChatMessageResponse message) {
+        List<ChatMessageResponse> stored = jdbcTemplate.query(
+                FIND_BY_CLIENT_ID_SQL,
+                new MapSqlParameterSource()
+                        .addValue("chatId", message.getChatId())
+                        .addValue("senderId", message.getSenderId())
+                        .addValue("clientMessageId", message.getClientMessageId()),
+                (rs, rowNum) -> message.toBuilder()
+                        .id(rs.getObject("id", UUID.class))
+                        .seq(rs.getLong("seq"))
+                        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .build());
+
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("Сообщение с clientMessageId " + message.getClientMessageId()
+                    + " не найдено в чате " + message.getChatId());
+        }
+        return stored.get(0);
+    }
+
+    private SqlParameterSource toInsertParams(ChatMessageResponse message) {
+        List<String> attachments = message.getAttachmentUrls();
+        return new MapSqlParameterSource()
+                .addValue("id", message.getId())
+                .addValue("chatId", message.getChatId())
+                .addValue("senderId", message.getSenderId())
+                .addValue("seq", message.getSeq())
+                .addValue("clientMessageId", message.getClientMessageId())
+                .addValue("content", message.getContent())
+                .addValue("attachmentUrls", attachments != null ? attachments.toArray(new String[0]) : null)
+                .addValue("createdAt", message.getCreatedAt());
+    }
+
+    private void complete(PendingWrite write, ChatMessageResponse stored, Exception error) {
+        IdempotencyKey key = IdempotencyKey.of(write.message());
+        if (key != null) {
+            pendingByClientId.remove(key, write);
+        }
+
+        if (error == null) {
+            write.persisted().complete(stored);
+        } else {
+            write.persisted().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Схлопнутое по пачке изменение строки чата: последнее сообщение и прирост непрочитанного.
+     */
+    private static final class ChatUpdate {
+        private ChatMessageResponse last;
+        private long clientDelta;
+        private long partnerDelta;
+
+        void add(ChatMessageResponse message, boolean recipientIsClient) {
+            if (last == null || message.getSeq() > last.getSeq()) {
+                last = message;
+            }
+            if (recipientIsClient) {
+                clientDelta++;
+            } else {
+                partnerDelta++;
+            }
+        }
+
+        SqlParameterSource toParams(UUID chatId) {
+            return new MapSqlParameterSource()
+                    .addValue("chatId", chatId)
+                    .addValue("sentAt", last.getCreatedAt())
+                    .addValue("preview", ChatService.buildPreview(last.getContent(), last.getAttachmentUrls()))
+                    .addValue("senderId", last.getSenderId())
+                    .addValue("clientDelta", clientDelta)
+                    .addValue("partnerDelta", partnerDelta);
+        }
+    }
+
+    private record PendingWrite(ChatMembership membership,
+                                ChatMessageResponse message,
+                                CompletableFuture<ChatMessageResponse> persisted) {
+    }
+
+    /**
+     * Итог записи сообщения: сохранённая версия (с номером) и была ли она вставлена этой пачкой.
+     */
+    private record WrittenMessage(PendingWrite write, ChatMessageResponse stored, boolean inserted) {
+    }
+
+    private record IdempotencyKey(UUID chatId, UUID senderId, UUID clientMessageId) {
+        static IdempotencyKey of(ChatMessageResponse message) {
+            return message.getClientMessageId() != null
+                    ? new IdempotencyKey(message.getChatId(), message.getSenderId(), message.getClientMessageId())
+                    : null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.toy_zhiri.chat.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+import org.example.toy_zhiri.notification.service.NotificationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Коалесценция уведомлений о новых сообщениях чата по паре (получатель, чат).
+ * <p>
+ * Первое сообщение уведомляет сразу. Следующие сообщения, пришедшие в течение
+ * app.chat.notification-quiet-window-ms после предыдущего, только увеличивают
+ * счётчик серии; когда диалог затихает, уведомление серии обновляется на месте
+ * («У вас 6 новых сообщений от X») и снова становится непрочитанным — одна запись
+ * и одно письмо на серию вместо уведомления на каждое сообщение. Диалог, который
+ * не затихает, получает обновление не позже app.chat.notification-max-delay-ms
+ * после первого отложенного сообщения; серия при этом продолжается.
+ * <p>
+ * Когда получатель читает чат, счёт серии начинается заново — итог по уже
+ * прочитанным сообщениям не показывается.
+ * <p>
+ * Если получатель подписан на STOMP-топик чата (диалог открыт), уведомление не
+ * создаётся — сообщение он и так видит. Состояние хранится в памяти экземпляра;
+ * при нескольких экземплярах серия может дать по уведомлению на экземпляр.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatNotificationCoalescer {
+    private static final String CHAT_TOPIC_PREFIX = "/topic/chats/";
+
+    private final NotificationService notificationService;
+    private final SimpUserRegistry simpUserRegistry;
+
+    private final Map<BurstKey, Burst> bursts = new ConcurrentHashMap<>();
+
+    @Value("${app.chat.notification-quiet-window-ms:60000}")
+    private long quietWindowMillis;
+
+    @Value("${app.chat.notification-max-delay-ms:300000}")
+    private long maxDelayMillis;
+
+    /**
+     * Регистрирует новое сообщение для получателя после коммита текущей транзакции.
+     *
+     * @param recipientId    идентификатор получателя
+     * @param recipientEmail email получателя (имя STOMP-пользователя)
+     * @param chatId         идентификатор чата
+     * @param senderName     имя отправителя для текста уведомления
+     */
+    public void onMessage(UUID recipientId, String recipientEmail, UUID chatId, String senderName) {
+        TransactionCallbacks.afterCommit(() -> handleMessage(recipientId, recipientEmail, chatId, senderName));
+    }
+
+    /**
+     * Сбрасывает отложенные сообщения серии после коммита пометки чата прочитанным.
+     *
+     * @param recipientId идентификатор прочитавшего
+     * @param chatId      идентификатор чата
+     */
+    public void onRead(UUID recipientId, UUID chatId) {
+        TransactionCallbacks.afterCommit(() -> bursts.computeIfPresent(new BurstKey(recipientId, chatId), (key, burst) -> {
+            burst.total = 0;
+            burst.pending = 0;
+            burst.firstPendingAt = 0;
+            return burst;
+        }));
+    }
+
+    /**
+     * Обновляет уведомления затихших серий и удаляет серии из памяти.
+     * Серии, которые копят сообщения дольше app.chat.notification-max-delay-ms,
+     * получают промежуточное обновление и продолжаются.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.notification-flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Summary> due = new ArrayList<>();
+
+        for (BurstKey key : bursts.keySet()) {
+            bursts.computeIfPresent(key, (k, burst) -> {
+                boolean quiet = burst.lastMessageAt + quietWindowMillis <= now;
+                boolean overdue = burst.pending > 0 && burst.firstPendingAt + maxDelayMillis <= now;
+                if (!quiet && !overdue) {
+                    return burst;
+                }
+
+                if (burst.pending > 0) {
+                    due.add(new Summary(k, burst.senderName, burst.total));
+                }
+                if (quiet) {
+                    return null;
+                }
+                burst.pending = 0;
+                burst.firstPendingAt = 0;
+                return burst;
+            });
+        }
+
+        due.forEach(this::updateSummary);
+    }
+
+    private void handleMessage(UUID recipientId, String recipientEmail, UUID chatId, String senderName) {
+        if (isSubscribedToChat(recipientEmail, chatId)) {
+            log.debug("Получатель {} смотрит чат {}, уведомление не создаётся", recipientId, chatId);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Burst started = new Burst(senderName, now);
+
+        Burst current = bursts.compute(new BurstKey(recipientId, chatId), (key, burst) -> {
+            if (burst == null || burst.lastMessageAt + quietWindowMillis <= now) {
+                // Просроченная серия без отложенных сообщений заменяется новой;
+                // серию с отложенными сообщениями досылает flush
+                if (burst != null && burst.pending > 0) {
+                    burst.addPending(now);
+                    return burst;
+                }
+                return started;
+            }
+            burst.addPending(now);
+            return burst;
+        });
+
+        if (current == started) {
+            notificationService.send(
+                    recipientId,
+                    NotificationType.NEW_MESSAGE,
+                    "Новое сообщение",
+                    "У вас новое сообщение от " + senderName,
+                    RelatedEntityType.CHAT,
+                    chatId
+            );
+        }
+    }
+
+    /**
+     * Переписывает уведомление серии итогом. Новая запись и письмо не создаются;
+     * если первое уведомление не создавалось (тип отключён в настройках), итога нет.
+     */
+    private void updateSummary(Summary summary) {
+        boolean updated = notificationService.updateLatest(
+                summary.key().recipientId(),
+                NotificationType.NEW_MESSAGE,
+                "Новые сообщения",
+                "У вас " + summary.count() + " " + pluralizeMessages(summary.count()) + " от " + summary.senderName(),
+                RelatedEntityType.CHAT,
+                summary.key().chatId()
+        );
+        if (!updated) {
+            log.debug("Уведомление серии чата {} для {} не найдено, итог пропущен",
+                    summary.key().chatId(), summary.key().recipientId());
+        }
+    }
+
+    /**
+     * Проверяет, подписан ли пользователь на топик чата хотя бы в одной сессии.
+     */
+    private boolean isSubscribedToChat(String email, UUID chatId) {
+        SimpUser user = email != null ? simpUserRegistry.getUser(email) : null;
+        if (user == null) {
+            return false;
+        }
+
+        String destination = CHAT_TOPIC_PREFIX + chatId;
+        return user.getSessions().stream()
+                .flatMap(session -> session.getSubscriptions().stream())
+                .anyMatch(subscription -> destination.equals(subscription.getDestination()));
+    }
+
+    /**
+     * Склоняет «новое сообщение» по числу: 1 новое сообщение, 2 новых сообщения, 5 новых сообщений.
+     */
+    private static String pluralizeMessages(int count) {
+        int mod100 = count % 100;
+        int mod10 = count % 10;
+        if (mod100 >= 11 && mod100 <= 14) {
+            return "новых сообщений";
+        }
+        if (mod10 == 1) {
+            return "новое сообщение";
+        }
+        if (mod10 >= 2 && mod10 <= 4) {
+            return "новых сообщения";
+        }
+        return "новых сообщений";
+    }
+
+    private record BurstKey(UUID recipientId, UUID chatId) {
+    }
+
+    private record Summary(BurstKey key, String senderName, int count) {
+    }
+
+    /**
+     * Серия сообщений: изменяется только внутри ConcurrentHashMap.compute.
+     */
+    private static final class Burst {
+        private final String senderName;
+        private long lastMessageAt;
+        private long firstPendingAt;
+        // Сообщений в серии с начала (или с прочтения чата) и ещё не отражённых в уведомлении
+        private int total;
+        private int pending;
+
+        private Burst(String senderName, long lastMessageAt) {
+            this.senderName = senderName;
+            this.lastMessageAt = lastMessageAt;
+            this.total = 1;
+        }
+
+        private void addPending(long now) {
+            if (pending == 0) {
+                firstPendingAt = now;
+            }
+            total++;
+            pending++;
+            lastMessageAt = now;
+        }
+    }
+}
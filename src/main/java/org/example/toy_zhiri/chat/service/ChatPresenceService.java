@@ -0,0 +1,253 @@
+package org.example.toy_zhiri.chat.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.auth.security.StompPrincipal;
+import org.example.toy_zhiri.chat.dto.ChatTypingEvent;
+import org.example.toy_zhiri.chat.dto.PresenceEvent;
+import org.example.toy_zhiri.exception.AccessDeniedException;
+import org.example.toy_zhiri.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индикаторы «онлайн» и «печатает…» в чатах. Ничего не сохраняется в БД.
+ * <p>
+ * Присутствие ведёт PresenceTracker. Смена онлайн/офлайн рассылается только тем, кто
+ * сейчас смотрит диалог с этим пользователем: подписка на /topic/chats/{chatId}
+ * регистрирует подписчика наблюдателем другой стороны чата. События приходят
+ * в /user/queue/presence, начальное состояние — по подписке /app/chats/{chatId}/presence.
+ * <p>
+ * События набора текста идут только другой стороне диалога (/user/queue/typing) и
+ * прореживаются: повторное typing=true по той же паре (чат, пользователь) чаще
+ * app.chat.typing-throttle-ms отбрасывается, typing=false пересылается всегда.
+ * Состояние — в памяти экземпляра. В режиме broker relay присутствие выключено (см. PresenceTracker):
+ * наблюдатели не регистрируются, а начальное состояние приходит с online=null.
+ * Набор текста работает и в relay — доставка до пользователя на другом узле идёт через брокер.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatPresenceService {
+    private static final String CHAT_TOPIC_PREFIX = "/topic/chats/";
+
+    private final PresenceTracker presenceTracker;
+    private final ChatMembershipCache membershipCache;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.chat.typing-throttle-ms:3000}")
+    private long typingThrottleMillis;
+
+    // Подписка на топик чата → кто за кем наблюдает
+    private final Map<WatchKey, Watch> watches = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<WatchKey>> watchersByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<WatchKey>> watchesBySession = new ConcurrentHashMap<>();
+
+    // (чат, пользователь) → время последнего пересланного typing=true
+    private final Map<TypingKey, Long> lastTyping = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (event.getUser() instanceof StompPrincipal principal
+                && presenceTracker.sessionOpened(principal.getUserId(), accessor.getSessionId())) {
+            broadcastPresence(principal.getUserId(), true);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        Set<WatchKey> sessionWatches = watchesBySession.remove(sessionId);
+        if (sessionWatches != null) {
+            sessionWatches.forEach(this::removeWatch);
+        }
+
+        if (event.getUser() instanceof StompPrincipal principal
+                && presenceTracker.sessionClosed(principal.getUserId(), sessionId)) {
+            broadcastPresence(principal.getUserId(), false);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (!presenceTracker.isEnabled() || !(event.getUser() instanceof StompPrincipal principal)
+                || destination == null || !destination.startsWith(CHAT_TOPIC_PREFIX)) {
+            return;
+        }
+
+        UUID chatId;
+        ChatMembership membership;
+        try {
+            chatId = UUID.fromString(destination.substring(CHAT_TOPIC_PREFIX.length()));
+            membership = membershipCache.get(chatId);
+        } catch (IllegalArgumentException | NotFoundException e) {
+            return;
+        }
+        if (!membership.isParticipant(principal.getUserId())) {
+            return;
+        }
+
+        UUID watchedUserId = membership.otherUserId(principal.getUserId());
+        WatchKey key = new WatchKey(accessor.getSessionId(), accessor.getSubscriptionId());
+        watches.put(key, new Watch(watchedUserId, principal.getEmail(), chatId));
+        watchersByUser.computeIfAbsent(watchedUserId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        watchesBySession.computeIfAbsent(key.sessionId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        removeWatch(new WatchKey(accessor.getSessionId(), accessor.getSubscriptionId()));
+    }
+
+    /**
+     * Снимает оборванные сессии и рассылает уход пользователей в офлайн.
+     * Заодно чистит устаревшие метки прореживания набора текста.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence-sweep-interval-ms:10000}")
+    public void sweep() {
+        presenceTracker.expire().forEach(userId -> broadcastPresence(userId, false));
+
+        long threshold = System.currentTimeMillis() - typingThrottleMillis;
+        lastTyping.values().removeIf(sentAt -> sentAt < threshold);
+    }
+
+    /**
+     * Возвращает присутствие другой стороны диалога.
+     * В режиме broker relay статус неизвестен — online и lastSeenAt равны null.
+     *
+     * @param chatId        идентификатор чата
+     * @param currentUserId идентификатор текущего пользователя
+     * @return PresenceEvent собеседника
+     * @throws NotFoundException     если чат не найден
+     * @throws AccessDeniedException если пользователь не является участником диалога
+     */
+    public PresenceEvent getPresence(UUID chatId, UUID currentUserId) {
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, currentUserId);
+        UUID otherUserId = membership.otherUserId(currentUserId);
+        if (!presenceTracker.isEnabled()) {
+            return buildEvent(chatId, otherUserId, null, null);
+        }
+        boolean online = presenceTracker.isOnline(otherUserId);
+        return buildEvent(chatId, otherUserId, online, online ? LocalDateTime.now() : null);
+    }
+
+    /**
+     * Пересылает индикатор набора текста другой стороне диалога.
+     *
+     * @param chatId   идентификатор чата
+     * @param userId   идентификатор того, кто печатает
+     * @param typing   true — печатает, false — перестал
+     * @throws NotFoundException     если чат не найден
+     * @throws AccessDeniedException если пользователь не является участником диалога
+     */
+    public void typing(UUID chatId, UUID userId, boolean typing) {
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, userId);
+        TypingKey key = new TypingKey(chatId, userId);
+
+        if (typing) {
+            long now = System.currentTimeMillis();
+            Long previous = lastTyping.get(key);
+            if (previous != null && now - previous < typingThrottleMillis) {
+                return;
+            }
+            lastTyping.put(key, now);
+        } else {
+            // Метка могла уже уйти по sweep — «перестал печатать» всё равно нужно снять у собеседника
+            lastTyping.remove(key);
+        }
+
+        UUID recipientId = membership.otherUserId(userId);
+        ChatTypingEvent event = ChatTypingEvent.builder()
+                .chatId(chatId)
+                .userId(userId)
+                .typing(typing)
+                .build();
+
+        messagingTemplate.convertAndSendToUser(membership.emailOf(recipientId), "/queue/typing", event);
+    }
+
+    private void broadcastPresence(UUID userId, boolean online) {
+        Set<WatchKey> keys = watchersByUser.get(userId);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Несколько вкладок одного наблюдателя с тем же чатом получают одно событие
+        Set<Watch> targets = new HashSet<>();
+        for (WatchKey key : keys) {
+            Watch watch = watches.get(key);
+            if (watch != null) {
+                targets.add(watch);
+            }
+        }
+
+        for (Watch watch : targets) {
+            messagingTemplate.convertAndSendToUser(watch.watcherEmail(), "/queue/presence",
+                    buildEvent(watch.chatId(), userId, online, now));
+        }
+        log.debug("Присутствие пользователя {} ({}) отправлено {} наблюдателям",
+                userId, online ? "онлайн" : "офлайн", targets.size());
+    }
+
+    private PresenceEvent buildEvent(UUID chatId, UUID userId, Boolean online, LocalDateTime lastSeenAt) {
+        return PresenceEvent.builder()
+                .chatId(chatId)
+                .userId(userId)
+                .online(online)
+                .lastSeenAt(lastSeenAt)
+                .build();
+    }
+
+    private void removeWatch(WatchKey key) {
+        Watch watch = watches.remove(key);
+        if (watch == null) {
+            return;
+        }
+        watchersByUser.computeIfPresent(watch.watchedUserId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+        watchesBySession.computeIfPresent(key.sessionId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private ChatMembership findMembershipAndCheckAccess(UUID chatId, UUID userId) {
+        ChatMembership membership = membershipCache.get(chatId);
+        if (!membership.isParticipant(userId)) {
+            throw new AccessDeniedException("Нет доступа к этому чату");
+        }
+        return membership;
+    }
+
+    private record WatchKey(String sessionId, String subscriptionId) {
+    }
+
+    private record Watch(UUID watchedUserId, String watcherEmail, UUID chatId) {
+    }
+
+    private record TypingKey(UUID chatId, UUID userId) {
+    }
+}
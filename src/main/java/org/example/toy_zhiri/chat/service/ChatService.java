@@ -2,33 +2,44 @@ package org.example.toy_zhiri.chat.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.chat.dto.ChatMessageHistoryResponse;
 import org.example.toy_zhiri.chat.dto.ChatMessageResponse;
 import org.example.toy_zhiri.chat.dto.ChatReadEvent;
 import org.example.toy_zhiri.chat.dto.ChatResponse;
+import org.example.toy_zhiri.chat.dto.ChatSearchHit;
+import org.example.toy_zhiri.chat.dto.ChatSearchResponse;
 import org.example.toy_zhiri.chat.entity.Chat;
 import org.example.toy_zhiri.chat.entity.ChatMessage;
 import org.example.toy_zhiri.chat.repository.ChatMessageRepository;
 import org.example.toy_zhiri.chat.repository.ChatRepository;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.exception.AccessDeniedException;
 import org.example.toy_zhiri.exception.BadRequestException;
 import org.example.toy_zhiri.exception.NotFoundException;
-import org.example.toy_zhiri.notification.enums.NotificationType;
-import org.example.toy_zhiri.notification.enums.RelatedEntityType;
-import org.example.toy_zhiri.notification.service.NotificationService;
+import org.example.toy_zhiri.exception.ServiceUnavailableException;
+import org.example.toy_zhiri.file.service.AttachmentPreviewService;
+import org.example.toy_zhiri.notification.service.NotificationPushService;
 import org.example.toy_zhiri.partner.entity.Partner;
 import org.example.toy_zhiri.partner.repository.PartnerRepository;
 import org.example.toy_zhiri.user.entity.User;
 import org.example.toy_zhiri.user.repository.UserRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Сервис для работы с чатами между клиентами и партнёрами.
@@ -38,18 +49,30 @@ import java.util.UUID;
  * используют одни и те же методы. Публикация в STOMP-топики и отправка
  * уведомлений тоже происходят здесь, чтобы любой канал входа давал одинаковый
  * побочный эффект.
+ * <p>
+ * Проверка доступа и данные участников (имена, email) берутся из ChatMembershipCache.
+ * Отправка сообщения только ставит его в очередь ChatMessageWriter; номер, запись в БД,
+ * рассылку в топик, счётчики и уведомления выполняет писатель после коммита.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatService {
+    private static final int MAX_HISTORY_BATCH_SIZE = 200;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
 
     private final ChatRepository chatRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final UserRepository userRepository;
     private final PartnerRepository partnerRepository;
-    private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final CounterService counterService;
+    private final ChatMembershipCache membershipCache;
+    private final ChatMessageWriter messageWriter;
+    private final ChatArchiveService chatArchiveService;
+    private final AttachmentPreviewService attachmentPreviewService;
+    private final ChatNotificationCoalescer notificationCoalescer;
 
     /**
      * Возвращает существующий диалог между клиентом и партнёром
@@ -101,7 +124,10 @@ public class ChatService {
      */
     @Transactional(readOnly = true)
     public ChatResponse getChatById(UUID chatId, UUID currentUserId) {
-        Chat chat = findChatAndCheckAccess(chatId, currentUserId);
+        findMembershipAndCheckAccess(chatId, currentUserId);
+
+        Chat chat = chatRepository.findById(chatId)
+                .orElseThrow(() -> new NotFoundException("Чат не найден"));
         return mapToChatResponse(chat, currentUserId);
     }
 
@@ -139,17 +165,21 @@ public class ChatService {
     /**
      * Возвращает общее количество непрочитанных сообщений пользователя
      * по всем его чатам (для бейджика в шапке).
+     * Читает денормализованный счётчик пользователя — без обхода всех его чатов.
      *
      * @param userId идентификатор пользователя
      * @return общее количество непрочитанных сообщений
      */
     @Transactional(readOnly = true)
     public long getTotalUnreadCount(UUID userId) {
-        return chatMessageRepository.countAllUnreadForUser(userId);
+        return userRepository.findUnreadCounters(userId)
+                .map(UserRepository.UnreadCounters::getChatMessages)
+                .orElse(0L);
     }
 
     /**
      * Возвращает историю сообщений чата с пагинацией (новые сверху).
+     * Архивированные сообщения сюда не попадают — их отдаёт getMessageHistory.
      *
      * @param chatId        идентификатор чата
      * @param currentUserId идентификатор текущего пользователя
@@ -160,33 +190,175 @@ public class ChatService {
      */
     @Transactional(readOnly = true)
     public Page<ChatMessageResponse> getMessages(UUID chatId, UUID currentUserId, Pageable pageable) {
-        findChatAndCheckAccess(chatId, currentUserId);
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, currentUserId);
 
         return chatMessageRepository.findByChatIdOrderByCreatedAtDesc(chatId, pageable)
-                .map(this::mapToMessageResponse);
+                .map(message -> mapToMessageResponse(message, membership));
+    }
+
+    /**
+     * Возвращает порцию истории по курсору seq.
+     * <p>
+     * beforeSeq — листание вверх (более старые сообщения), afterSeq — догрузка после
+     * переподключения (всё, что пришло после последнего увиденного номера).
+     * Без курсоров возвращаются последние сообщения чата.
+     * <p>
+     * При листании вверх, когда живые сообщения закончились, порция дополняется
+     * из архива холодных месяцев (chat_message_archive) — архив читается только по запросу.
+     *
+     * @param chatId        идентификатор чата
+     * @param currentUserId идентификатор текущего пользователя
+     * @param beforeSeq     вернуть сообщения с seq меньше данного (опционально)
+     * @param afterSeq      вернуть сообщения с seq больше данного (опционально)
+     * @param limit         максимальный размер порции
+     * @return ChatMessageHistoryResponse порция истории
+     * @throws NotFoundException     если чат не найден
+     * @throws AccessDeniedException если пользователь не является участником диалога
+     * @throws BadRequestException   если переданы оба курсора
+     */
+    @Transactional(readOnly = true)
+    public ChatMessageHistoryResponse getMessageHistory(UUID chatId,
+                                                        UUID currentUserId,
+                                                        Long beforeSeq,
+                                                        Long afterSeq,
+                                                        int limit) {
+        if (beforeSeq != null && afterSeq != null) {
+            throw new BadRequestException("Укажите только один курсор: beforeSeq или afterSeq");
+        }
+
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, currentUserId);
+        int size = Math.min(Math.max(limit, 1), MAX_HISTORY_BATCH_SIZE);
+        Pageable window = PageRequest.of(0, size + 1);
+
+        List<ChatMessageResponse> messages;
+        if (afterSeq != null) {
+            messages = chatMessageRepository.findAfterSeq(chatId, afterSeq, window).stream()
+                    .map(message -> mapToMessageResponse(message, membership))
+                    .toList();
+        } else {
+            long cursor = beforeSeq != null ? beforeSeq : Long.MAX_VALUE;
+            messages = new ArrayList<>(chatMessageRepository.findBeforeSeq(chatId, cursor, window).stream()
+                    .map(message -> mapToMessageResponse(message, membership))
+                    .toList());
+
+            // Живые сообщения закончились — догружаем более старые из архива
+            if (messages.size() <= size) {
+                long archiveCursor = messages.isEmpty() ? cursor : messages.get(messages.size() - 1).getSeq();
+                messages.addAll(chatArchiveService.findBefore(membership, archiveCursor, size + 1 - messages.size()));
+            }
+        }
+
+        boolean hasMore = messages.size() > size;
+        List<ChatMessageResponse> slice = new ArrayList<>(hasMore ? messages.subList(0, size) : messages);
+        if (afterSeq == null) {
+            // Выборка «назад» идёт от новых к старым, в ответе — по возрастанию seq
+            Collections.reverse(slice);
+        }
+
+        return ChatMessageHistoryResponse.builder()
+                .messages(slice)
+                .hasMore(hasMore)
+                .lastSeq(chatRepository.findLastMessageSeq(chatId).orElse(0L))
+                .build();
+    }
+
+    /**
+     * Полнотекстовый поиск по сообщениям всех чатов пользователя (или одного чата).
+     * Учитываются только чаты, где пользователь — клиент или владелец партнёра.
+     * Пагинация курсорная — от новых сообщений к старым, без OFFSET.
+     *
+     * @param currentUserId идентификатор текущего пользователя
+     * @param query         поисковая строка
+     * @param chatId        ограничение одним чатом (опционально)
+     * @param cursor        курсор из предыдущей страницы (опционально)
+     * @param size          размер страницы
+     * @return ChatSearchResponse страница результатов
+     * @throws BadRequestException   если строка поиска пустая или курсор некорректен
+     * @throws NotFoundException     если указанный чат не найден
+     * @throws AccessDeniedException если пользователь не является участником указанного чата
+     */
+    @Transactional(readOnly = true)
+    public ChatSearchResponse searchMessages(UUID currentUserId, String query, UUID chatId, String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Строка поиска не может быть пустой");
+        }
+        if (chatId != null) {
+            findMembershipAndCheckAccess(chatId, currentUserId);
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+
+        LocalDateTime cursorCreatedAt = null;
+        UUID cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorCreatedAt = LocalDateTime.parse(parts[0]);
+            cursorId = UUID.fromString(parts[1]);
+        }
+
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        List<ChatMessageRepository.SearchHitView> rows = chatMessageRepository.search(
+                currentUserId, chatId, query.trim(), cursorCreatedAt, cursorId, limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<ChatSearchHit> hits = rows.stream()
+                .map(row -> ChatSearchHit.builder()
+                        .chatId(row.getChatId())
+                        .messageId(row.getMessageId())
+                        .seq(row.getSeq())
+                        .senderId(row.getSenderId())
+                        .snippet(row.getSnippet())
+                        .createdAt(row.getCreatedAt())
+                        .build())
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            ChatSearchHit last = hits.get(hits.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getMessageId());
+        }
+
+        return ChatSearchResponse.builder()
+                .hits(hits)
+                .size(hits.size())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
     }
 
     /**
      * Отправляет сообщение в чат.
      * Отправителем может быть любая из сторон диалога (клиент или партнёр).
      * Сообщение должно содержать либо текст, либо вложения, либо и то, и другое.
+     * <p>
+     * Сообщение ставится в очередь записи своего чата. Номер выдаёт ChatMessageWriter
+     * в транзакции записи, поэтому порядок номеров совпадает с порядком коммитов, а в топик
+     * и в lastSeq истории попадают только записанные сообщения. Ответ возвращается после
+     * коммита записи (с номером) или сразу после постановки в очередь (без номера — он придёт
+     * в топик) — в зависимости от app.chat.writer.ack. Повтор с тем же clientMessageId
+     * (в том числе пока сообщение ещё в очереди) возвращает исходное сообщение без повторной
+     * рассылки и уведомлений.
      *
-     * @param chatId         идентификатор чата
-     * @param senderUserId   идентификатор отправителя
-     * @param content        текст сообщения (опционально)
-     * @param attachmentUrls URL-ы вложений (опционально)
+     * @param chatId          идентификатор чата
+     * @param senderUserId    идентификатор отправителя
+     * @param content         текст сообщения (опционально)
+     * @param attachmentUrls  URL-ы вложений (опционально)
+     * @param clientMessageId клиентский ID для идемпотентной отправки (опционально)
      * @return ChatMessageResponse DTO сохранённого сообщения
-     * @throws NotFoundException     если чат или пользователь не найдены
+     * @throws NotFoundException     если чат не найден
      * @throws AccessDeniedException если отправитель не является участником диалога
      * @throws BadRequestException   если сообщение пустое (нет ни текста, ни вложений)
+     * @throws ServiceUnavailableException если очередь записи переполнена или запись не подтверждена
      */
-    @Transactional
     public ChatMessageResponse sendMessage(UUID chatId,
                                            UUID senderUserId,
                                            String content,
-                                           List<String> attachmentUrls) {
-        Chat chat = findChatAndCheckAccess(chatId, senderUserId);
-
+                                           List<String> attachmentUrls,
+                                           UUID clientMessageId) {
         boolean hasContent = content != null && !content.isBlank();
         boolean hasAttachments = attachmentUrls != null && !attachmentUrls.isEmpty();
 
@@ -194,33 +366,45 @@ public class ChatService {
             throw new BadRequestException("Сообщение должно содержать текст или вложения");
         }
 
-        User sender = userRepository.findById(senderUserId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, senderUserId);
+
+        if (clientMessageId != null) {
+            Optional<ChatMessageResponse> pending = messageWriter.findPending(chatId, senderUserId, clientMessageId);
+            if (pending.isPresent()) {
+                log.debug("Повтор отправки {} в чат {}, сообщение ещё в очереди записи", clientMessageId, chatId);
+                return pending.get();
+            }
+
+            Optional<ChatMessage> existing = chatMessageRepository
+                    .findByChatIdAndSenderIdAndClientMessageId(chatId, senderUserId, clientMessageId);
+            if (existing.isPresent()) {
+                log.debug("Повтор отправки {} в чат {}, возвращаем сохранённое сообщение", clientMessageId, chatId);
+                return mapToMessageResponse(existing.get(), membership);
+            }
+        }
 
-        ChatMessage message = ChatMessage.builder()
-                .chat(chat)
-                .sender(sender)
+        ChatMessageResponse queued = ChatMessageResponse.builder()
+                .id(UUID.randomUUID())
+                .chatId(chatId)
+                .clientMessageId(clientMessageId)
+                .senderId(senderUserId)
+                .senderFullName(membership.fullNameOf(senderUserId))
                 .content(hasContent ? content : null)
                 .attachmentUrls(hasAttachments ? attachmentUrls : null)
+                .attachments(attachmentPreviewService.resolve(attachmentUrls))
                 .isRead(false)
+                .createdAt(LocalDateTime.now())
                 .build();
 
-        ChatMessage saved = chatMessageRepository.save(message);
-
-        // Обновляем время последнего сообщения в чате
-        chat.setLastMessageAt(saved.getCreatedAt());
-        chatRepository.save(chat);
-
-        log.info("Сообщение {} отправлено в чат {} пользователем {}",
-                saved.getId(), chatId, senderUserId);
+        // В топик сообщение публикует писатель после коммита — уже с номером
+        CompletableFuture<ChatMessageResponse> persisted = messageWriter.enqueue(membership, queued);
+        ChatMessageResponse response = messageWriter.awaitAck(queued, persisted);
 
-        ChatMessageResponse response = mapToMessageResponse(saved);
+        // Вложения, загруженные не через /upload-chat, получают превью при первой отправке
+        attachmentPreviewService.submit(attachmentUrls);
 
-        // Публикуем в STOMP-топик — все подписчики получат сообщение в реалтайме
-        messagingTemplate.convertAndSend("/topic/chats/" + chatId, response);
-
-        // Уведомляем получателя (push в notifications + email/sms)
-        notifyRecipient(chat, sender);
+        log.info("Сообщение {} (№{}) отправлено в чат {} пользователем {}",
+                response.getId(), response.getSeq(), chatId, senderUserId);
 
         return response;
     }
@@ -240,7 +424,7 @@ public class ChatService {
      */
     @Transactional
     public int markAsRead(UUID chatId, UUID currentUserId) {
-        Chat chat = findChatAndCheckAccess(chatId, currentUserId);
+        ChatMembership membership = findMembershipAndCheckAccess(chatId, currentUserId);
 
         LocalDateTime readAt = LocalDateTime.now();
         int updated = chatMessageRepository.markAllAsReadForRecipient(
@@ -251,89 +435,66 @@ public class ChatService {
 
         // Если ничего не изменилось — не дёргаем других участников
         if (updated > 0) {
-            broadcastReadReceipt(chat, currentUserId, readAt, updated);
+            adjustUnreadCounters(membership, currentUserId, -updated);
+            broadcastReadReceipt(membership, currentUserId, readAt, updated);
+            notificationPushService.pushUnreadCounts(currentUserId, membership.emailOf(currentUserId));
+            notificationCoalescer.onRead(currentUserId, chatId);
         }
 
         return updated;
     }
 
     /**
-     * Находит чат и проверяет, что текущий пользователь является
+     * Возвращает участников чата и проверяет, что текущий пользователь является
      * либо клиентом, либо владельцем партнёра в этом чате.
      *
      * @param chatId        идентификатор чата
      * @param currentUserId идентификатор текущего пользователя
-     * @return найденный и проверенный чат
+     * @return участники чата
      * @throws NotFoundException     если чат не найден
      * @throws AccessDeniedException если пользователь не является участником диалога
      */
-    private Chat findChatAndCheckAccess(UUID chatId, UUID currentUserId) {
-        Chat chat = chatRepository.findById(chatId)
-                .orElseThrow(() -> new NotFoundException("Чат не найден"));
+    private ChatMembership findMembershipAndCheckAccess(UUID chatId, UUID currentUserId) {
+        ChatMembership membership = membershipCache.get(chatId);
 
-        boolean isClient = chat.getUser().getId().equals(currentUserId);
-        boolean isPartnerOwner = chat.getPartner().getUser().getId().equals(currentUserId);
-
-        if (!isClient && !isPartnerOwner) {
+        if (!membership.isParticipant(currentUserId)) {
             throw new AccessDeniedException("Нет доступа к этому чату");
         }
-
-        return chat;
+        return membership;
     }
 
     /**
-     * Отправляет уведомление получателю о новом сообщении.
-     * Получатель — это та сторона диалога, которая НЕ является отправителем.
+     * Изменяет счётчики непрочитанного участника диалога: по чату и общий по пользователю.
+     * Выполняется в транзакции пометки прочитанными.
      *
-     * @param chat   диалог, в котором появилось сообщение
-     * @param sender отправитель сообщения
+     * @param membership участники диалога
+     * @param userId     идентификатор участника, чей счётчик меняется
+     * @param delta      изменение (отрицательное — прочтение)
      */
-    private void notifyRecipient(Chat chat, User sender) {
-        UUID recipientId;
-        String senderName;
-
-        if (chat.getUser().getId().equals(sender.getId())) {
-            // Отправитель — клиент, получатель — партнёр (его user)
-            recipientId = chat.getPartner().getUser().getId();
-            senderName = sender.getFullName();
-        } else {
-            // Отправитель — партнёр, получатель — клиент
-            recipientId = chat.getUser().getId();
-            senderName = chat.getPartner().getCompanyName();
-        }
+    private void adjustUnreadCounters(ChatMembership membership, UUID userId, long delta) {
+        CounterType chatCounter = membership.isClient(userId)
+                ? CounterType.CHAT_CLIENT_UNREAD
+                : CounterType.CHAT_PARTNER_UNREAD;
 
-        notificationService.send(
-                recipientId,
-                NotificationType.NEW_MESSAGE,
-                "Новое сообщение",
-                "У вас новое сообщение от " + senderName,
-                RelatedEntityType.CHAT,
-                chat.getId()
-        );
+        counterService.add(chatCounter, membership.chatId(), delta);
+        counterService.add(CounterType.USER_UNREAD_CHAT_MESSAGES, userId, delta);
     }
 
     /**
      * Публикует read-receipt в персональную очередь другой стороны диалога.
      * Получатель события — это тот, чьи сообщения только что были прочитаны.
      *
-     * @param chat         диалог, в котором были прочитаны сообщения
+     * @param membership   участники диалога, в котором были прочитаны сообщения
      * @param readerUserId идентификатор того, кто прочитал
      * @param readAt       время прочтения
      * @param count        количество прочитанных сообщений
      */
-    private void broadcastReadReceipt(Chat chat, UUID readerUserId, LocalDateTime readAt, int count) {
-        // Определяем «другую сторону» — это автор прочитанных сообщений
-        User otherSide;
-        if (chat.getUser().getId().equals(readerUserId)) {
-            // Читал клиент → уведомляем владельца партнёра
-            otherSide = chat.getPartner().getUser();
-        } else {
-            // Читал партнёр → уведомляем клиента
-            otherSide = chat.getUser();
-        }
+    private void broadcastReadReceipt(ChatMembership membership, UUID readerUserId, LocalDateTime readAt, int count) {
+        // «Другая сторона» — автор прочитанных сообщений
+        String otherSideEmail = membership.emailOf(membership.otherUserId(readerUserId));
 
         ChatReadEvent event = ChatReadEvent.builder()
-                .chatId(chat.getId())
+                .chatId(membership.chatId())
                 .readBy(readerUserId)
                 .readAt(readAt)
                 .markedCount(count)
@@ -341,27 +502,27 @@ public class ChatService {
 
         // Имя пользователя в STOMP — это email (так настроено в JwtChannelInterceptor → StompPrincipal)
         messagingTemplate.convertAndSendToUser(
-                otherSide.getEmail(),
+                otherSideEmail,
                 "/queue/chat-read",
                 event
         );
 
-        log.debug("Read-receipt отправлен пользователю {} по чату {}", otherSide.getEmail(), chat.getId());
+        log.debug("Read-receipt отправлен пользователю {} по чату {}", otherSideEmail, membership.chatId());
     }
 
     /**
      * Преобразует Chat в DTO с превью последнего сообщения и счётчиком непрочитанных.
+     * Все значения берутся из строки чата, дополнительных запросов нет
+     * (если клиент и партнёр уже загружены, как в списках диалогов).
      *
      * @param chat          сущность диалога
      * @param currentUserId идентификатор текущего пользователя (для подсчёта непрочитанных)
      * @return ChatResponse DTO диалога
      */
     private ChatResponse mapToChatResponse(Chat chat, UUID currentUserId) {
-        Optional<ChatMessage> lastMessage =
-                chatMessageRepository.findFirstByChatIdOrderByCreatedAtDesc(chat.getId());
-
-        long unreadCount = chatMessageRepository.countUnreadForRecipient(
-                chat.getId(), currentUserId);
+        Long unreadCount = chat.getUser().getId().equals(currentUserId)
+                ? chat.getClientUnreadCount()
+                : chat.getPartnerUnreadCount();
 
         return ChatResponse.builder()
                 .id(chat.getId())
@@ -370,28 +531,36 @@ public class ChatService {
                 .partnerId(chat.getPartner().getId())
                 .partnerCompanyName(chat.getPartner().getCompanyName())
                 .partnerLogoUrl(chat.getPartner().getLogoUrl())
-                .lastMessageContent(lastMessage.map(this::buildPreview).orElse(null))
-                .lastMessageSenderId(lastMessage.map(m -> m.getSender().getId()).orElse(null))
+                .lastMessageContent(chat.getLastMessagePreview())
+                .lastMessageSenderId(chat.getLastMessageSenderId())
                 .lastMessageAt(chat.getLastMessageAt())
-                .unreadCount(unreadCount)
+                .lastMessageSeq(chat.getLastMessageSeq())
+                .unreadCount(unreadCount != null ? unreadCount : 0L)
                 .createdAt(chat.getCreatedAt())
                 .build();
     }
 
     /**
      * Преобразует ChatMessage в DTO.
+     * Имя отправителя берётся из участников чата — отправитель не загружается.
      *
-     * @param message сущность сообщения
+     * @param message    сущность сообщения
+     * @param membership участники чата
      * @return ChatMessageResponse DTO сообщения
      */
-    private ChatMessageResponse mapToMessageResponse(ChatMessage message) {
+    private ChatMessageResponse mapToMessageResponse(ChatMessage message, ChatMembership membership) {
+        UUID senderId = message.getSender().getId();
+
         return ChatMessageResponse.builder()
                 .id(message.getId())
-                .chatId(message.getChat().getId())
-                .senderId(message.getSender().getId())
-                .senderFullName(message.getSender().getFullName())
+                .chatId(membership.chatId())
+                .seq(message.getSeq())
+                .clientMessageId(message.getClientMessageId())
+                .senderId(senderId)
+                .senderFullName(membership.fullNameOf(senderId))
                 .content(message.getContent())
                 .attachmentUrls(message.getAttachmentUrls())
+                .attachments(attachmentPreviewService.resolve(message.getAttachmentUrls()))
                 .isRead(message.getIsRead())
                 .readAt(message.getReadAt())
                 .createdAt(message.getCreatedAt())
@@ -400,19 +569,41 @@ public class ChatService {
 
     /**
      * Формирует превью сообщения для списка диалогов.
+     * Используется и ChatMessageWriter при обновлении строки чата.
      * Если есть текст — возвращает его, иначе помечает как вложение.
      *
-     * @param message сообщение, для которого нужно сформировать превью
+     * @param content        текст сообщения
+     * @param attachmentUrls вложения сообщения
      * @return текст превью или null, если сообщение пустое
      */
-    private String buildPreview(ChatMessage message) {
-        if (message.getContent() != null && !message.getContent().isBlank()) {
-            return message.getContent();
+    static String buildPreview(String content, List<String> attachmentUrls) {
+        if (content != null && !content.isBlank()) {
+            return content;
         }
-        if (message.getAttachmentUrls() != null && !message.getAttachmentUrls().isEmpty()) {
-            int count = message.getAttachmentUrls().size();
+        if (attachmentUrls != null && !attachmentUrls.isEmpty()) {
+            int count = attachmentUrls.size();
             return "📎 Вложение" + (count > 1 ? " (" + count + ")" : "");
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            UUID.fromString(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Некорректный курсор пагинации");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.toy_zhiri.chat.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Состояние присутствия пользователей на этом экземпляре — только в памяти.
+ * <p>
+ * Пользователь онлайн, пока у него есть хотя бы одна STOMP-сессия. Сессии открываются
+ * и закрываются по событиям подключения, а любой входящий фрейм (включая heartbeat)
+ * продлевает сессию через touch из JwtChannelInterceptor. Сессия без фреймов дольше
+ * app.chat.presence-timeout-ms считается оборванной — так пропущенный DISCONNECT
+ * не оставляет пользователя «онлайн» навсегда.
+ * <p>
+ * Компонент не зависит от брокера, поэтому его можно использовать в канальных интерсепторах.
+ * <p>
+ * Состояние не разделяется между экземплярами, поэтому присутствие работает только на одном
+ * узле. При app.websocket.relay.enabled=true (несколько экземпляров за брокером) трекер
+ * выключен: сессии не учитываются, а статус собеседника считается неизвестным — иначе
+ * пользователи, подключённые к другим узлам, выглядели бы офлайн.
+ */
+@Component
+public class PresenceTracker {
+
+    @Value("${app.chat.presence-timeout-ms:35000}")
+    private long timeoutMillis;
+
+    @Value("${app.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    // userId → (sessionId → время последнего фрейма)
+    private final Map<UUID, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Ведётся ли присутствие (только без broker relay).
+     */
+    public boolean isEnabled() {
+        return !relayEnabled;
+    }
+
+    /**
+     * Регистрирует сессию пользователя.
+     *
+     * @return true, если пользователь только что стал онлайн
+     */
+    public boolean sessionOpened(UUID userId, String sessionId) {
+        if (relayEnabled) {
+            return false;
+        }
+        boolean[] becameOnline = new boolean[1];
+        sessions.compute(userId, (id, userSessions) -> {
+            Map<String, Long> result = userSessions != null ? userSessions : new ConcurrentHashMap<>();
+            becameOnline[0] = result.isEmpty();
+            result.put(sessionId, System.currentTimeMillis());
+            return result;
+        });
+        return becameOnline[0];
+    }
+
+    /**
+     * Снимает сессию пользователя.
+     *
+     * @return true, если это была последняя сессия и пользователь стал офлайн
+     */
+    public boolean sessionClosed(UUID userId, String sessionId) {
+        boolean[] becameOffline = new boolean[1];
+        sessions.computeIfPresent(userId, (id, userSessions) -> {
+            if (userSessions.remove(sessionId) == null) {
+                return userSessions;
+            }
+            becameOffline[0] = userSessions.isEmpty();
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+        return becameOffline[0];
+    }
+
+    /**
+     * Отмечает активность сессии. Неизвестные сессии (до подключения) игнорируются.
+     */
+    public void touch(UUID userId, String sessionId) {
+        Map<String, Long> userSessions = sessions.get(userId);
+        if (userSessions != null) {
+            userSessions.computeIfPresent(sessionId, (id, lastSeen) -> System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Онлайн ли пользователь на этом экземпляре.
+     */
+    public boolean isOnline(UUID userId) {
+        return sessions.containsKey(userId);
+    }
+
+    /**
+     * Снимает сессии без фреймов дольше таймаута.
+     *
+     * @return пользователи, ставшие офлайн
+     */
+    public List<UUID> expire() {
+        long threshold = System.currentTimeMillis() - timeoutMillis;
+        List<UUID> wentOffline = new ArrayList<>();
+
+        for (UUID userId : sessions.keySet()) {
+            sessions.computeIfPresent(userId, (id, userSessions) -> {
+                userSessions.values().removeIf(lastSeen -> lastSeen < threshold);
+                if (userSessions.isEmpty()) {
+                    wentOffline.add(userId);
+                    return null;
+                }
+                return userSessions;
+            });
+        }
+        return wentOffline;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.toy_zhiri.common;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Небольшой потокобезопасный кэш в памяти: не больше maxSize записей (вытесняется
+ * давно не читанная), каждая запись живёт ttlMillis с момента записи.
+ * <p>
+ * Все операции выполняются под одной блокировкой — кэш рассчитан на короткие
+ * обращения по ключу, загрузка промахов идёт вне его.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class LruTtlCache<K, V> {
+    private final long ttlMillis;
+    private final Map<K, Entry<V>> entries;
+
+    public LruTtlCache(int maxSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Возвращает значение или null, если записи нет или она устарела.
+     */
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && entry.expiresAt() > now ? entry.value() : null;
+        }
+    }
+
+    /**
+     * Возвращает живые значения для набора ключей; отсутствующих и устаревших ключей в результате нет.
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        long now = System.currentTimeMillis();
+        Map<K, V> result = new HashMap<>();
+        synchronized (entries) {
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && entry.expiresAt() > now) {
+                    result.put(key, entry.value());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Записывает значение с новым сроком жизни.
+     */
+    public void put(K key, V value) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Записывает значение, если keepCurrent не решит оставить текущее (в том числе устаревшее).
+     *
+     * @param keepCurrent (текущее, новое) → true, если текущее значение оставить
+     * @return значение, которое осталось в кэше
+     */
+    public V put(K key, V value, BiPredicate<V, V> keepCurrent) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (entries) {
+            Entry<V> current = entries.get(key);
+            if (current != null && keepCurrent.test(current.value(), value)) {
+                return current.value();
+            }
+            entries.put(key, new Entry<>(value, expiresAt));
+            return value;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
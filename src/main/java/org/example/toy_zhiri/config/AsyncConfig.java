@@ -5,7 +5,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 
 /**
  * Включает поддержку @Async для асинхронных операций.
- * Используется в EmailNotificationService для неблокирующей отправки писем.
+ * Письма отправляются не через @Async, а выделенным пулом MailDeliveryService
+ * с ограниченной очередью.
  */
 @Configuration
 @EnableAsync
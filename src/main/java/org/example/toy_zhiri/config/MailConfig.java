@@ -3,7 +3,6 @@ package org.example.toy_zhiri.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 
 import java.util.Properties;
@@ -27,8 +26,16 @@ public class MailConfig {
     @Value("${spring.mail.password:}")
     private String password;
 
+    // Отключается для локального SMTP-стенда без TLS
+    @Value("${app.mail.starttls:true}")
+    private boolean starttls;
+
+    /**
+     * Возвращает JavaMailSenderImpl: MailDeliveryService берёт из него Session
+     * и сам управляет SMTP-соединениями.
+     */
     @Bean
-    public JavaMailSender javaMailSender() {
+    public JavaMailSenderImpl javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
         mailSender.setHost(host);
         mailSender.setPort(port);
@@ -37,9 +44,9 @@ public class MailConfig {
 
         Properties props = mailSender.getJavaMailProperties();
         props.put("mail.transport.protocol", "smtp");
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enabled", "true");
-        props.put("mail.smtp.starttls.required", "true");
+        props.put("mail.smtp.auth", String.valueOf(!username.isBlank()));
+        props.put("mail.smtp.starttls.enabled", String.valueOf(starttls));
+        props.put("mail.smtp.starttls.required", String.valueOf(starttls));
 
         return mailSender;
     }
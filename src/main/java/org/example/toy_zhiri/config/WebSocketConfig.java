@@ -1,30 +1,131 @@
 package org.example.toy_zhiri.config;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.auth.security.JwtChannelInterceptor;
+import org.example.toy_zhiri.auth.security.StompConnectionLimitInterceptor;
+import org.example.toy_zhiri.websocket.service.WebSocketMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * Конфигурация WebSocket поверх STOMP для реалтайм-функциональности.
  * <p>
- * Используется чатом, в перспективе — push-уведомлениями.
+ * Используется чатом и push-уведомлениями.
  * <p>
  * Эндпоинт подключения:    /ws  (с поддержкой SockJS-фолбэка)
  * Топики (broadcast):      /topic/chats/{chatId}
  * Персональные очереди:    /user/queue/...
+ * Уведомления и счётчики:  /user/queue/notifications (начальное состояние — /app/notifications.counts)
+ * Присутствие и набор:     /user/queue/presence, /user/queue/typing
  * Префикс для @MessageMapping в контроллерах: /app
+ * <p>
+ * По умолчанию используется встроенный simple broker — сообщения доходят только до сессий
+ * своего экземпляра. При app.websocket.relay.enabled=true топики и очереди обслуживает внешний
+ * STOMP-брокер (ActiveMQ/Artemis и т.п.), а реестр пользователей и неразрешённые
+ * user-destination рассылаются между экземплярами через брокер — SimpUserRegistry видит
+ * сессии и подписки всех узлов. Системное соединение с брокером переподключается
+ * автоматически, состояние логируется по BrokerAvailabilityEvent. Присутствие «онлайн»
+ * ведётся в памяти одного узла и в этом режиме выключено (см. PresenceTracker).
+ * <p>
+ * Каналы обслуживаются ограниченными пулами (app.websocket.inbound/outbound.*): при
+ * переполненной очереди фрейм отбрасывается, а не копится в памяти. Отправка в каждую
+ * сессию ограничена по времени и размеру буфера — медленный клиент отключается
+ * (SESSION_NOT_RELIABLE) и не задерживает остальных. Число сессий на пользователя
+ * ограничено app.websocket.max-sessions-per-user. Метрики — /api/v1/admin/websocket/stats.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 @RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtChannelInterceptor jwtChannelInterceptor;
+    private final StompConnectionLimitInterceptor connectionLimitInterceptor;
+    private final WebSocketMetricsService metricsService;
+
+    @Value("${app.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${app.websocket.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${app.websocket.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${app.websocket.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${app.websocket.relay.heartbeat-send-ms:10000}")
+    private long relayHeartbeatSendMs;
+
+    @Value("${app.websocket.relay.heartbeat-receive-ms:10000}")
+    private long relayHeartbeatReceiveMs;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    /**
+     * Планировщик брокера для heartbeat simple broker.
+     * Внедряется лениво — он создаётся той же конфигурацией брокера.
+     */
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
 
     /**
      * Регистрирует эндпоинт, к которому подключается клиент.
@@ -41,8 +142,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Префиксы топиков для подписок
-        registry.enableSimpleBroker("/topic", "/queue");
+        if (relayEnabled) {
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatSendMs)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatReceiveMs)
+                    // Сообщения для пользователя, подключённого к другому узлу
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    // Обмен реестрами пользователей между узлами
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            log.info("STOMP: внешний брокер {}:{}", relayHost, relayPort);
+        } else {
+            // Префиксы топиков для подписок; heartbeat нужен для обнаружения оборванных сессий
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
 
         // Префикс для сообщений, которые идут в @MessageMapping контроллеры
         registry.setApplicationDestinationPrefixes("/app");
@@ -52,10 +176,56 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     }
 
     /**
-     * Регистрирует канальный интерсептор для аутентификации STOMP-фреймов через JWT.
+     * Логирует потерю и восстановление соединения с брокером.
+     * Пока брокер недоступен, отправка в топики и очереди не выполняется.
+     */
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (!relayEnabled) {
+            return;
+        }
+        if (event.isBrokerAvailable()) {
+            log.info("STOMP: соединение с брокером {}:{} установлено", relayHost, relayPort);
+        } else {
+            log.warn("STOMP: брокер {}:{} недоступен, ожидаем переподключения", relayHost, relayPort);
+        }
+    }
+
+    /**
+     * Лимиты транспорта: размер входящего фрейма, время и буфер отправки в сессию.
+     * При превышении лимитов отправки сессия закрывается.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .addDecoratorFactory(metricsService::decorate);
+    }
+
+    /**
+     * Регистрирует интерсепторы входящего канала (JWT-аутентификация, лимит сессий, метрики)
+     * и ограничивает его пул.
      */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(jwtChannelInterceptor);
+        registration.interceptors(jwtChannelInterceptor, connectionLimitInterceptor,
+                metricsService.inboundInterceptor());
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    /**
+     * Ограничивает пул исходящего канала и подключает метрики.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(metricsService.outboundInterceptor());
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package org.example.toy_zhiri.counter.enums;
+
+import lombok.Getter;
+
+/**
+ * Денормализованные счётчики, которые обновляются только атомарными UPDATE.
+ * <p>
+ * Для каждого счётчика задана таблица, колонка и (если есть) подзапрос,
+ * пересчитывающий фактическое значение по таблице-источнику. Подзапрос ссылается
+ * на строку счётчика через алиас t. Счётчики без источника (просмотры услуг)
+ * не сверяются.
+ * <p>
+ * Счётчики непрочитанного не коалесцируются: их читают сразу после коммита
+ * (push в /user/queue/notifications), поэтому UPDATE выполняется в транзакции записи.
+ */
+@Getter
+public enum CounterType {
+    SERVICE_BOOKINGS("services", "bookings_count",
+            "SELECT COUNT(*) FROM bookings x WHERE x.service_id = t.id"),
+    SERVICE_FAVORITES("services", "favorites_count",
+            "SELECT COUNT(*) FROM favorites x WHERE x.service_id = t.id"),
+    SERVICE_REVIEWS("services", "reviews_count",
+            "SELECT COUNT(*) FROM reviews x WHERE x.service_id = t.id AND x.is_visible = true"),
+    SERVICE_VIEWS("services", "views_count", null),
+    STORY_VIEWS("stories", "views_count",
+            "SELECT COUNT(*) FROM story_views x WHERE x.story_id = t.id"),
+    USER_UNREAD_NOTIFICATIONS("users", "unread_notifications_count",
+            "SELECT COUNT(*) FROM notifications x WHERE x.user_id = t.id AND x.is_read = false",
+            false),
+    USER_UNREAD_CHAT_MESSAGES("users", "unread_chat_messages_count",
+            "SELECT COUNT(*) FROM chat_messages x" +
+                    " JOIN chats c ON c.id = x.chat_id" +
+                    " JOIN partners p ON p.id = c.partner_id" +
+                    " WHERE x.is_read = false AND x.sender_id <> t.id" +
+                    " AND (c.user_id = t.id OR p.user_id = t.id)",
+            false),
+    CHAT_CLIENT_UNREAD("chats", "client_unread_count",
+            "SELECT COUNT(*) FROM chat_messages x" +
+                    " WHERE x.chat_id = t.id AND x.is_read = false AND x.sender_id <> t.user_id",
+            false),
+    CHAT_PARTNER_UNREAD("chats", "partner_unread_count",
+            "SELECT COUNT(*) FROM chat_messages x" +
+                    " JOIN partners p ON p.id = t.partner_id" +
+                    " WHERE x.chat_id = t.id AND x.is_read = false AND x.sender_id <> p.user_id",
+            false);
+
+    private final String table;
+    private final String column;
+    private final String sourceQuery;
+    private final boolean coalescible;
+
+    CounterType(String table, String column, String sourceQuery) {
+        this(table, column, sourceQuery, true);
+    }
+
+    CounterType(String table, String column, String sourceQuery, boolean coalescible) {
+        this.table = table;
+        this.column = column;
+        this.sourceQuery = sourceQuery;
+        this.coalescible = coalescible;
+    }
+
+    public boolean isReconcilable() {
+        return sourceQuery != null;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.toy_zhiri.counter.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Плановое задание сверки денормализованных счётчиков с таблицами-источниками.
+ * <p>
+ * Раз в сутки (в 04:00) проходит по таблицам счётчиков порциями по ID (keyset)
+ * и пересчитывает значения по источнику. Обновляются только строки с расхождением,
+ * каждая порция выполняется отдельным коротким запросом, поэтому длинных блокировок нет.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CounterReconciliationJob {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${app.counters.reconcile-chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        for (CounterType type : CounterType.values()) {
+            if (type.isReconcilable()) {
+                reconcile(type);
+            }
+        }
+    }
+
+    private void reconcile(CounterType type) {
+        String selectChunkSql = "SELECT id FROM " + type.getTable() +
+                " WHERE id > :after" +
+                " ORDER BY id LIMIT :limit";
+
+        String fixChunkSql = "UPDATE " + type.getTable() + " t" +
+                " SET " + type.getColumn() + " = (" + type.getSourceQuery() + ")" +
+                " WHERE t.id IN (:ids)" +
+                " AND t." + type.getColumn() + " IS DISTINCT FROM (" + type.getSourceQuery() + ")";
+
+        UUID after = new UUID(0L, 0L);
+        int fixed = 0;
+
+        while (true) {
+            List<UUID> ids = jdbcTemplate.queryForList(selectChunkSql, new MapSqlParameterSource()
+                    .addValue("after", after)
+                    .addValue("limit", chunkSize), UUID.class);
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            fixed += jdbcTemplate.update(fixChunkSql, new MapSqlParameterSource("ids", ids));
+            after = ids.get(ids.size() - 1);
+        }
+
+        if (fixed > 0) {
+            log.info("CounterReconciliationJob: исправлено {} значений счётчика {}", fixed, type);
+        }
+    }
+}
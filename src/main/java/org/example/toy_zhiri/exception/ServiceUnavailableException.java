@@ -0,0 +1,15 @@
+package org.example.toy_zhiri.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Исключение для временной перегрузки сервиса.
+ * Например, очередь записи сообщений переполнена — запрос можно повторить позже.
+ * HTTP 503 Service Unavailable.
+ */
+public class ServiceUnavailableException extends BaseException {
+
+    public ServiceUnavailableException(String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
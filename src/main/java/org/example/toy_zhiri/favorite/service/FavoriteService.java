@@ -3,6 +3,8 @@ package org.example.toy_zhiri.favorite.service;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.example.toy_zhiri.admin.dto.MessageResponse;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.exception.ConflictException;
 import org.example.toy_zhiri.exception.NotFoundException;
 import org.example.toy_zhiri.service.dto.ServiceResponse;
@@ -25,6 +27,7 @@ public class FavoriteService {
     private final ServiceRepository serviceRepository;
     private final UserRepository userRepository;
     private final ServiceService serviceService;
+    private final CounterService counterService;
 
     @Transactional
     public MessageResponse addToFavorites(UUID userId, UUID serviceId) {
@@ -43,6 +46,7 @@ public class FavoriteService {
                 .build();
 
         favoriteRepository.save(favorite);
+        counterService.increment(CounterType.SERVICE_FAVORITES, serviceId);
 
         return MessageResponse.builder()
                 .message("Услуга добавлена в избранное")
@@ -56,6 +60,7 @@ public class FavoriteService {
         }
 
         favoriteRepository.deleteByUserIdAndServiceId(userId, serviceId);
+        counterService.decrement(CounterType.SERVICE_FAVORITES, serviceId);
 
         return MessageResponse.builder()
                 .message("Услуга удалена из избранного")
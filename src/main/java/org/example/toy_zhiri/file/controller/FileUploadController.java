@@ -64,4 +64,26 @@ public class FileUploadController {
                 .message("Файлы успешно загружены")
                 .build());
     }
-}
\ No newline at end of file
+
+    @PostMapping(value = "/upload-chat", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Загрузить вложения чата",
+            description = "Загружает изображения для сообщения чата и возвращает массив URL. " +
+                    "Миниатюры и уменьшенные копии генерируются в фоне и появляются в attachments сообщения",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<FileUploadResponse> uploadChatAttachments(
+            @RequestParam("files")
+            @RequestBody(
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
+            )
+            List<MultipartFile> files) {
+
+        List<String> urls = fileUploadService.uploadChatAttachments(files);
+
+        return ResponseEntity.ok(FileUploadResponse.builder()
+                .urls(urls)
+                .message("Файлы успешно загружены")
+                .build());
+    }
+}
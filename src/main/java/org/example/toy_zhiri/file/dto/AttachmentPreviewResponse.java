@@ -0,0 +1,33 @@
+package org.example.toy_zhiri.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO вложения с уменьшенными копиями.
+ * thumbnailUrl и previewUrl выводятся из имени оригинала и равны null, только если формат
+ * не поддерживает генерацию. Пока копия не сгенерирована, её URL отвечает 404 —
+ * тогда клиент использует url.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentPreviewResponse {
+    /**
+     * URL оригинала
+     */
+    private String url;
+
+    /**
+     * Миниатюра для ленты сообщений
+     */
+    private String thumbnailUrl;
+
+    /**
+     * Копия, ограниченная по размеру, для просмотра на мобильных
+     */
+    private String previewUrl;
+}
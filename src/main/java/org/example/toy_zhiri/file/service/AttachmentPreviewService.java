@@ -0,0 +1,440 @@
+package org.example.toy_zhiri.file.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.file.dto.AttachmentPreviewResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Генерация уменьшенных копий вложений чата.
+ * <p>
+ * Для каждого изображения создаются две JPEG-копии в app.upload.dir/previews:
+ * миниатюра (длинная сторона не больше app.upload.previews.thumbnail-size) и копия
+ * для просмотра (не больше app.upload.previews.preview-size). Имена копий выводятся
+ * из имени оригинала, поэтому их не нужно хранить в БД.
+ * <p>
+ * Генерация идёт в фиксированном пуле из app.upload.previews.workers потоков с
+ * ограниченной очередью app.upload.previews.queue-capacity. Постановка задачи никогда
+ * не блокирует поток запроса: при заполненной очереди задача отбрасывается, а вложение
+ * отдаётся без копий. Копии пересоздаются при следующей постановке, например при отправке
+ * сообщения с этим вложением.
+ * <p>
+ * URL-ы копий в ответах выводятся по соглашению об именах без обращения к диску. Вложения,
+ * для которых копий нет и не будет (не читается, больше app.upload.previews.max-pixels,
+ * ошибка генерации), помечаются файлом-маркером previews/{uuid}.none, отброшенные до
+ * успешной генерации — маркером previews/{uuid}.dropped. Маркеры читаются в память один
+ * раз при старте, и для помеченных вложений URL-ы копий равны null. Пока копия
+ * поставленного вложения не готова, раздача /uploads/** отвечает 404 и клиент показывает оригинал.
+ */
+@Service
+@Slf4j
+public class AttachmentPreviewService {
+
+    /**
+     * Только файлы, сохранённые FileUploadService: UUID-имя в корне каталога загрузок.
+     * Заодно исключает выход за пределы каталога через пользовательский URL.
+     */
+    private static final Pattern UPLOAD_URL = Pattern.compile(
+            "^/uploads/([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})\\.([a-z]+)$");
+
+    /**
+     * Форматы, которые читает ImageIO из JDK (webp без плагина не поддерживается)
+     */
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif");
+
+    private static final String PREVIEWS_DIR = "previews";
+    private static final String THUMBNAIL_SUFFIX = "_thumb.jpg";
+    private static final String PREVIEW_SUFFIX = "_preview.jpg";
+    private static final String UNAVAILABLE_SUFFIX = ".none";
+    private static final String DROPPED_SUFFIX = ".dropped";
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.previews.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.previews.workers:2}")
+    private int workers;
+
+    @Value("${app.upload.previews.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.upload.previews.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${app.upload.previews.preview-size:1280}")
+    private int previewSize;
+
+    @Value("${app.upload.previews.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${app.upload.previews.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${app.upload.previews.shutdown-timeout-ms:5000}")
+    private long shutdownTimeoutMs;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Вложения без копий: навсегда (маркер .none) и до повторной постановки (маркер .dropped)
+    private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+    private final Set<String> droppedNames = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("attachment-preview-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        loadMarkers();
+        log.info("AttachmentPreviewService: запущено {} воркеров, очередь {}, без копий {}, отброшено ранее {}",
+                workers, queueCapacity, unavailable.size(), droppedNames.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            List<Runnable> pending = executor.shutdownNow();
+            log.warn("AttachmentPreviewService: при остановке не обработано {} вложений", pending.size());
+        }
+        // Недоделанные задачи переживают рестарт как отброшенные: URL-ы копий не отдаются до повторной постановки
+        inFlight.forEach(this::markDropped);
+        log.info("AttachmentPreviewService: сгенерировано {}, пропущено {}, ошибок {}, отброшено {}",
+                generated.get(), skipped.get(), failed.get(), dropped.get());
+    }
+
+    /**
+     * Ставит генерацию копий в очередь для вложений, у которых их ещё нет.
+     * Не блокирует вызывающий поток.
+     *
+     * @param urls URL-ы вложений (null допускается)
+     */
+    public void submit(List<String> urls) {
+        if (!enabled || urls == null) {
+            return;
+        }
+        for (String url : urls) {
+            submit(url);
+        }
+    }
+
+    /**
+     * Ставит генерацию копий одного вложения в очередь.
+     * Повторная постановка уже обрабатываемого или готового вложения игнорируется.
+     *
+     * @param url URL вложения
+     */
+    public void submit(String url) {
+        if (!enabled) {
+            return;
+        }
+
+        Source source = parse(url);
+        if (source == null || unavailable.contains(source.name())
+                || Files.exists(source.preview()) || !inFlight.add(source.name())) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> generate(source));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(source.name());
+            dropped.incrementAndGet();
+            markDropped(source.name());
+            log.warn("Очередь генерации превью переполнена, вложение {} пропущено", url);
+        }
+    }
+
+    /**
+     * Удаляет копии вложения и его маркеры.
+     *
+     * @param url URL оригинала
+     */
+    public void delete(String url) {
+        Source source = parse(url);
+        if (source == null) {
+            return;
+        }
+
+        unavailable.remove(source.name());
+        droppedNames.remove(source.name());
+        try {
+            Files.deleteIfExists(source.thumbnail());
+            Files.deleteIfExists(source.preview());
+            Files.deleteIfExists(markerPath(source.name(), UNAVAILABLE_SUFFIX));
+            Files.deleteIfExists(markerPath(source.name(), DROPPED_SUFFIX));
+        } catch (IOException e) {
+            log.error("Не удалось удалить превью вложения {}", source.name(), e);
+        }
+    }
+
+    /**
+     * Возвращает вложения с URL-ами копий, выведенными из имени оригинала.
+     * Диск не читается; для неподдерживаемых форматов и вложений с маркером URL-ы копий равны null.
+     *
+     * @param urls URL-ы вложений
+     * @return List<AttachmentPreviewResponse> вложения в исходном порядке или null, если вложений нет
+     */
+    public List<AttachmentPreviewResponse> resolve(List<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return null;
+        }
+        return urls.stream().map(this::resolve).toList();
+    }
+
+    private AttachmentPreviewResponse resolve(String url) {
+        AttachmentPreviewResponse.AttachmentPreviewResponseBuilder builder = AttachmentPreviewResponse.builder()
+                .url(url);
+
+        Source source = enabled ? parse(url) : null;
+        if (source != null && !unavailable.contains(source.name()) && !droppedNames.contains(source.name())) {
+            builder.thumbnailUrl("/uploads/" + PREVIEWS_DIR + "/" + source.name() + THUMBNAIL_SUFFIX)
+                    .previewUrl("/uploads/" + PREVIEWS_DIR + "/" + source.name() + PREVIEW_SUFFIX);
+        }
+        return builder.build();
+    }
+
+    private Source parse(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = UPLOAD_URL.matcher(url);
+        if (!matcher.matches() || !SUPPORTED_EXTENSIONS.contains(matcher.group(2))) {
+            return null;
+        }
+
+        String name = matcher.group(1);
+        Path root = Paths.get(uploadDir);
+        Path previews = root.resolve(PREVIEWS_DIR);
+        return new Source(name,
+                root.resolve(name + "." + matcher.group(2)),
+                previews.resolve(name + THUMBNAIL_SUFFIX),
+                previews.resolve(name + PREVIEW_SUFFIX));
+    }
+
+    private void generate(Source source) {
+        try {
+            if (!Files.exists(source.original())) {
+                // Оригинал удалён — маркер на диске не нужен, копий просто не будет
+                skipped.incrementAndGet();
+                unavailable.add(source.name());
+                return;
+            }
+
+            BufferedImage image = read(source.original());
+            if (image == null) {
+                skipped.incrementAndGet();
+                markUnavailable(source.name());
+                return;
+            }
+
+            Files.createDirectories(source.preview().getParent());
+            write(scale(image, thumbnailSize), source.thumbnail());
+            // Копия для просмотра пишется последней: по ней submit определяет готовность
+            write(scale(image, previewSize), source.preview());
+
+            if (droppedNames.remove(source.name())) {
+                deleteMarker(source.name(), DROPPED_SUFFIX);
+            }
+            generated.incrementAndGet();
+            log.debug("Сгенерированы превью вложения {}", source.name());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            markUnavailable(source.name());
+            log.warn("Не удалось сгенерировать превью вложения {}: {}", source.name(), e.getMessage());
+        } finally {
+            inFlight.remove(source.name());
+        }
+    }
+
+    /**
+     * Загружает маркеры вложений без копий. Маркер .dropped, у которого копия всё же
+     * успела записаться, удаляется.
+     */
+    private void loadMarkers() {
+        Path previews = Paths.get(uploadDir).resolve(PREVIEWS_DIR);
+        if (!Files.isDirectory(previews)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(previews,
+                "*{" + UNAVAILABLE_SUFFIX + "," + DROPPED_SUFFIX + "}")) {
+            for (Path marker : markers) {
+                String fileName = marker.getFileName().toString();
+                if (fileName.endsWith(UNAVAILABLE_SUFFIX)) {
+                    unavailable.add(fileName.substring(0, fileName.length() - UNAVAILABLE_SUFFIX.length()));
+                    continue;
+                }
+
+                String name = fileName.substring(0, fileName.length() - DROPPED_SUFFIX.length());
+                if (Files.exists(previews.resolve(name + PREVIEW_SUFFIX))) {
+                    Files.deleteIfExists(marker);
+                } else {
+                    droppedNames.add(name);
+                }
+            }
+        } catch (IOException e) {
+            log.error("AttachmentPreviewService: не удалось прочитать маркеры превью", e);
+        }
+    }
+
+    /**
+     * Помечает вложение как не имеющее копий навсегда.
+     */
+    private void markUnavailable(String name) {
+        unavailable.add(name);
+        droppedNames.remove(name);
+        writeMarker(name, UNAVAILABLE_SUFFIX);
+        deleteMarker(name, DROPPED_SUFFIX);
+    }
+
+    /**
+     * Помечает вложение как отброшенное: копий нет до успешной повторной генерации.
+     */
+    private void markDropped(String name) {
+        if (droppedNames.add(name)) {
+            writeMarker(name, DROPPED_SUFFIX);
+        }
+    }
+
+    private void writeMarker(String name, String suffix) {
+        Path marker = markerPath(name, suffix);
+        try {
+            Files.createDirectories(marker.getParent());
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+        } catch (IOException e) {
+            // Состояние в памяти уже обновлено — без маркера оно потеряется только при рестарте
+            log.warn("Не удалось записать маркер превью {}: {}", marker.getFileName(), e.getMessage());
+        }
+    }
+
+    private void deleteMarker(String name, String suffix) {
+        try {
+            Files.deleteIfExists(markerPath(name, suffix));
+        } catch (IOException e) {
+            log.warn("Не удалось удалить маркер превью {}{}: {}", name, suffix, e.getMessage());
+        }
+    }
+
+    private Path markerPath(String name, String suffix) {
+        return Paths.get(uploadDir).resolve(PREVIEWS_DIR).resolve(name + suffix);
+    }
+
+    /**
+     * Читает изображение, предварительно проверив размеры по заголовку,
+     * чтобы не распаковывать в память слишком большие картинки.
+     */
+    private BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Вложение {} слишком большое для превью: {} пикселей", path.getFileName(), pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Уменьшает изображение так, чтобы длинная сторона не превышала maxSide.
+     * Прозрачные области заливаются белым — результат сохраняется в JPEG.
+     */
+    private BufferedImage scale(BufferedImage image, int maxSide) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage result = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * Пишет JPEG во временный файл и атомарно переименовывает его,
+     * чтобы раздача /uploads/** не отдала недописанную копию.
+     */
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Source(String name, Path original, Path thumbnail, Path preview) {
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.toy_zhiri.file.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.exception.BadRequestException;
 import org.example.toy_zhiri.exception.FileUploadException;
@@ -18,7 +19,9 @@ import java.util.UUID;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileUploadService {
+    private final AttachmentPreviewService attachmentPreviewService;
 
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
@@ -65,11 +68,24 @@ public class FileUploadService {
         return urls;
     }
 
+    /**
+     * Загружает вложения чата и ставит генерацию их уменьшенных копий в фоновую очередь.
+     *
+     * @param files файлы вложений
+     * @return List<String> URL-ы оригиналов
+     */
+    public List<String> uploadChatAttachments(List<MultipartFile> files) {
+        List<String> urls = uploadImages(files);
+        attachmentPreviewService.submit(urls);
+        return urls;
+    }
+
     public void deleteImage(String imageUrl) {
         try {
             String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
             Path filePath = Paths.get(uploadDir).resolve(filename);
             Files.deleteIfExists(filePath);
+            attachmentPreviewService.delete(imageUrl);
             log.info("File deleted: {}", filename);
         } catch (IOException e) {
             log.error("Error deleting file: {}", imageUrl, e);
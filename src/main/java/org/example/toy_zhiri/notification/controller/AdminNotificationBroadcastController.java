@@ -0,0 +1,75 @@
+package org.example.toy_zhiri.notification.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.notification.dto.BroadcastResponse;
+import org.example.toy_zhiri.notification.dto.CreateBroadcastRequest;
+import org.example.toy_zhiri.notification.service.NotificationBroadcastService;
+import org.example.toy_zhiri.user.service.UserService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/admin/notifications/broadcasts")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Notification Broadcasts", description = "Массовые рассылки акций (только для админов)")
+public class AdminNotificationBroadcastController {
+    private final NotificationBroadcastService broadcastService;
+    private final UserService userService;
+
+    @PostMapping
+    @Operation(
+            summary = "Запустить рассылку",
+            description = "Создаёт уведомление PROMOTION для всех активных пользователей " +
+                    "с включёнными акциями и (опционально) отправляет им письма. " +
+                    "Рассылка выполняется в фоне, прогресс — через GET /{broadcastId}.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<BroadcastResponse> createBroadcast(
+            @Valid @RequestBody CreateBroadcastRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID adminId = userService.getIdByEmail(userDetails.getUsername());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(broadcastService.createBroadcast(adminId, request));
+    }
+
+    @GetMapping("/{broadcastId}")
+    @Operation(
+            summary = "Прогресс рассылки",
+            description = "Статус рассылки, количество созданных уведомлений и отправленных писем.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<BroadcastResponse> getBroadcast(@PathVariable UUID broadcastId) {
+        return ResponseEntity.ok(broadcastService.getBroadcast(broadcastId));
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Список рассылок",
+            description = "Возвращает рассылки с пагинацией (новые сверху).",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<Page<BroadcastResponse>> getBroadcasts(
+            @Parameter(description = "Номер страницы")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Размер страницы")
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(broadcastService.getBroadcasts(PageRequest.of(page, size)));
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.toy_zhiri.notification.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.notification.dto.MailDeliveryStatsResponse;
+import org.example.toy_zhiri.notification.dto.NotificationPipelineStatsResponse;
+import org.example.toy_zhiri.notification.service.MailDeliveryService;
+import org.example.toy_zhiri.notification.service.NotificationDispatcher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/notifications/pipeline")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Notification Pipeline", description = "Мониторинг доставки уведомлений (только для админов)")
+public class AdminNotificationPipelineController {
+    private final NotificationDispatcher dispatcher;
+    private final MailDeliveryService mailDeliveryService;
+
+    @GetMapping
+    @Operation(
+            summary = "Состояние очереди уведомлений",
+            description = "Глубина очереди, количество принятых, доставленных, отброшенных " +
+                    "и неудачно доставленных уведомлений с момента старта.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<NotificationPipelineStatsResponse> getStats() {
+        return ResponseEntity.ok(dispatcher.getStats());
+    }
+
+    @GetMapping("/mail")
+    @Operation(
+            summary = "Состояние отправки писем",
+            description = "Глубина очереди писем, количество отправленных, повторённых, " +
+                    "неудачных и отброшенных писем, число пачек и открытых SMTP-соединений.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<MailDeliveryStatsResponse> getMailStats() {
+        return ResponseEntity.ok(mailDeliveryService.getStats());
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.toy_zhiri.notification.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.auth.security.StompPrincipal;
+import org.example.toy_zhiri.notification.dto.NotificationPushEvent;
+import org.example.toy_zhiri.notification.service.NotificationPushService;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * STOMP-контроллер уведомлений.
+ * <p>
+ * При подключении клиент один раз подписывается на:
+ * /app/notifications.counts — и сразу получает текущие счётчики непрочитанного;
+ * дальнейшие изменения приходят в /user/queue/notifications без опроса REST.
+ */
+@Controller
+@RequiredArgsConstructor
+public class NotificationWebSocketController {
+
+    private final NotificationPushService notificationPushService;
+
+    /**
+     * Возвращает текущие счётчики непрочитанных уведомлений и сообщений чатов.
+     *
+     * @param principal STOMP-принципал аутентифицированного пользователя
+     * @return событие UNREAD_COUNTS
+     * @throws IllegalStateException если WebSocket-сессия не аутентифицирована
+     */
+    @SubscribeMapping("/notifications.counts")
+    public NotificationPushEvent getUnreadCounts(Principal principal) {
+        if (!(principal instanceof StompPrincipal stompPrincipal)) {
+            throw new IllegalStateException("WebSocket-сессия не аутентифицирована");
+        }
+
+        return notificationPushService.buildCountsEvent(stompPrincipal.getUserId());
+    }
+}
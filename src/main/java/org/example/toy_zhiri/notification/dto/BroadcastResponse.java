@@ -0,0 +1,37 @@
+package org.example.toy_zhiri.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastResponse {
+    private UUID id;
+    private String title;
+    private String message;
+    private Boolean sendEmail;
+    private String status;
+
+    /**
+     * Создано in-app уведомлений
+     */
+    private long recipientsCount;
+
+    /**
+     * Отправлено писем
+     */
+    private long emailsSent;
+
+    private String errorMessage;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
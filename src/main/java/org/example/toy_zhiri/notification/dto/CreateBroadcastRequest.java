@@ -0,0 +1,30 @@
+package org.example.toy_zhiri.notification.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateBroadcastRequest {
+
+    @NotBlank(message = "Заголовок обязателен")
+    @Size(max = 255, message = "Заголовок не должен превышать 255 символов")
+    private String title;
+
+    @NotBlank(message = "Текст сообщения обязателен")
+    private String message;
+
+    /**
+     * Дополнительно отправить email пользователям с включённым email-каналом
+     */
+    @NotNull
+    @Builder.Default
+    private Boolean sendEmail = true;
+}
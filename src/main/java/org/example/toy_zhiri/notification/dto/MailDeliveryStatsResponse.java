@@ -0,0 +1,28 @@
+package org.example.toy_zhiri.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Состояние подсистемы отправки писем.
+ * Счётчики накопительные с момента старта приложения.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailDeliveryStatsResponse {
+    private Boolean enabled;
+    private Integer workers;
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Long enqueued;
+    private Long sent;
+    private Long retried;
+    private Long failed;
+    private Long dropped;
+    private Long batches;
+    private Long connectionsOpened;
+}
@@ -0,0 +1,26 @@
+package org.example.toy_zhiri.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+
+import java.util.UUID;
+
+/**
+ * Уведомление, подготовленное к пакетной доставке через NotificationDeliveryService.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDraft {
+    private UUID userId;
+    private NotificationType type;
+    private String title;
+    private String message;
+    private RelatedEntityType relatedEntityType;
+    private UUID relatedEntityId;
+}
@@ -0,0 +1,26 @@
+package org.example.toy_zhiri.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Состояние конвейера доставки уведомлений.
+ * Счётчики накопительные с момента старта приложения.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPipelineStatsResponse {
+    private String mode;
+    private Integer workers;
+    private Long queueDepth;
+    private Integer queueCapacity;
+    private Long enqueued;
+    private Long delivered;
+    private Long dropped;
+    private Long failed;
+    private Long deadLettered;
+}
@@ -0,0 +1,40 @@
+package org.example.toy_zhiri.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.notification.enums.NotificationPushEventType;
+
+/**
+ * DTO события в персональной очереди /user/queue/notifications.
+ * <p>
+ * Каждое событие несёт актуальные счётчики непрочитанного — фронту достаточно
+ * один раз получить их при подключении и дальше обновлять бейджики из событий.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushEvent {
+
+    /**
+     * Тип события
+     */
+    private NotificationPushEventType type;
+
+    /**
+     * Новое уведомление (только для NOTIFICATION_CREATED)
+     */
+    private NotificationResponse notification;
+
+    /**
+     * Количество непрочитанных уведомлений
+     */
+    private long unreadNotifications;
+
+    /**
+     * Количество непрочитанных сообщений по всем чатам
+     */
+    private long unreadChatMessages;
+}
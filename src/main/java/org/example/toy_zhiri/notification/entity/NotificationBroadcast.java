@@ -0,0 +1,63 @@
+package org.example.toy_zhiri.notification.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.toy_zhiri.notification.enums.BroadcastStatus;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Массовая рассылка уведомлений типа PROMOTION.
+ * Прогресс и курсоры меняются только JDBC-запросами NotificationBroadcastService.
+ */
+@Entity
+@Table(name = "notification_broadcasts")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBroadcast {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "send_email", nullable = false)
+    private Boolean sendEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BroadcastStatus status;
+
+    @Column(name = "recipients_count", insertable = false, updatable = false)
+    private Long recipientsCount;
+
+    @Column(name = "emails_sent", insertable = false, updatable = false)
+    private Long emailsSent;
+
+    @Column(name = "created_by")
+    private UUID createdBy;
+
+    @Column(name = "error_message", insertable = false, updatable = false)
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at", insertable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at", insertable = false, updatable = false)
+    private LocalDateTime finishedAt;
+}
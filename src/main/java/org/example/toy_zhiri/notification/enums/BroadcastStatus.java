@@ -0,0 +1,12 @@
+package org.example.toy_zhiri.notification.enums;
+
+/**
+ * Статус массовой рассылки.
+ */
+public enum BroadcastStatus {
+    PENDING,        // Создана, ещё не запущена
+    IN_APP,         // Создаются in-app уведомления
+    EMAIL,          // In-app уведомления созданы, идёт отправка писем
+    COMPLETED,      // Рассылка завершена
+    FAILED          // Прервана ошибкой
+}
@@ -0,0 +1,10 @@
+package org.example.toy_zhiri.notification.enums;
+
+/**
+ * Тип события в персональной очереди /user/queue/notifications.
+ */
+public enum NotificationPushEventType {
+    NOTIFICATION_CREATED,   // Новое in-app уведомление (со свежими счётчиками)
+    NOTIFICATION_UPDATED,   // Уведомление с тем же id изменено на месте (итог серии сообщений чата)
+    UNREAD_COUNTS           // Изменились только счётчики непрочитанного
+}
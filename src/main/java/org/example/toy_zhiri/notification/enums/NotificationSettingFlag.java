@@ -0,0 +1,106 @@
+package org.example.toy_zhiri.notification.enums;
+
+import lombok.Getter;
+import org.example.toy_zhiri.notification.entity.NotificationSettings;
+
+/**
+ * Флаги настроек уведомлений в виде битовой маски — по биту на каждое поле NotificationSettings.
+ * Маска хранится в NotificationSettingsCache; DEFAULT_MASK соответствует пользователю без строки настроек.
+ */
+@Getter
+public enum NotificationSettingFlag {
+    PUSH(true),
+    EMAIL(true),
+    SMS(false),
+    BOOKING_UPDATES(true),
+    CHAT_MESSAGES(true),
+    PROMOTIONS(false),
+    EVENT_REMINDERS(true),
+    NEW_BOOKINGS(true);
+
+    public static final int DEFAULT_MASK = defaultMask();
+
+    private final boolean enabledByDefault;
+    private final int bit;
+
+    NotificationSettingFlag(boolean enabledByDefault) {
+        this.enabledByDefault = enabledByDefault;
+        this.bit = 1 << ordinal();
+    }
+
+    /**
+     * Проверяет, установлен ли флаг в маске.
+     */
+    public boolean isSet(int mask) {
+        return (mask & bit) != 0;
+    }
+
+    /**
+     * Флаг, разрешающий уведомления данного типа; null — тип отправляется всегда.
+     */
+    public static NotificationSettingFlag forType(NotificationType type) {
+        return switch (type) {
+            case BOOKING_CREATED,
+                 BOOKING_CONFIRMED,
+                 BOOKING_REJECTED,
+                 BOOKING_CANCELLED,
+                 BOOKING_COMPLETED,
+                 BOOKING_EXPIRED,
+                 BOOKING_COMPLETION_CONFIRMED -> BOOKING_UPDATES;
+
+            case REVIEW_RECEIVED -> BOOKING_UPDATES;
+
+            case NEW_MESSAGE -> CHAT_MESSAGES;
+
+            case PROMOTION -> PROMOTIONS;
+
+            case EVENT_REMINDER -> EVENT_REMINDERS;
+
+            // Системные уведомления отправляются всегда
+            case SERVICE_APPROVED,
+                 SERVICE_REJECTED,
+                 PASSWORD_CHANGED,
+                 ACCOUNT_DEACTIVATED,
+                 PAYMENT_SUCCESS,
+                 SYSTEM -> null;
+        };
+    }
+
+    /**
+     * Проверяет, включены ли уведомления данного типа в маске.
+     */
+    public static boolean isTypeEnabled(int mask, NotificationType type) {
+        NotificationSettingFlag flag = forType(type);
+        return flag == null || flag.isSet(mask);
+    }
+
+    /**
+     * Собирает маску из сущности настроек.
+     */
+    public static int maskOf(NotificationSettings settings) {
+        int mask = 0;
+        mask |= bitIf(PUSH, settings.getPushEnabled());
+        mask |= bitIf(EMAIL, settings.getEmailEnabled());
+        mask |= bitIf(SMS, settings.getSmsEnabled());
+        mask |= bitIf(BOOKING_UPDATES, settings.getBookingUpdates());
+        mask |= bitIf(CHAT_MESSAGES, settings.getChatMessages());
+        mask |= bitIf(PROMOTIONS, settings.getPromotions());
+        mask |= bitIf(EVENT_REMINDERS, settings.getEventReminders());
+        mask |= bitIf(NEW_BOOKINGS, settings.getNewBookings());
+        return mask;
+    }
+
+    private static int bitIf(NotificationSettingFlag flag, Boolean value) {
+        return Boolean.TRUE.equals(value) ? flag.bit : 0;
+    }
+
+    private static int defaultMask() {
+        int mask = 0;
+        for (NotificationSettingFlag flag : values()) {
+            if (flag.enabledByDefault) {
+                mask |= flag.bit;
+            }
+        }
+        return mask;
+    }
+}
@@ -10,5 +10,6 @@ public enum RelatedEntityType {
     REVIEW,
     SUBSCRIPTION,
     USER,
-    CHAT
+    CHAT,
+    BROADCAST
 }
\ No newline at end of file
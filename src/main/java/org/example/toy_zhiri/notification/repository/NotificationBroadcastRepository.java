@@ -0,0 +1,26 @@
+package org.example.toy_zhiri.notification.repository;
+
+import org.example.toy_zhiri.notification.entity.NotificationBroadcast;
+import org.example.toy_zhiri.notification.enums.BroadcastStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationBroadcastRepository extends JpaRepository<NotificationBroadcast, UUID> {
+
+    /**
+     * Все рассылки (новые сверху)
+     */
+    Page<NotificationBroadcast> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    /**
+     * Незавершённые рассылки — для продолжения после рестарта
+     */
+    List<NotificationBroadcast> findByStatusIn(Collection<BroadcastStatus> statuses);
+}
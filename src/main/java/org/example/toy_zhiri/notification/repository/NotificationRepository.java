@@ -1,14 +1,20 @@
 package org.example.toy_zhiri.notification.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.toy_zhiri.notification.entity.Notification;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -25,9 +31,21 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     Page<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
     /**
-     * Количество непрочитанных
+     * Последнее уведомление пользователя данного типа по связанной сущности — с блокировкой строки,
+     * чтобы параллельная пометка прочтения не разошлась со счётчиком непрочитанного.
      */
-    long countByUserIdAndIsReadFalse(UUID userId);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Notification> findFirstByUserIdAndTypeAndRelatedEntityTypeAndRelatedEntityIdOrderByCreatedAtDesc(
+            UUID userId, NotificationType type, RelatedEntityType relatedEntityType, UUID relatedEntityId);
+
+    /**
+     * Пометить уведомление как прочитанное, если оно ещё не прочитано.
+     * Возвращает 0, если его уже прочитал параллельный запрос — счётчик не уменьшается дважды.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
+            "WHERE n.id = :id AND n.isRead = false")
+    int markAsRead(@Param("id") UUID id, @Param("readAt") LocalDateTime readAt);
 
     /**
      * Пометить все уведомления пользователя как прочитанные
@@ -4,6 +4,8 @@ import org.example.toy_zhiri.notification.entity.NotificationSettings;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +14,6 @@ public interface NotificationSettingsRepository extends JpaRepository<Notificati
     Optional<NotificationSettings> findByUserId(UUID userId);
 
     boolean existsByUserId(UUID userId);
+
+    List<NotificationSettings> findAllByUserIdIn(Collection<UUID> userIds);
 }
\ No newline at end of file
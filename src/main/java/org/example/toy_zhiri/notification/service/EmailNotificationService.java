@@ -1,30 +1,17 @@
 package org.example.toy_zhiri.notification.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 /**
  * Сервис отправки email-уведомлений через SMTP.
- * Отправка выполняется асинхронно, чтобы не блокировать основной поток.
+ * Письмо только ставится в очередь MailDeliveryService — вызывающий поток не блокируется
+ * на SMTP, отправка идёт выделенным пулом пачками с повторами.
  */
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class EmailNotificationService {
-    private final JavaMailSender mailSender;
-
-    @Value("${app.mail.from:noreply@toyzhiri.kz}")
-    private String fromAddress;
-
-    @Value("${app.mail.enabled:false}")
-    private boolean mailEnabled;
+    private final MailDeliveryService mailDeliveryService;
 
     /**
      * Отправляет email-уведомление.
@@ -33,28 +20,8 @@ public class EmailNotificationService {
      * @param title   тема письма
      * @param message текст сообщения
      */
-    @Async
     public void send(String to, String title, String message) {
-        if (!mailEnabled) {
-            log.debug("Email-уведомления отключены. Пропускаем отправку на {}", to);
-            return;
-        }
-
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "UTF-8");
-
-            helper.setFrom(fromAddress);
-            helper.setTo(to);
-            helper.setSubject("Toy Zhiri — " + title);
-            helper.setText(buildHtmlContent(title, message), true);
-
-            mailSender.send(mimeMessage);
-            log.info("Email отправлен на {}: {}", to, title);
-
-        } catch (MessagingException e) {
-            log.error("Ошибка отправки email на {}: {}", to, e.getMessage());
-        }
+        mailDeliveryService.submit(to, "Toy Zhiri — " + title, buildHtmlContent(title, message));
     }
 
     /**
@@ -0,0 +1,298 @@
+package org.example.toy_zhiri.notification.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.notification.dto.MailDeliveryStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отправка писем через SMTP выделенным пулом с ограниченной очередью.
+ * <p>
+ * Каждый из app.mail.workers воркеров держит своё SMTP-соединение (Transport) и отправляет
+ * письма пачками до app.mail.batch-size за одну сессию; соединение переиспользуется между
+ * пачками и закрывается после app.mail.idle-timeout-ms простоя. При заполненной очереди
+ * вызывающий поток ждёт до app.mail.offer-timeout-ms, затем письмо отбрасывается.
+ * <p>
+ * Неудачные письма повторяются с экспоненциальной задержкой (app.mail.retry-backoff-ms,
+ * не больше app.mail.max-backoff-ms) до app.mail.max-attempts попыток. Хост и порт берутся
+ * из spring.mail.*, поэтому для тестов подсистему можно направить на локальный SMTP-стенд.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MailDeliveryService {
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${app.mail.enabled:false}")
+    private boolean mailEnabled;
+
+    @Value("${app.mail.from:noreply@toyzhiri.kz}")
+    private String fromAddress;
+
+    @Value("${app.mail.workers:2}")
+    private int workers;
+
+    @Value("${app.mail.queue-capacity:5000}")
+    private int queueCapacity;
+
+    @Value("${app.mail.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.mail.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.mail.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    @Value("${app.mail.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${app.mail.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    @Value("${app.mail.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${app.mail.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    private BlockingQueue<OutgoingMail> queue;
+    private ExecutorService executor;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("mail-worker-"));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-retry-"));
+        running = true;
+
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::runWorker);
+        }
+        log.info("MailDeliveryService: запущено {} воркеров, очередь {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+        if (!queue.isEmpty()) {
+            dropped.addAndGet(queue.size());
+            log.warn("MailDeliveryService: при остановке не отправлено {} писем", queue.size());
+        }
+    }
+
+    /**
+     * Ставит письмо в очередь отправки.
+     *
+     * @param to      email получателя
+     * @param subject тема письма
+     * @param html    HTML-содержимое
+     * @return true, если письмо принято (или отправка писем отключена)
+     */
+    public boolean submit(String to, String subject, String html) {
+        if (!mailEnabled) {
+            log.debug("Email-уведомления отключены. Пропускаем отправку на {}", to);
+            return true;
+        }
+
+        boolean accepted = offer(new OutgoingMail(to, subject, html, 1));
+        if (accepted) {
+            enqueued.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    /**
+     * Текущее состояние подсистемы.
+     */
+    public MailDeliveryStatsResponse getStats() {
+        return MailDeliveryStatsResponse.builder()
+                .enabled(mailEnabled)
+                .workers(workers)
+                .queueDepth(queue.size())
+                .queueCapacity(queueCapacity)
+                .enqueued(enqueued.get())
+                .sent(sent.get())
+                .retried(retried.get())
+                .failed(failed.get())
+                .dropped(dropped.get())
+                .batches(batches.get())
+                .connectionsOpened(connectionsOpened.get())
+                .build();
+    }
+
+    private boolean offer(OutgoingMail mail) {
+        boolean accepted;
+        try {
+            accepted = queue.offer(mail, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            dropped.incrementAndGet();
+            log.warn("Очередь писем переполнена ({}), письмо на {} отброшено", queueCapacity, mail.to());
+        }
+        return accepted;
+    }
+
+    private void runWorker() {
+        SmtpConnection connection = new SmtpConnection();
+        try {
+            while (running || !queue.isEmpty()) {
+                OutgoingMail first = queue.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    connection.closeIfIdle();
+                    continue;
+                }
+
+                List<OutgoingMail> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(connection, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Отправляет пачку писем в рамках одной SMTP-сессии.
+     */
+    private void sendBatch(SmtpConnection connection, List<OutgoingMail> batch) {
+        batches.incrementAndGet();
+
+        for (OutgoingMail mail : batch) {
+            try {
+                MimeMessage message = buildMessage(mail);
+                connection.send(message);
+                sent.incrementAndGet();
+                log.info("Email отправлен на {}: {}", mail.to(), mail.subject());
+            } catch (MessagingException | RuntimeException e) {
+                // Соединение могло оборваться — следующее письмо откроет новое
+                connection.close();
+                scheduleRetry(mail, e);
+            }
+        }
+    }
+
+    private void scheduleRetry(OutgoingMail mail, Exception cause) {
+        if (mail.attempt() >= maxAttempts || !running) {
+            failed.incrementAndGet();
+            log.error("Ошибка отправки email на {} (попытка {}): {}", mail.to(), mail.attempt(), cause.getMessage());
+            return;
+        }
+
+        long delay = Math.min(retryBackoffMs << (mail.attempt() - 1), maxBackoffMs);
+        retried.incrementAndGet();
+        log.warn("Ошибка отправки email на {} (попытка {}), повтор через {} мс: {}",
+                mail.to(), mail.attempt(), delay, cause.getMessage());
+
+        OutgoingMail next = new OutgoingMail(mail.to(), mail.subject(), mail.html(), mail.attempt() + 1);
+        retryScheduler.schedule(() -> offer(next), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private MimeMessage buildMessage(OutgoingMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+
+        helper.setFrom(fromAddress);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.html(), true);
+        message.saveChanges();
+        return message;
+    }
+
+    /**
+     * Письмо в очереди; attempt — номер попытки, начиная с 1.
+     */
+    private record OutgoingMail(String to, String subject, String html, int attempt) {
+    }
+
+    /**
+     * SMTP-соединение воркера. Используется только потоком-владельцем.
+     */
+    private final class SmtpConnection {
+        private Transport transport;
+        private long lastUsedAt;
+
+        void send(MimeMessage message) throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                open();
+            }
+            Address[] recipients = message.getAllRecipients();
+            transport.sendMessage(message, recipients);
+            lastUsedAt = System.currentTimeMillis();
+        }
+
+        void closeIfIdle() {
+            if (transport != null && System.currentTimeMillis() - lastUsedAt > idleTimeoutMs) {
+                close();
+            }
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Ошибка закрытия SMTP-соединения: {}", e.getMessage());
+            }
+            transport = null;
+        }
+
+        private void open() throws MessagingException {
+            close();
+            transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            String username = mailSender.getUsername();
+            transport.connect(mailSender.getHost(), mailSender.getPort(),
+                    username != null && !username.isBlank() ? username : null,
+                    mailSender.getPassword());
+            connectionsOpened.incrementAndGet();
+        }
+    }
+}
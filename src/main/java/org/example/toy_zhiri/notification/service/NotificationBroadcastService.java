@@ -0,0 +1,366 @@
+package org.example.toy_zhiri.notification.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.exception.NotFoundException;
+import org.example.toy_zhiri.notification.dto.BroadcastResponse;
+import org.example.toy_zhiri.notification.dto.CreateBroadcastRequest;
+import org.example.toy_zhiri.notification.entity.NotificationBroadcast;
+import org.example.toy_zhiri.notification.enums.BroadcastStatus;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+import org.example.toy_zhiri.notification.repository.NotificationBroadcastRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Массовые рассылки уведомлений типа PROMOTION.
+ * <p>
+ * Получатели выбираются одним запросом users JOIN notification_settings (promotions = true)
+ * порциями по app.broadcasts.chunk-size в порядке users.id. Каждая порция — одна транзакция:
+ * INSERT ... SELECT уведомлений, инкремент users.unread_notifications_count и сдвиг курсора
+ * рассылки. Строка рассылки блокируется на время порции, поэтому параллельный запуск
+ * (например, на другом экземпляре после рестарта) не создаёт дублей.
+ * <p>
+ * Письма отправляются вторым проходом тем же способом, но с ограничением
+ * app.broadcasts.email-rate-per-second, чтобы не перегружать SMTP. Курсор писем сдвигается
+ * до отправки порции: при остановке приложения часть писем порции может быть не отправлена,
+ * но повторно письма не уходят. SMS для рассылок не используются.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationBroadcastService {
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private static final String LOCK_BROADCAST_SQL = """
+            SELECT status, title, message, send_email, cursor_user_id, email_cursor_user_id
+            FROM notification_broadcasts
+            WHERE id = :id
+            FOR UPDATE
+            """;
+
+    // Порция in-app уведомлений: выборка, вставка и инкремент счётчика непрочитанного
+    // (тот же столбец, что у CounterType.USER_UNREAD_NOTIFICATIONS) одним запросом
+    private static final String INSERT_CHUNK_SQL = """
+            WITH batch AS (
+                SELECT u.id, u.email
+                FROM users u
+                JOIN notification_settings s ON s.user_id = u.id
+                WHERE s.promotions = true
+                  AND u.is_active = true
+                  AND u.id > :after
+                ORDER BY u.id
+                LIMIT :limit
+            ),
+            inserted AS (
+                INSERT INTO notifications (user_id, type, title, message, is_read, related_entity_type, related_entity_id)
+                SELECT b.id, :type, :title, :message, false, :relatedEntityType, :broadcastId
+                FROM batch b
+            ),
+            counted AS (
+                UPDATE users u
+                SET unread_notifications_count = u.unread_notifications_count + 1
+                FROM batch b
+                WHERE u.id = b.id
+            )
+            SELECT b.id, b.email FROM batch b ORDER BY b.id
+            """;
+
+    private static final String SELECT_EMAIL_CHUNK_SQL = """
+            SELECT u.id, u.email
+            FROM users u
+            JOIN notification_settings s ON s.user_id = u.id
+            WHERE s.promotions = true
+              AND s.email_enabled = true
+              AND u.is_active = true
+              AND u.email IS NOT NULL
+              AND u.id > :after
+            ORDER BY u.id
+            LIMIT :limit
+            """;
+
+    private final NotificationBroadcastRepository broadcastRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailNotificationService emailNotificationService;
+    private final NotificationPushService pushService;
+
+    @Value("${app.broadcasts.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.broadcasts.email-rate-per-second:20}")
+    private int emailRatePerSecond;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("notification-broadcast-"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Прерываем текущую рассылку — она продолжится с курсора после рестарта
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Продолжает незавершённые рассылки после старта приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        broadcastRepository.findByStatusIn(List.of(
+                        BroadcastStatus.PENDING, BroadcastStatus.IN_APP, BroadcastStatus.EMAIL))
+                .forEach(broadcast -> {
+                    log.info("Продолжение рассылки {} со статусом {}", broadcast.getId(), broadcast.getStatus());
+                    executor.submit(() -> run(broadcast.getId()));
+                });
+    }
+
+    /**
+     * Создаёт рассылку и запускает её в фоне.
+     *
+     * @param adminId идентификатор администратора
+     * @param request заголовок, текст и флаг email
+     * @return BroadcastResponse DTO созданной рассылки
+     */
+    public BroadcastResponse createBroadcast(UUID adminId, CreateBroadcastRequest request) {
+        NotificationBroadcast broadcast = broadcastRepository.save(NotificationBroadcast.builder()
+                .title(request.getTitle())
+                .message(request.getMessage())
+                .sendEmail(request.getSendEmail())
+                .status(BroadcastStatus.PENDING)
+                .createdBy(adminId)
+                .build());
+
+        executor.submit(() -> run(broadcast.getId()));
+        log.info("Рассылка {} создана администратором {}", broadcast.getId(), adminId);
+
+        return mapToResponse(broadcast);
+    }
+
+    /**
+     * Возвращает рассылку с текущим прогрессом.
+     *
+     * @param broadcastId идентификатор рассылки
+     * @return BroadcastResponse DTO рассылки
+     * @throws NotFoundException если рассылка не найдена
+     */
+    public BroadcastResponse getBroadcast(UUID broadcastId) {
+        return broadcastRepository.findById(broadcastId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new NotFoundException("Рассылка не найдена"));
+    }
+
+    /**
+     * Возвращает все рассылки (новые сверху).
+     */
+    public Page<BroadcastResponse> getBroadcasts(Pageable pageable) {
+        return broadcastRepository.findAllByOrderByCreatedAtDesc(pageable)
+                .map(this::mapToResponse);
+    }
+
+    /**
+     * Выполняет рассылку до конца или до остановки потока.
+     */
+    private void run(UUID broadcastId) {
+        try {
+            jdbcTemplate.update("""
+                    UPDATE notification_broadcasts
+                    SET status = 'IN_APP', started_at = NOW()
+                    WHERE id = :id AND status = 'PENDING'
+                    """, new MapSqlParameterSource("id", broadcastId));
+
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Map<String, Object>> recipients = transactionTemplate.execute(tx -> processInAppChunk(broadcastId));
+                if (recipients == null) {
+                    break;
+                }
+                // Онлайн-получатели сразу видят новый счётчик; офлайн — ничего не стоят
+                recipients.forEach(row -> pushService.pushUnreadCounts((UUID) row.get("id"), (String) row.get("email")));
+            }
+
+            while (!Thread.currentThread().isInterrupted()) {
+                BroadcastEmailChunk chunk = transactionTemplate.execute(tx -> claimEmailChunk(broadcastId));
+                if (chunk == null) {
+                    break;
+                }
+                sendEmails(chunk);
+            }
+        } catch (RuntimeException e) {
+            log.error("Рассылка {} прервана ошибкой: {}", broadcastId, e.getMessage(), e);
+            jdbcTemplate.update("""
+                    UPDATE notification_broadcasts
+                    SET status = 'FAILED', error_message = :error, finished_at = NOW()
+                    WHERE id = :id
+                    """, new MapSqlParameterSource()
+                    .addValue("id", broadcastId)
+                    .addValue("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Создаёт in-app уведомления для очередной порции получателей.
+     *
+     * @return получатели порции или null, если этап in-app уведомлений завершён
+     */
+    private List<Map<String, Object>> processInAppChunk(UUID broadcastId) {
+        Map<String, Object> state = lockBroadcast(broadcastId);
+        if (!BroadcastStatus.IN_APP.name().equals(state.get("status"))) {
+            return null;
+        }
+
+        UUID after = state.get("cursor_user_id") != null ? (UUID) state.get("cursor_user_id") : MIN_UUID;
+        List<Map<String, Object>> recipients = jdbcTemplate.queryForList(INSERT_CHUNK_SQL, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", chunkSize)
+                .addValue("type", NotificationType.PROMOTION.name())
+                .addValue("title", state.get("title"))
+                .addValue("message", state.get("message"))
+                .addValue("relatedEntityType", RelatedEntityType.BROADCAST.name())
+                .addValue("broadcastId", broadcastId));
+
+        if (recipients.isEmpty()) {
+            boolean sendEmail = Boolean.TRUE.equals(state.get("send_email"));
+            finishPhase(broadcastId, sendEmail ? BroadcastStatus.EMAIL : BroadcastStatus.COMPLETED);
+            log.info("Рассылка {}: in-app уведомления созданы", broadcastId);
+            return null;
+        }
+
+        jdbcTemplate.update("""
+                UPDATE notification_broadcasts
+                SET cursor_user_id = :cursor, recipients_count = recipients_count + :count
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", broadcastId)
+                .addValue("cursor", recipients.get(recipients.size() - 1).get("id"))
+                .addValue("count", recipients.size()));
+
+        return recipients;
+    }
+
+    /**
+     * Забирает очередную порцию адресов для писем и сдвигает курсор до отправки.
+     *
+     * @return порция или null, если письма отправлены всем
+     */
+    private BroadcastEmailChunk claimEmailChunk(UUID broadcastId) {
+        Map<String, Object> state = lockBroadcast(broadcastId);
+        if (!BroadcastStatus.EMAIL.name().equals(state.get("status"))) {
+            return null;
+        }
+
+        UUID after = state.get("email_cursor_user_id") != null ? (UUID) state.get("email_cursor_user_id") : MIN_UUID;
+        List<Map<String, Object>> recipients = jdbcTemplate.queryForList(SELECT_EMAIL_CHUNK_SQL, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", chunkSize));
+
+        if (recipients.isEmpty()) {
+            finishPhase(broadcastId, BroadcastStatus.COMPLETED);
+            log.info("Рассылка {} завершена", broadcastId);
+            return null;
+        }
+
+        jdbcTemplate.update("""
+                UPDATE notification_broadcasts
+                SET email_cursor_user_id = :cursor
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", broadcastId)
+                .addValue("cursor", recipients.get(recipients.size() - 1).get("id")));
+
+        return new BroadcastEmailChunk(broadcastId,
+                (String) state.get("title"),
+                (String) state.get("message"),
+                recipients.stream().map(row -> (String) row.get("email")).toList());
+    }
+
+    /**
+     * Отправляет письма порции не быстрее app.broadcasts.email-rate-per-second.
+     */
+    private void sendEmails(BroadcastEmailChunk chunk) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(emailRatePerSecond, 1);
+        long nextSendAt = System.nanoTime();
+        int sent = 0;
+
+        for (String email : chunk.emails()) {
+            long waitNanos = nextSendAt - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            emailNotificationService.send(email, chunk.title(), chunk.message());
+            nextSendAt += intervalNanos;
+            sent++;
+        }
+
+        jdbcTemplate.update("""
+                UPDATE notification_broadcasts
+                SET emails_sent = emails_sent + :sent
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", chunk.broadcastId())
+                .addValue("sent", sent));
+    }
+
+    private Map<String, Object> lockBroadcast(UUID broadcastId) {
+        return jdbcTemplate.queryForMap(LOCK_BROADCAST_SQL, new MapSqlParameterSource("id", broadcastId));
+    }
+
+    private void finishPhase(UUID broadcastId, BroadcastStatus next) {
+        jdbcTemplate.update("""
+                UPDATE notification_broadcasts
+                SET status = :status,
+                    finished_at = CASE WHEN :status = 'COMPLETED' THEN NOW() END
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", broadcastId)
+                .addValue("status", next.name()));
+    }
+
+    private BroadcastResponse mapToResponse(NotificationBroadcast broadcast) {
+        return BroadcastResponse.builder()
+                .id(broadcast.getId())
+                .title(broadcast.getTitle())
+                .message(broadcast.getMessage())
+                .sendEmail(broadcast.getSendEmail())
+                .status(broadcast.getStatus().name())
+                .recipientsCount(broadcast.getRecipientsCount() != null ? broadcast.getRecipientsCount() : 0L)
+                .emailsSent(broadcast.getEmailsSent() != null ? broadcast.getEmailsSent() : 0L)
+                .errorMessage(broadcast.getErrorMessage())
+                .createdAt(broadcast.getCreatedAt())
+                .startedAt(broadcast.getStartedAt())
+                .finishedAt(broadcast.getFinishedAt())
+                .build();
+    }
+
+    private record BroadcastEmailChunk(UUID broadcastId, String title, String message, List<String> emails) {
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.toy_zhiri.notification.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
+import org.example.toy_zhiri.notification.dto.NotificationDraft;
+import org.example.toy_zhiri.notification.entity.Notification;
+import org.example.toy_zhiri.notification.enums.NotificationSettingFlag;
+import org.example.toy_zhiri.notification.repository.NotificationRepository;
+import org.example.toy_zhiri.user.entity.User;
+import org.example.toy_zhiri.user.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Доставка пачки уведомлений: in-app запись и каналы SMS/email.
+ * <p>
+ * Пользователи загружаются одним запросом на всю пачку, настройки берутся из
+ * NotificationSettingsCache — одна маска на получателя вместо запроса на каждую проверку. Уведомления
+ * сохраняются через saveAll, что при hibernate.jdbc.batch_size даёт JDBC batch insert,
+ * и после коммита публикуются онлайн-получателям через NotificationPushService.
+ * <p>
+ * SMS и email тоже уходят только после коммита: INSERT-ы уведомлений выполняются при flush,
+ * и откат пачки не должен оставлять уже отправленные письма, которые повторятся при
+ * повторной доставке. Ошибка канала логируется и не влияет на остальные уведомления.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDeliveryService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationSettingsCache settingsCache;
+    private final UserRepository userRepository;
+    private final SmsNotificationService smsNotificationService;
+    private final EmailNotificationService emailNotificationService;
+    private final NotificationPushService pushService;
+    private final CounterService counterService;
+
+    /**
+     * Доставляет пачку уведомлений с учётом настроек получателей.
+     *
+     * @param drafts подготовленные уведомления
+     * @return количество созданных уведомлений (без отключённых в настройках)
+     */
+    @Transactional
+    public int deliver(Collection<NotificationDraft> drafts) {
+        if (drafts.isEmpty()) {
+            return 0;
+        }
+
+        Set<UUID> userIds = drafts.stream()
+                .map(NotificationDraft::getUserId)
+                .collect(Collectors.toSet());
+
+        Map<UUID, Integer> masks = settingsCache.getMasks(userIds);
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Notification> notifications = new ArrayList<>();
+        List<NotificationDraft> delivered = new ArrayList<>();
+        for (NotificationDraft draft : drafts) {
+            User user = users.get(draft.getUserId());
+            if (user == null) {
+                log.warn("Получатель уведомления {} не найден, пропускаем", draft.getUserId());
+                continue;
+            }
+            if (!NotificationSettingFlag.isTypeEnabled(masks.get(draft.getUserId()), draft.getType())) {
+                log.debug("Уведомление {} для пользователя {} отключено в настройках", draft.getType(), user.getId());
+                continue;
+            }
+
+            notifications.add(Notification.builder()
+                    .user(user)
+                    .type(draft.getType())
+                    .title(draft.getTitle())
+                    .message(draft.getMessage())
+                    .isRead(false)
+                    .relatedEntityType(draft.getRelatedEntityType())
+                    .relatedEntityId(draft.getRelatedEntityId())
+                    .build());
+            delivered.add(draft);
+        }
+
+        notificationRepository.saveAll(notifications);
+        counterService.addAll(CounterType.USER_UNREAD_NOTIFICATIONS, delivered.stream()
+                .collect(Collectors.groupingBy(NotificationDraft::getUserId, Collectors.counting())));
+        pushService.pushCreated(notifications);
+
+        TransactionCallbacks.afterCommit(() -> {
+            for (NotificationDraft draft : delivered) {
+                User user = users.get(draft.getUserId());
+                int mask = masks.get(draft.getUserId());
+
+                // SMS-канал
+                dispatchSms(user, mask, draft.getTitle(), draft.getMessage());
+
+                // Email-канал
+                dispatchEmail(user, mask, draft.getTitle(), draft.getMessage());
+            }
+        });
+
+        log.info("Доставлено {} уведомлений из {}", notifications.size(), drafts.size());
+        return notifications.size();
+    }
+
+    /**
+     * Отправляет SMS, если канал включён в настройках пользователя.
+     */
+    private void dispatchSms(User user, int mask, String title, String message) {
+        boolean smsEnabled = NotificationSettingFlag.SMS.isSet(mask);
+
+        if (smsEnabled && user.getPhone() != null && !user.getPhone().isBlank()) {
+            try {
+                smsNotificationService.send(user.getPhone(), title, message);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось отправить SMS пользователю {}: {}", user.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Отправляет email, если канал включён в настройках пользователя.
+     */
+    private void dispatchEmail(User user, int mask, String title, String message) {
+        boolean emailEnabled = NotificationSettingFlag.EMAIL.isSet(mask);
+
+        if (emailEnabled && user.getEmail() != null && !user.getEmail().isBlank()) {
+            try {
+                emailNotificationService.send(user.getEmail(), title, message);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось отправить email пользователю {}: {}", user.getId(), e.getMessage());
+            }
+        }
+    }
+}
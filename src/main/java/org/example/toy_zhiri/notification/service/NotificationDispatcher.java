@@ -0,0 +1,400 @@
+package org.example.toy_zhiri.notification.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.notification.dto.NotificationDraft;
+import org.example.toy_zhiri.notification.dto.NotificationPipelineStatsResponse;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронный конвейер доставки уведомлений.
+ * <p>
+ * NotificationService.send только публикует уведомление; запись в БД и отправка по каналам
+ * выполняются пулом из app.notifications.workers воркеров пачками до app.notifications.batch-size.
+ * <p>
+ * Два режима:
+ * <ul>
+ *   <li>в памяти (по умолчанию) — уведомление попадает в ограниченную очередь после коммита
+ *   транзакции-источника; при заполненной очереди вызывающий поток ждёт до
+ *   app.notifications.offer-timeout-ms, затем уведомление отбрасывается (счётчик dropped);</li>
+ *   <li>персистентный (app.notifications.persistent-queue=true) — уведомление пишется в
+ *   notification_outbox в транзакции-источнике, воркеры забирают строки через
+ *   FOR UPDATE SKIP LOCKED и удаляют их в одной транзакции с доставкой. Если пачка не
+ *   доставляется, строки доставляются по одной; неудачные откладываются с экспоненциальной
+ *   задержкой и после app.notifications.max-attempts попыток уходят в notification_outbox_dead.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+    private static final String MODE_MEMORY = "MEMORY";
+    private static final String MODE_PERSISTENT = "PERSISTENT";
+
+    private static final String INSERT_OUTBOX_SQL = """
+            INSERT INTO notification_outbox
+                (user_id, type, title, message, related_entity_type, related_entity_id)
+            VALUES (:userId, :type, :title, :message, :relatedEntityType, :relatedEntityId)
+            """;
+
+    private static final String CLAIM_OUTBOX_SQL = """
+            DELETE FROM notification_outbox
+            WHERE id IN (
+                SELECT id FROM notification_outbox
+                WHERE next_attempt_at <= NOW()
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, user_id, type, title, message, related_entity_type, related_entity_id
+            """;
+
+    private static final String CLAIM_OUTBOX_ROW_SQL = """
+            DELETE FROM notification_outbox
+            WHERE id IN (
+                SELECT id FROM notification_outbox
+                WHERE id = :id
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, user_id, type, title, message, related_entity_type, related_entity_id
+            """;
+
+    private static final String POSTPONE_OUTBOX_ROW_SQL = """
+            UPDATE notification_outbox
+            SET attempts = attempts + 1,
+                next_attempt_at = NOW() + make_interval(secs => LEAST(:maxBackoffMs, :backoffMs * power(2, attempts)) / 1000.0),
+                last_error = :error
+            WHERE id = :id
+            RETURNING attempts
+            """;
+
+    private static final String DEAD_LETTER_OUTBOX_ROW_SQL = """
+            WITH moved AS (
+                DELETE FROM notification_outbox WHERE id = :id
+                RETURNING id, user_id, type, title, message, related_entity_type, related_entity_id,
+                          created_at, attempts, last_error
+            )
+            INSERT INTO notification_outbox_dead
+                (id, user_id, type, title, message, related_entity_type, related_entity_id,
+                 created_at, attempts, last_error)
+            SELECT id, user_id, type, title, message, related_entity_type, related_entity_id,
+                   created_at, attempts, last_error
+            FROM moved
+            """;
+
+    private final NotificationDeliveryService deliveryService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.persistent-queue:false}")
+    private boolean persistent;
+
+    @Value("${app.notifications.workers:2}")
+    private int workers;
+
+    @Value("${app.notifications.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.notifications.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.notifications.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.notifications.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.notifications.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${app.notifications.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    private final Object outboxSignal = new Object();
+
+    private BlockingQueue<NotificationDraft> queue;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("notification-worker-"));
+        running = true;
+
+        for (int i = 0; i < workers; i++) {
+            executor.execute(persistent ? this::runOutboxWorker : this::runQueueWorker);
+        }
+        log.info("NotificationDispatcher: запущено {} воркеров, режим {}", workers, persistent ? MODE_PERSISTENT : MODE_MEMORY);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (outboxSignal) {
+            outboxSignal.notifyAll();
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+        if (!queue.isEmpty()) {
+            dropped.addAndGet(queue.size());
+            log.warn("NotificationDispatcher: при остановке не доставлено {} уведомлений", queue.size());
+        }
+    }
+
+    /**
+     * Публикует уведомление. Внутри транзакции доставка начнётся только после её коммита,
+     * при откате уведомление не отправится.
+     *
+     * @param draft уведомление
+     */
+    public void publish(NotificationDraft draft) {
+        if (persistent) {
+            // Строка очереди коммитится вместе с бизнес-операцией; воркеров будим после коммита
+            jdbcTemplate.update(INSERT_OUTBOX_SQL, toParams(draft));
+            enqueued.incrementAndGet();
+            TransactionCallbacks.afterCommit(this::signalOutboxWorkers);
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> enqueue(draft));
+    }
+
+    /**
+     * Текущее состояние конвейера.
+     */
+    public NotificationPipelineStatsResponse getStats() {
+        long depth = persistent
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox", new MapSqlParameterSource(), Long.class)
+                : queue.size();
+
+        return NotificationPipelineStatsResponse.builder()
+                .mode(persistent ? MODE_PERSISTENT : MODE_MEMORY)
+                .workers(workers)
+                .queueDepth(depth)
+                .queueCapacity(persistent ? null : queueCapacity)
+                .enqueued(enqueued.get())
+                .delivered(delivered.get())
+                .dropped(dropped.get())
+                .failed(failed.get())
+                .deadLettered(deadLettered.get())
+                .build();
+    }
+
+    private void enqueue(NotificationDraft draft) {
+        boolean accepted;
+        try {
+            accepted = queue.offer(draft, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            log.warn("Очередь уведомлений переполнена ({}), уведомление {} для {} отброшено",
+                    queueCapacity, draft.getType(), draft.getUserId());
+        }
+    }
+
+    private void runQueueWorker() {
+        while (running || !queue.isEmpty()) {
+            try {
+                NotificationDraft first = queue.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<NotificationDraft> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliverBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliverBatch(List<NotificationDraft> batch) {
+        try {
+            deliveryService.deliver(batch);
+            delivered.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // Пачка откатилась целиком, каналы не отправлялись — доставляем по одному,
+            // чтобы одно «ядовитое» уведомление не теряло остальные
+            log.warn("Не удалось доставить пачку из {} уведомлений, доставляем по одному", batch.size(), e);
+            batch.forEach(this::deliverOne);
+        }
+    }
+
+    private void deliverOne(NotificationDraft draft) {
+        try {
+            deliveryService.deliver(List.of(draft));
+            delivered.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("Не удалось доставить уведомление {} для {}", draft.getType(), draft.getUserId(), e);
+        }
+    }
+
+    private void runOutboxWorker() {
+        while (running) {
+            List<Long> claimedIds = new ArrayList<>();
+            int claimed;
+            try {
+                claimed = transactionTemplate.execute(status -> {
+                    List<OutboxRow> batch = jdbcTemplate.query(
+                            CLAIM_OUTBOX_SQL, new MapSqlParameterSource("limit", batchSize), this::mapOutboxRow);
+                    batch.forEach(row -> claimedIds.add(row.id()));
+                    deliveryService.deliver(batch.stream().map(OutboxRow::draft).toList());
+                    return batch.size();
+                });
+                delivered.addAndGet(claimed);
+            } catch (RuntimeException e) {
+                // Транзакция откатилась — строки остались в очереди, а SMS/email не отправлялись
+                // (каналы срабатывают после коммита). Доставляем их по одной,
+                // чтобы одна «ядовитая» строка не блокировала остальные
+                log.warn("Не удалось доставить пачку из {} уведомлений notification_outbox, доставляем по одной",
+                        claimedIds.size(), e);
+                claimed = claimedIds.size();
+                claimedIds.forEach(this::deliverOutboxRow);
+            }
+
+            if (claimed < batchSize && !awaitOutboxSignal()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Доставляет одну строку outbox в своей транзакции. При ошибке строка откладывается
+     * с экспоненциальной задержкой, а после app.notifications.max-attempts попыток
+     * переносится в notification_outbox_dead.
+     */
+    private void deliverOutboxRow(long id) {
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<OutboxRow> rows = jdbcTemplate.query(
+                        CLAIM_OUTBOX_ROW_SQL, new MapSqlParameterSource("id", id), this::mapOutboxRow);
+                deliveryService.deliver(rows.stream().map(OutboxRow::draft).toList());
+                return rows.size();
+            });
+            delivered.addAndGet(count != null ? count : 0);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            recordOutboxFailure(id, e);
+        }
+    }
+
+    private void recordOutboxFailure(long id, RuntimeException cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("id", id)
+                        .addValue("backoffMs", retryBackoffMs)
+                        .addValue("maxBackoffMs", maxBackoffMs)
+                        .addValue("error", String.valueOf(cause.getMessage()));
+                List<Integer> attempts = jdbcTemplate.queryForList(POSTPONE_OUTBOX_ROW_SQL, params, Integer.class);
+                if (attempts.isEmpty()) {
+                    return;
+                }
+
+                if (attempts.get(0) >= maxAttempts) {
+                    jdbcTemplate.update(DEAD_LETTER_OUTBOX_ROW_SQL, new MapSqlParameterSource("id", id));
+                    deadLettered.incrementAndGet();
+                    log.error("Уведомление {} из notification_outbox перенесено в dead-letter после {} попыток",
+                            id, attempts.get(0), cause);
+                } else {
+                    log.warn("Уведомление {} из notification_outbox не доставлено (попытка {}), повтор отложен: {}",
+                            id, attempts.get(0), cause.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось отметить неудачную доставку уведомления {} из notification_outbox", id, e);
+        }
+    }
+
+    private OutboxRow mapOutboxRow(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboxRow(rs.getLong("id"), NotificationDraft.builder()
+                .userId(rs.getObject("user_id", UUID.class))
+                .type(NotificationType.valueOf(rs.getString("type")))
+                .title(rs.getString("title"))
+                .message(rs.getString("message"))
+                .relatedEntityType(rs.getString("related_entity_type") != null
+                        ? RelatedEntityType.valueOf(rs.getString("related_entity_type"))
+                        : null)
+                .relatedEntityId(rs.getObject("related_entity_id", UUID.class))
+                .build());
+    }
+
+    private boolean awaitOutboxSignal() {
+        synchronized (outboxSignal) {
+            try {
+                outboxSignal.wait(pollIntervalMs);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void signalOutboxWorkers() {
+        synchronized (outboxSignal) {
+            outboxSignal.notifyAll();
+        }
+    }
+
+    private MapSqlParameterSource toParams(NotificationDraft draft) {
+        return new MapSqlParameterSource()
+                .addValue("userId", draft.getUserId())
+                .addValue("type", draft.getType().name())
+                .addValue("title", draft.getTitle())
+                .addValue("message", draft.getMessage())
+                .addValue("relatedEntityType", draft.getRelatedEntityType() != null
+                        ? draft.getRelatedEntityType().name()
+                        : null)
+                .addValue("relatedEntityId", draft.getRelatedEntityId());
+    }
+
+    private record OutboxRow(long id, NotificationDraft draft) {
+    }
+}
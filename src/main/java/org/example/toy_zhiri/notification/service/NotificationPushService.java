@@ -0,0 +1,152 @@
+package org.example.toy_zhiri.notification.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.notification.dto.NotificationPushEvent;
+import org.example.toy_zhiri.notification.dto.NotificationResponse;
+import org.example.toy_zhiri.notification.entity.Notification;
+import org.example.toy_zhiri.notification.enums.NotificationPushEventType;
+import org.example.toy_zhiri.user.repository.UserRepository;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Реалтайм-доставка уведомлений и счётчиков непрочитанного через STOMP.
+ * <p>
+ * Все события уходят в персональную очередь /user/queue/notifications
+ * (имя STOMP-пользователя — email, см. StompPrincipal) и только после коммита
+ * транзакции, в которой изменились данные. Счётчики считаются лишь для
+ * пользователей с открытой WebSocket-сессией — офлайн-пользователи запросов
+ * к БД не создают.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushService {
+    private static final String DESTINATION = "/queue/notifications";
+
+    private final UserRepository userRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+
+    /**
+     * Публикует созданные уведомления их получателям после коммита.
+     * Счётчики считаются один раз на получателя, а не на каждое уведомление.
+     *
+     * @param notifications сохранённые уведомления (с загруженным пользователем)
+     */
+    public void pushCreated(Collection<Notification> notifications) {
+        push(notifications, NotificationPushEventType.NOTIFICATION_CREATED);
+    }
+
+    /**
+     * Публикует изменённое на месте уведомление его получателю после коммита —
+     * клиент заменяет запись с тем же id, а не добавляет новую.
+     *
+     * @param notification сохранённое уведомление (с загруженным пользователем)
+     */
+    public void pushUpdated(Notification notification) {
+        push(List.of(notification), NotificationPushEventType.NOTIFICATION_UPDATED);
+    }
+
+    /**
+     * Публикует актуальные счётчики непрочитанного пользователю после коммита.
+     *
+     * @param userId идентификатор пользователя
+     * @param email  email пользователя (имя STOMP-пользователя)
+     */
+    public void pushUnreadCounts(UUID userId, String email) {
+        TransactionCallbacks.afterCommit(() -> {
+            if (isOnline(email)) {
+                send(email, buildCountsEvent(userId));
+            }
+        });
+    }
+
+    /**
+     * Собирает событие со счётчиками непрочитанного пользователя
+     * (денормализованные счётчики, одно чтение по PK).
+     *
+     * @param userId идентификатор пользователя
+     * @return событие UNREAD_COUNTS
+     */
+    public NotificationPushEvent buildCountsEvent(UUID userId) {
+        NotificationPushEvent.NotificationPushEventBuilder event = NotificationPushEvent.builder()
+                .type(NotificationPushEventType.UNREAD_COUNTS);
+        userRepository.findUnreadCounters(userId).ifPresent(counters -> event
+                .unreadNotifications(counters.getNotifications())
+                .unreadChatMessages(counters.getChatMessages()));
+        return event.build();
+    }
+
+    private void push(Collection<Notification> notifications, NotificationPushEventType type) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, List<Notification>> byUser = new LinkedHashMap<>();
+        Map<UUID, String> emails = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            UUID userId = notification.getUser().getId();
+            byUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(notification);
+            emails.put(userId, notification.getUser().getEmail());
+        }
+
+        TransactionCallbacks.afterCommit(() -> byUser.forEach((userId, userNotifications) -> {
+            String email = emails.get(userId);
+            if (!isOnline(email)) {
+                return;
+            }
+
+            NotificationPushEvent counts = buildCountsEvent(userId);
+            for (Notification notification : userNotifications) {
+                send(email, NotificationPushEvent.builder()
+                        .type(type)
+                        .notification(mapToResponse(notification))
+                        .unreadNotifications(counts.getUnreadNotifications())
+                        .unreadChatMessages(counts.getUnreadChatMessages())
+                        .build());
+            }
+        }));
+    }
+
+    private boolean isOnline(String email) {
+        return email != null && simpUserRegistry.getUser(email) != null;
+    }
+
+    private void send(String email, NotificationPushEvent event) {
+        try {
+            messagingTemplate.convertAndSendToUser(email, DESTINATION, event);
+        } catch (Exception e) {
+            // Доставка в сокет — best effort: клиент догонит состояние при переподключении
+            log.warn("Не удалось отправить событие {} пользователю {}: {}", event.getType(), email, e.getMessage());
+        }
+    }
+
+    private NotificationResponse mapToResponse(Notification notification) {
+        return NotificationResponse.builder()
+                .id(notification.getId())
+                .type(notification.getType().name())
+                .title(notification.getTitle())
+                .message(notification.getMessage())
+                .isRead(notification.getIsRead())
+                .relatedEntityType(
+                        notification.getRelatedEntityType() != null
+                                ? notification.getRelatedEntityType().name()
+                                : null
+                )
+                .relatedEntityId(notification.getRelatedEntityId())
+                .createdAt(notification.getCreatedAt())
+                .readAt(notification.getReadAt())
+                .build();
+    }
+}
@@ -4,17 +4,18 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.admin.dto.MessageResponse;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.exception.AccessDeniedException;
 import org.example.toy_zhiri.exception.NotFoundException;
+import org.example.toy_zhiri.notification.dto.NotificationDraft;
 import org.example.toy_zhiri.notification.dto.NotificationResponse;
 import org.example.toy_zhiri.notification.dto.TestNotificationRequest;
 import org.example.toy_zhiri.notification.dto.UnreadCountResponse;
 import org.example.toy_zhiri.notification.entity.Notification;
-import org.example.toy_zhiri.notification.entity.NotificationSettings;
 import org.example.toy_zhiri.notification.enums.NotificationType;
 import org.example.toy_zhiri.notification.enums.RelatedEntityType;
 import org.example.toy_zhiri.notification.repository.NotificationRepository;
-import org.example.toy_zhiri.notification.repository.NotificationSettingsRepository;
 import org.example.toy_zhiri.user.entity.User;
 import org.example.toy_zhiri.user.repository.UserRepository;
 import org.springframework.data.domain.Page;
@@ -35,22 +36,24 @@ import java.util.UUID;
  * - Пометку уведомлений как прочитанных
  * - Подсчёт непрочитанных
  * <p>
- * В будущем здесь же будет диспатч на email и SMS каналы.
+ * Отправка уведомлений асинхронная — см. NotificationDispatcher и NotificationDeliveryService.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
     private final NotificationRepository notificationRepository;
-    private final NotificationSettingsRepository settingsRepository;
     private final UserRepository userRepository;
     private final SmsNotificationService smsNotificationService;
     private final EmailNotificationService emailNotificationService;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationPushService pushService;
+    private final CounterService counterService;
 
     /**
-     * Создаёт уведомление для пользователя.
-     * Перед созданием проверяет настройки пользователя — хочет ли он получать
-     * уведомления данного типа.
+     * Публикует уведомление для пользователя.
+     * Запись в БД и отправка по каналам выполняются асинхронно NotificationDispatcher
+     * после коммита текущей транзакции; настройки пользователя проверяются при доставке.
      *
      * @param userId            ID получателя
      * @param type              тип уведомления
@@ -59,7 +62,6 @@ public class NotificationService {
      * @param relatedEntityType тип связанной сущности (может быть null)
      * @param relatedEntityId   ID связанной сущности (может быть null)
      */
-    @Transactional
     public void send(UUID userId,
                      NotificationType type,
                      String title,
@@ -67,39 +69,19 @@ public class NotificationService {
                      RelatedEntityType relatedEntityType,
                      UUID relatedEntityId) {
 
-        if (!isNotificationEnabled(userId, type)) {
-            log.debug("Уведомление {} для пользователя {} отключено в настройках", type, userId);
-            return;
-        }
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-
-        Notification notification = Notification.builder()
-                .user(user)
+        dispatcher.publish(NotificationDraft.builder()
+                .userId(userId)
                 .type(type)
                 .title(title)
                 .message(message)
-                .isRead(false)
                 .relatedEntityType(relatedEntityType)
                 .relatedEntityId(relatedEntityId)
-                .build();
-
-        notificationRepository.save(notification);
-
-        log.info("Уведомление [{}] отправлено пользователю {}: {}", type, userId, title);
-
-        // SMS-канал
-        dispatchSms(user, title, message);
-
-        // Email-канал
-        dispatchEmail(user, title, message);
+                .build());
     }
 
     /**
      * Упрощённый вариант без привязки к сущности.
      */
-    @Transactional
     public void send(UUID userId,
                      NotificationType type,
                      String title,
@@ -107,6 +89,47 @@ public class NotificationService {
         send(userId, type, title, message, null, null);
     }
 
+    /**
+     * Обновляет на месте последнее уведомление пользователя по связанной сущности:
+     * заменяет заголовок и текст и, если оно уже прочитано, снова делает его непрочитанным.
+     * Новая запись не создаётся, SMS и email не отправляются.
+     *
+     * @param userId            ID получателя
+     * @param type              тип уведомления
+     * @param title             новый заголовок
+     * @param message           новый текст
+     * @param relatedEntityType тип связанной сущности
+     * @param relatedEntityId   ID связанной сущности
+     * @return false, если обновлять нечего (уведомление не создавалось или отключено в настройках)
+     */
+    @Transactional
+    public boolean updateLatest(UUID userId,
+                                NotificationType type,
+                                String title,
+                                String message,
+                                RelatedEntityType relatedEntityType,
+                                UUID relatedEntityId) {
+
+        Notification notification = notificationRepository
+                .findFirstByUserIdAndTypeAndRelatedEntityTypeAndRelatedEntityIdOrderByCreatedAtDesc(
+                        userId, type, relatedEntityType, relatedEntityId)
+                .orElse(null);
+        if (notification == null) {
+            return false;
+        }
+
+        if (notification.getIsRead()) {
+            notification.setIsRead(false);
+            notification.setReadAt(null);
+            counterService.increment(CounterType.USER_UNREAD_NOTIFICATIONS, userId);
+        }
+        notification.setTitle(title);
+        notification.setMessage(message);
+
+        pushService.pushUpdated(notification);
+        return true;
+    }
+
     /**
      * Тестовая отправка уведомления через выбранные каналы.
      * Игнорирует настройки пользователя — отправляет принудительно.
@@ -128,6 +151,8 @@ public class NotificationService {
                     .isRead(false)
                     .build();
             notificationRepository.save(notification);
+            counterService.increment(CounterType.USER_UNREAD_NOTIFICATIONS, user.getId());
+            pushService.pushCreated(List.of(notification));
             channels.add("push");
         }
 
@@ -172,9 +197,12 @@ public class NotificationService {
 
     /**
      * Возвращает количество непрочитанных уведомлений.
+     * Читает денормализованный счётчик пользователя — без пересчёта по таблице уведомлений.
      */
     public UnreadCountResponse getUnreadCount(UUID userId) {
-        long count = notificationRepository.countByUserIdAndIsReadFalse(userId);
+        long count = userRepository.findUnreadCounters(userId)
+                .map(UserRepository.UnreadCounters::getNotifications)
+                .orElse(0L);
         return UnreadCountResponse.builder().count(count).build();
     }
 
@@ -191,9 +219,16 @@ public class NotificationService {
         }
 
         if (!notification.getIsRead()) {
+            String email = notification.getUser().getEmail();
+            LocalDateTime readAt = LocalDateTime.now();
+
+            // Условный UPDATE: при гонке двух запросов счётчик уменьшит только один
+            if (notificationRepository.markAsRead(notificationId, readAt) > 0) {
+                counterService.decrement(CounterType.USER_UNREAD_NOTIFICATIONS, userId);
+                pushService.pushUnreadCounts(userId, email);
+            }
             notification.setIsRead(true);
-            notification.setReadAt(LocalDateTime.now());
-            notificationRepository.save(notification);
+            notification.setReadAt(readAt);
         }
 
         return mapToResponse(notification);
@@ -205,78 +240,16 @@ public class NotificationService {
     @Transactional
     public MessageResponse markAllAsRead(UUID userId) {
         int updated = notificationRepository.markAllAsRead(userId);
+        if (updated > 0) {
+            counterService.add(CounterType.USER_UNREAD_NOTIFICATIONS, userId, -updated);
+            userRepository.findById(userId)
+                    .ifPresent(user -> pushService.pushUnreadCounts(userId, user.getEmail()));
+        }
         return MessageResponse.builder()
                 .message("Прочитано уведомлений: " + updated)
                 .build();
     }
 
-    /**
-     * Отправляет SMS, если канал включён в настройках пользователя.
-     */
-    private void dispatchSms(User user, String title, String message) {
-        boolean smsEnabled = settingsRepository.findByUserId(user.getId())
-                .map(NotificationSettings::getSmsEnabled)
-                .orElse(false);
-
-        if (smsEnabled && user.getPhone() != null && !user.getPhone().isBlank()) {
-            smsNotificationService.send(user.getPhone(), title, message);
-        }
-    }
-
-    /**
-     * Отправляет email, если канал включён в настройках пользователя.
-     */
-    private void dispatchEmail(User user, String title, String message) {
-        boolean emailEnabled = settingsRepository.findByUserId(user.getId())
-                .map(NotificationSettings::getEmailEnabled)
-                .orElse(true);
-
-        if (emailEnabled && user.getEmail() != null && !user.getEmail().isBlank()) {
-            emailNotificationService.send(user.getEmail(), title, message);
-        }
-    }
-
-    /**
-     * Проверяет, включён ли данный тип уведомлений в настройках пользователя.
-     * Если настройки не созданы — считаем, что всё включено (дефолт).
-     */
-    private boolean isNotificationEnabled(UUID userId, NotificationType type) {
-        return settingsRepository.findByUserId(userId)
-                .map(settings -> isTypeEnabled(settings, type))
-                .orElse(true);
-    }
-
-    /**
-     * Маппит тип уведомления на соответствующий флаг в настройках.
-     */
-    private boolean isTypeEnabled(NotificationSettings settings, NotificationType type) {
-        return switch (type) {
-            case BOOKING_CREATED,
-                 BOOKING_CONFIRMED,
-                 BOOKING_REJECTED,
-                 BOOKING_CANCELLED,
-                 BOOKING_COMPLETED,
-                 BOOKING_EXPIRED,
-                 BOOKING_COMPLETION_CONFIRMED -> settings.getBookingUpdates();
-
-            case REVIEW_RECEIVED -> settings.getBookingUpdates();
-
-            case NEW_MESSAGE -> settings.getChatMessages();
-
-            case PROMOTION -> settings.getPromotions();
-
-            case EVENT_REMINDER -> settings.getEventReminders();
-
-            // Системные уведомления отправляются всегда
-            case SERVICE_APPROVED,
-                 SERVICE_REJECTED,
-                 PASSWORD_CHANGED,
-                 ACCOUNT_DEACTIVATED,
-                 PAYMENT_SUCCESS,
-                 SYSTEM -> true;
-        };
-    }
-
     private NotificationResponse mapToResponse(Notification notification) {
         return NotificationResponse.builder()
                 .id(notification.getId())
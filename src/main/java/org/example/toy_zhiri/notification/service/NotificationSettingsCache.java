@@ -0,0 +1,111 @@
+package org.example.toy_zhiri.notification.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.common.LruTtlCache;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.notification.entity.NotificationSettings;
+import org.example.toy_zhiri.notification.enums.NotificationSettingFlag;
+import org.example.toy_zhiri.notification.repository.NotificationSettingsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш настроек уведомлений в виде битовых масок (см. NotificationSettingFlag).
+ * <p>
+ * Ограничен app.notifications.settings-cache-size записями (LRU), запись живёт
+ * app.notifications.settings-cache-ttl-ms — это ограничивает устаревание на других
+ * экземплярах приложения. Отсутствие строки настроек тоже кэшируется (как DEFAULT_MASK),
+ * поэтому пользователи с настройками по умолчанию не дают повторных запросов к БД.
+ * NotificationSettingsService обновляет запись после коммита изменения настроек.
+ * <p>
+ * Каждая запись несёт версию: промах, загруженный из БД до того, как обновление настроек
+ * попало в кэш, не перезаписывает более новую запись устаревшей маской.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationSettingsCache {
+    private final NotificationSettingsRepository settingsRepository;
+
+    @Value("${app.notifications.settings-cache-size:100000}")
+    private int maxSize;
+
+    @Value("${app.notifications.settings-cache-ttl-ms:300000}")
+    private long ttlMillis;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private LruTtlCache<UUID, CachedMask> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new LruTtlCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Возвращает маску настроек пользователя.
+     */
+    public int getMask(UUID userId) {
+        return getMasks(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Возвращает маски настроек для набора пользователей; промахи догружаются одним запросом.
+     */
+    public Map<UUID, Integer> getMasks(Collection<UUID> userIds) {
+        Map<UUID, Integer> result = new HashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        long loadVersion = versions.get();
+
+        Map<UUID, CachedMask> cached = cache.getAll(userIds);
+        for (UUID userId : userIds) {
+            CachedMask hit = cached.get(userId);
+            if (hit != null) {
+                result.put(userId, hit.mask());
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<UUID, Integer> loaded = new HashMap<>();
+        for (UUID userId : misses) {
+            loaded.put(userId, NotificationSettingFlag.DEFAULT_MASK);
+        }
+        for (NotificationSettings settings : settingsRepository.findAllByUserIdIn(misses)) {
+            loaded.put(settings.getUser().getId(), NotificationSettingFlag.maskOf(settings));
+        }
+
+        // Настройки, обновившиеся пока шла загрузка, не перезаписываются устаревшей маской
+        loaded.forEach((userId, mask) -> result.put(userId,
+                cache.put(userId, new CachedMask(mask, loadVersion), CachedMask::isNewerThan).mask()));
+        return result;
+    }
+
+    /**
+     * Обновляет маску пользователя после коммита текущей транзакции
+     * (или сразу, если транзакции нет). При откате кэш не меняется.
+     */
+    public void update(UUID userId, NotificationSettings settings) {
+        int mask = NotificationSettingFlag.maskOf(settings);
+        TransactionCallbacks.afterCommit(() -> cache.put(userId, new CachedMask(mask, versions.incrementAndGet()),
+                CachedMask::isNewerThan));
+    }
+
+    private record CachedMask(int mask, long version) {
+        private boolean isNewerThan(CachedMask other) {
+            return version > other.version;
+        }
+    }
+}
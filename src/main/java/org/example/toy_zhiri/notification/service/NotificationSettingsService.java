@@ -6,6 +6,7 @@ import org.example.toy_zhiri.exception.NotFoundException;
 import org.example.toy_zhiri.notification.dto.NotificationSettingsResponse;
 import org.example.toy_zhiri.notification.dto.UpdateNotificationSettingsRequest;
 import org.example.toy_zhiri.notification.entity.NotificationSettings;
+import org.example.toy_zhiri.notification.enums.NotificationSettingFlag;
 import org.example.toy_zhiri.notification.repository.NotificationSettingsRepository;
 import org.example.toy_zhiri.user.entity.User;
 import org.example.toy_zhiri.user.repository.UserRepository;
@@ -18,13 +19,16 @@ import java.util.UUID;
 public class NotificationSettingsService {
     private final NotificationSettingsRepository settingsRepository;
     private final UserRepository userRepository;
+    private final NotificationSettingsCache settingsCache;
 
     /**
      * Возвращает настройки уведомлений пользователя.
-     * Если настройки ещё не созданы — создаёт с дефолтными значениями.
+     * Если настройки ещё не созданы — возвращает дефолтные значения, не создавая строку:
+     * строка появляется только при первом изменении настроек.
      */
     public NotificationSettingsResponse getSettings(UUID userId) {
-        NotificationSettings settings = getOrCreateSettings(userId);
+        NotificationSettings settings = settingsRepository.findByUserId(userId)
+                .orElseGet(() -> defaultSettings(null));
         return mapToResponse(settings);
     }
 
@@ -64,11 +68,14 @@ public class NotificationSettingsService {
             settings.setNewBookings(request.getNewBookings());
         }
 
-        return mapToResponse(settingsRepository.save(settings));
+        NotificationSettings saved = settingsRepository.save(settings);
+        settingsCache.update(userId, saved);
+
+        return mapToResponse(saved);
     }
 
     /**
-     * Возвращает настройки пользователя или создаёт их с дефолтными значениями.
+     * Возвращает настройки пользователя или новую (ещё не сохранённую) сущность с дефолтными значениями.
      */
     private NotificationSettings getOrCreateSettings(UUID userId) {
         return settingsRepository.findByUserId(userId)
@@ -76,22 +83,27 @@ public class NotificationSettingsService {
                     User user = userRepository.findById(userId)
                             .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-                    return settingsRepository.save(
-                            NotificationSettings.builder()
-                                    .user(user)
-                                    .pushEnabled(true)
-                                    .emailEnabled(true)
-                                    .smsEnabled(false)
-                                    .bookingUpdates(true)
-                                    .chatMessages(true)
-                                    .promotions(false)
-                                    .eventReminders(true)
-                                    .newBookings(true)
-                                    .build()
-                    );
+                    return defaultSettings(user);
                 });
     }
 
+    /**
+     * Настройки с дефолтными значениями; должны совпадать с NotificationSettingFlag.DEFAULT_MASK.
+     */
+    private NotificationSettings defaultSettings(User user) {
+        return NotificationSettings.builder()
+                .user(user)
+                .pushEnabled(NotificationSettingFlag.PUSH.isEnabledByDefault())
+                .emailEnabled(NotificationSettingFlag.EMAIL.isEnabledByDefault())
+                .smsEnabled(NotificationSettingFlag.SMS.isEnabledByDefault())
+                .bookingUpdates(NotificationSettingFlag.BOOKING_UPDATES.isEnabledByDefault())
+                .chatMessages(NotificationSettingFlag.CHAT_MESSAGES.isEnabledByDefault())
+                .promotions(NotificationSettingFlag.PROMOTIONS.isEnabledByDefault())
+                .eventReminders(NotificationSettingFlag.EVENT_REMINDERS.isEnabledByDefault())
+                .newBookings(NotificationSettingFlag.NEW_BOOKINGS.isEnabledByDefault())
+                .build();
+    }
+
     private NotificationSettingsResponse mapToResponse(NotificationSettings settings) {
         return NotificationSettingsResponse.builder()
                 .pushEnabled(settings.getPushEnabled())
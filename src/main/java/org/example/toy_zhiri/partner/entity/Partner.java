@@ -78,6 +78,17 @@ public class Partner {
     @Column(name = "rejection_reason", columnDefinition = "TEXT")
     private String rejectionReason;
 
+    @Column(name = "calendar_token", length = 64, unique = true)
+    private String calendarToken;
+
+    // Счётчик изменений календаря — меняется только атомарным UPDATE в PartnerRepository
+    @Builder.Default
+    @Column(name = "calendar_version", nullable = false, updatable = false)
+    private Long calendarVersion = 0L;
+
+    @Column(name = "calendar_updated_at", updatable = false)
+    private LocalDateTime calendarUpdatedAt;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -4,8 +4,13 @@ import org.example.toy_zhiri.partner.entity.Partner;
 import org.example.toy_zhiri.partner.enums.PartnerStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -55,4 +60,47 @@ public interface PartnerRepository extends JpaRepository<Partner, UUID>, JpaSpec
      * @return список партнеров, отсортированный по дате создания (новые первыми)
      */
     List<Partner> findAllByStatusOrderByCreatedAtDesc(PartnerStatus status);
-}
\ No newline at end of file
+
+    /**
+     * Находит состояние календарной ленты партнёра по токену подписки.
+     * Читает только строку партнёра — достаточно для ответа 304 без выборки бронирований.
+     *
+     * @param token токен календарной ленты
+     * @return Optional<CalendarFeedState> состояние ленты, если токен действителен
+     */
+    @Query(value = """
+            SELECT p.id AS partnerId,
+                   p.calendar_version AS version,
+                   p.calendar_updated_at AS updatedAt
+            FROM partners p
+            WHERE p.calendar_token = :token
+            """, nativeQuery = true)
+    Optional<CalendarFeedState> findCalendarFeedStateByToken(@Param("token") String token);
+
+    /**
+     * Увеличивает счётчик изменений календаря партнёров.
+     * Вызывается при любом изменении, видимом в календарной ленте.
+     *
+     * @param partnerIds идентификаторы партнёров
+     * @return количество обновлённых строк
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE partners
+            SET calendar_version = calendar_version + 1,
+                calendar_updated_at = NOW()
+            WHERE id IN (:partnerIds)
+            """, nativeQuery = true)
+    int incrementCalendarVersion(@Param("partnerIds") Collection<UUID> partnerIds);
+
+    /**
+     * Версия календарной ленты партнёра.
+     */
+    interface CalendarFeedState {
+        UUID getPartnerId();
+
+        Long getVersion();
+
+        LocalDateTime getUpdatedAt();
+    }
+}
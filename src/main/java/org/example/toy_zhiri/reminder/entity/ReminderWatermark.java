@@ -0,0 +1,33 @@
+package org.example.toy_zhiri.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Водяной знак планировщика напоминаний.
+ * Все напоминания со сроком не позже firedUntil считаются отправленными.
+ */
+@Entity
+@Table(name = "reminder_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderWatermark {
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "fired_until", nullable = false)
+    private LocalDateTime firedUntil;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
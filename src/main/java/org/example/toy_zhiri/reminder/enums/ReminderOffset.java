@@ -0,0 +1,20 @@
+package org.example.toy_zhiri.reminder.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Моменты напоминания относительно начала мероприятия.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ReminderOffset {
+    WEEK_BEFORE(Duration.ofDays(7), "Через неделю"),
+    DAY_BEFORE(Duration.ofDays(1), "Завтра"),
+    HOURS_BEFORE(Duration.ofHours(3), "Через 3 часа");
+
+    private final Duration beforeEvent;
+    private final String label;
+}
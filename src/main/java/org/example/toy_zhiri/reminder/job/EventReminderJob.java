@@ -0,0 +1,54 @@
+package org.example.toy_zhiri.reminder.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.reminder.service.EventReminderService;
+import org.example.toy_zhiri.reminder.service.ReminderTimerWheel.ReminderTimeout;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Плановое задание рассылки напоминаний о мероприятиях.
+ * <p>
+ * При старте загружает колесо напоминаний, раз в app.reminders.tick-interval-ms
+ * отправляет наступившие напоминания, раз в сутки догружает новые даты в горизонт планирования.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventReminderJob {
+
+    private final EventReminderService reminderService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reminderService.initialize();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reminders.tick-interval-ms:60000}")
+    public void fireDueReminders() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReminderTimeout> due = reminderService.pollDue(now);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            reminderService.deliver(due, now);
+        } catch (RuntimeException e) {
+            // Водяной знак не сдвинулся — вернём напоминания в колесо до следующего тика
+            log.error("EventReminderJob: не удалось отправить {} напоминаний", due.size(), e);
+            reminderService.reschedule(due);
+        }
+    }
+
+    @Scheduled(cron = "${app.reminders.refill-cron:0 5 0 * * *}")
+    public void refill() {
+        reminderService.refill();
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.toy_zhiri.reminder.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.toy_zhiri.reminder.entity.ReminderWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReminderWatermarkRepository extends JpaRepository<ReminderWatermark, String> {
+    /**
+     * Читает водяной знак с блокировкой строки до конца транзакции.
+     * Сериализует отправку напоминаний между экземплярами приложения.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM ReminderWatermark w WHERE w.name = :name")
+    Optional<ReminderWatermark> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,255 @@
+package org.example.toy_zhiri.reminder.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.toy_zhiri.booking.entity.Booking;
+import org.example.toy_zhiri.booking.repository.BookingRepository;
+import org.example.toy_zhiri.booking.repository.BookingRepository.ReminderTarget;
+import org.example.toy_zhiri.common.TransactionCallbacks;
+import org.example.toy_zhiri.exception.InvalidStateException;
+import org.example.toy_zhiri.notification.dto.NotificationDraft;
+import org.example.toy_zhiri.notification.enums.NotificationType;
+import org.example.toy_zhiri.notification.enums.RelatedEntityType;
+import org.example.toy_zhiri.notification.service.NotificationDeliveryService;
+import org.example.toy_zhiri.reminder.entity.ReminderWatermark;
+import org.example.toy_zhiri.reminder.enums.ReminderOffset;
+import org.example.toy_zhiri.reminder.repository.ReminderWatermarkRepository;
+import org.example.toy_zhiri.reminder.service.ReminderTimerWheel.ReminderTimeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Планировщик напоминаний о предстоящих мероприятиях (EVENT_REMINDER).
+ * <p>
+ * В памяти держится колесо таймеров с напоминаниями (за 7 дней, за 1 день и за 3 часа)
+ * по подтверждённым бронированиям на ближайшие app.reminders.horizon-days дней.
+ * Колесо заполняется один раз при старте, затем дополняется ежедневно новыми датами
+ * и инкрементально — при подтверждении и отмене бронирований.
+ * <p>
+ * Наступившие напоминания отправляются пачкой: статусы бронирований перепроверяются
+ * одним запросом, настройки получателей — одним запросом в NotificationDeliveryService.
+ * В той же транзакции сдвигается водяной знак reminder_watermarks, поэтому после
+ * рестарта не отправленные напоминания досылаются, а отправленные не дублируются.
+ * SMS и email уходят только после коммита водяного знака: при откате напоминания
+ * возвращаются в колесо, и повторная отправка не дублирует уже ушедшие письма.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventReminderService {
+    private static final String WATERMARK_NAME = "EVENT_REMINDER";
+    private static final String REMINDER_TITLE = "Напоминание о мероприятии";
+
+    private final BookingRepository bookingRepository;
+    private final ReminderWatermarkRepository watermarkRepository;
+    private final NotificationDeliveryService deliveryService;
+
+    @Value("${app.reminders.horizon-days:8}")
+    private int horizonDays;
+
+    @Value("${app.reminders.tick-interval-ms:60000}")
+    private long tickMillis;
+
+    @Value("${app.reminders.wheel-size:1024}")
+    private int wheelSize;
+
+    /**
+     * Время начала для бронирований без указанного времени мероприятия.
+     */
+    @Value("${app.reminders.default-event-time:12:00}")
+    private String defaultEventTime;
+
+    private volatile ReminderTimerWheel wheel;
+
+    /**
+     * Последняя дата мероприятий, загруженная в колесо.
+     */
+    private volatile LocalDate loadedUntil;
+
+    /**
+     * Загружает в колесо подтверждённые бронирования на горизонт планирования.
+     * Напоминания со сроком до водяного знака пропускаются как уже отправленные.
+     */
+    public synchronized void initialize() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firedUntil = watermarkRepository.findById(WATERMARK_NAME)
+                .map(ReminderWatermark::getFiredUntil)
+                .orElse(now);
+
+        wheel = new ReminderTimerWheel(tickMillis, wheelSize, now);
+        loadedUntil = now.toLocalDate().minusDays(1);
+
+        int loaded = load(now.toLocalDate().plusDays(horizonDays), firedUntil);
+        log.info("EventReminderService: загружено {} бронирований, напоминаний в очереди: {}", loaded, wheel.size());
+    }
+
+    /**
+     * Дополняет колесо датами, вошедшими в горизонт планирования.
+     */
+    public synchronized void refill() {
+        if (wheel == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int loaded = load(now.toLocalDate().plusDays(horizonDays), now);
+        log.info("EventReminderService: догружено {} бронирований до {}", loaded, loadedUntil);
+    }
+
+    /**
+     * Ставит напоминания по подтверждённому бронированию после коммита транзакции.
+     * Бронирования за горизонтом подхватит ежедневная догрузка.
+     */
+    public void onBookingConfirmed(Booking booking) {
+        UUID bookingId = booking.getId();
+        LocalDate eventDate = booking.getEventDate();
+        LocalTime eventTime = booking.getEventTime();
+        TransactionCallbacks.afterCommit(() -> {
+            ReminderTimerWheel current = wheel;
+            if (current == null || eventDate.isAfter(loadedUntil)) {
+                return;
+            }
+            current.cancel(bookingId);
+            schedule(current, bookingId, eventDate, eventTime, LocalDateTime.now());
+        });
+    }
+
+    /**
+     * Снимает напоминания по бронированию, вышедшему из статуса CONFIRMED.
+     */
+    public void onBookingClosed(UUID bookingId) {
+        TransactionCallbacks.afterCommit(() -> {
+            ReminderTimerWheel current = wheel;
+            if (current != null) {
+                current.cancel(bookingId);
+            }
+        });
+    }
+
+    /**
+     * Продвигает колесо до текущего момента и возвращает наступившие напоминания.
+     */
+    public List<ReminderTimeout> pollDue(LocalDateTime now) {
+        ReminderTimerWheel current = wheel;
+        return current == null ? List.of() : current.advance(now);
+    }
+
+    /**
+     * Возвращает напоминания в колесо, если их отправка не удалась.
+     */
+    public void reschedule(Collection<ReminderTimeout> timeouts) {
+        ReminderTimerWheel current = wheel;
+        if (current == null) {
+            return;
+        }
+        timeouts.forEach(timeout -> current.schedule(timeout.getBookingId(), timeout.getOffset(), timeout.getDueAt()));
+    }
+
+    /**
+     * Отправляет наступившие напоминания и сдвигает водяной знак до firedUntil.
+     * Напоминания со сроком до текущего водяного знака уже отправлены другим экземпляром и пропускаются.
+     *
+     * @param due        наступившие напоминания
+     * @param firedUntil момент, до которого колесо было продвинуто
+     * @return количество отправленных напоминаний
+     */
+    @Transactional
+    public int deliver(List<ReminderTimeout> due, LocalDateTime firedUntil) {
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        ReminderWatermark watermark = watermarkRepository.findForUpdate(WATERMARK_NAME)
+                .orElseThrow(() -> new InvalidStateException("Водяной знак напоминаний не инициализирован"));
+        LocalDateTime alreadyFired = watermark.getFiredUntil();
+
+        // По бронированию отправляем только самое близкое к мероприятию из наступивших напоминаний
+        Map<UUID, ReminderTimeout> latestByBooking = due.stream()
+                .filter(timeout -> timeout.getDueAt().isAfter(alreadyFired))
+                .collect(Collectors.toMap(
+                        ReminderTimeout::getBookingId,
+                        Function.identity(),
+                        (a, b) -> a.getDueAt().isAfter(b.getDueAt()) ? a : b));
+
+        List<NotificationDraft> drafts = new ArrayList<>();
+        if (!latestByBooking.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            for (ReminderTarget target : bookingRepository.findReminderTargetsByIdIn(latestByBooking.keySet())) {
+                if (!eventStart(target.getEventDate(), target.getEventTime()).isAfter(now)) {
+                    continue;
+                }
+                drafts.add(buildDraft(target, latestByBooking.get(target.getId()).getOffset()));
+            }
+        }
+
+        int sent = deliveryService.deliver(drafts);
+
+        if (firedUntil.isAfter(alreadyFired)) {
+            watermark.setFiredUntil(firedUntil);
+            watermarkRepository.save(watermark);
+        }
+
+        log.info("EventReminderService: наступило {} напоминаний, отправлено {}", due.size(), sent);
+        return sent;
+    }
+
+    private int load(LocalDate until, LocalDateTime firedUntil) {
+        LocalDate from = loadedUntil.plusDays(1);
+        if (from.isAfter(until)) {
+            return 0;
+        }
+
+        List<ReminderTarget> targets = bookingRepository.findReminderTargetsByEventDateBetween(from, until);
+        for (ReminderTarget target : targets) {
+            if (!wheel.contains(target.getId())) {
+                schedule(wheel, target.getId(), target.getEventDate(), target.getEventTime(), firedUntil);
+            }
+        }
+        loadedUntil = until;
+        return targets.size();
+    }
+
+    private void schedule(ReminderTimerWheel target,
+                          UUID bookingId,
+                          LocalDate eventDate,
+                          LocalTime eventTime,
+                          LocalDateTime notBefore) {
+        LocalDateTime start = eventStart(eventDate, eventTime);
+        for (ReminderOffset offset : ReminderOffset.values()) {
+            LocalDateTime dueAt = start.minus(offset.getBeforeEvent());
+            if (dueAt.isAfter(notBefore)) {
+                target.schedule(bookingId, offset, dueAt);
+            }
+        }
+    }
+
+    private NotificationDraft buildDraft(ReminderTarget target, ReminderOffset offset) {
+        String when = target.getEventTime() != null
+                ? target.getEventDate() + " в " + target.getEventTime()
+                : target.getEventDate().toString();
+
+        return NotificationDraft.builder()
+                .userId(target.getUserId())
+                .type(NotificationType.EVENT_REMINDER)
+                .title(REMINDER_TITLE)
+                .message(offset.getLabel() + ": " + target.getServiceName() + ", " + when)
+                .relatedEntityType(RelatedEntityType.BOOKING)
+                .relatedEntityId(target.getId())
+                .build();
+    }
+
+    private LocalDateTime eventStart(LocalDate eventDate, LocalTime eventTime) {
+        return eventDate.atTime(eventTime != null ? eventTime : LocalTime.parse(defaultEventTime));
+    }
+}
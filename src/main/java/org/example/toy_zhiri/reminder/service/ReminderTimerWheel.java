@@ -0,0 +1,147 @@
+package org.example.toy_zhiri.reminder.service;
+
+import lombok.Getter;
+import org.example.toy_zhiri.reminder.enums.ReminderOffset;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Хешированное колесо таймеров для напоминаний.
+ * <p>
+ * Время разбито на тики фиксированной длины, тик отображается в ячейку колеса
+ * по модулю его размера. Постановка и отмена — O(1), продвижение на один тик
+ * просматривает только одну ячейку, а не все запланированные напоминания.
+ * Напоминания дальше одного оборота колеса лежат в той же ячейке и
+ * пропускаются, пока не наступит их тик.
+ * <p>
+ * Потокобезопасен: все операции синхронизированы на экземпляре.
+ */
+public class ReminderTimerWheel {
+    private final long tickMillis;
+    private final List<ReminderTimeout>[] buckets;
+    private final int mask;
+    private final Map<UUID, List<ReminderTimeout>> byBooking = new HashMap<>();
+
+    /**
+     * Первый тик, ячейка которого ещё не обработана.
+     */
+    private long nextTick;
+
+    @SuppressWarnings("unchecked")
+    public ReminderTimerWheel(long tickMillis, int wheelSize, LocalDateTime start) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Размер колеса должен быть степенью двойки: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = wheelSize - 1;
+        this.nextTick = toTick(start);
+    }
+
+    /**
+     * Ставит напоминание. Просроченные напоминания попадают в ближайший необработанный тик.
+     */
+    public synchronized void schedule(UUID bookingId, ReminderOffset offset, LocalDateTime dueAt) {
+        ReminderTimeout timeout = new ReminderTimeout(bookingId, offset, dueAt, Math.max(toTick(dueAt), nextTick));
+        buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+        byBooking.computeIfAbsent(bookingId, id -> new ArrayList<>()).add(timeout);
+    }
+
+    /**
+     * Отменяет все напоминания бронирования. Записи удаляются из ячеек лениво, при их обработке.
+     */
+    public synchronized void cancel(UUID bookingId) {
+        List<ReminderTimeout> timeouts = byBooking.remove(bookingId);
+        if (timeouts != null) {
+            timeouts.forEach(timeout -> timeout.cancelled = true);
+        }
+    }
+
+    /**
+     * Проверяет, запланированы ли напоминания для бронирования.
+     */
+    public synchronized boolean contains(UUID bookingId) {
+        return byBooking.containsKey(bookingId);
+    }
+
+    /**
+     * Продвигает колесо до указанного момента и возвращает наступившие напоминания.
+     */
+    public synchronized List<ReminderTimeout> advance(LocalDateTime now) {
+        long targetTick = toTick(now);
+        List<ReminderTimeout> expired = new ArrayList<>();
+        if (targetTick < nextTick) {
+            return expired;
+        }
+
+        // При отставании больше чем на оборот достаточно обойти каждую ячейку один раз
+        long ticks = Math.min(targetTick - nextTick + 1, buckets.length);
+        for (long tick = nextTick; tick < nextTick + ticks; tick++) {
+            Iterator<ReminderTimeout> iterator = buckets[(int) (tick & mask)].iterator();
+            while (iterator.hasNext()) {
+                ReminderTimeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.deadlineTick <= targetTick) {
+                    iterator.remove();
+                    detach(timeout);
+                    expired.add(timeout);
+                }
+            }
+        }
+
+        nextTick = targetTick + 1;
+        return expired;
+    }
+
+    /**
+     * Количество активных напоминаний.
+     */
+    public synchronized int size() {
+        return byBooking.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void detach(ReminderTimeout timeout) {
+        List<ReminderTimeout> timeouts = byBooking.get(timeout.bookingId);
+        if (timeouts == null) {
+            return;
+        }
+        timeouts.remove(timeout);
+        if (timeouts.isEmpty()) {
+            byBooking.remove(timeout.bookingId);
+        }
+    }
+
+    private long toTick(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / tickMillis;
+    }
+
+    /**
+     * Запланированное напоминание по бронированию.
+     */
+    @Getter
+    public static class ReminderTimeout {
+        private final UUID bookingId;
+        private final ReminderOffset offset;
+        private final LocalDateTime dueAt;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        private ReminderTimeout(UUID bookingId, ReminderOffset offset, LocalDateTime dueAt, long deadlineTick) {
+            this.bookingId = bookingId;
+            this.offset = offset;
+            this.dueAt = dueAt;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
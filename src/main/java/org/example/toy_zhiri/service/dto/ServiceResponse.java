@@ -33,6 +33,7 @@ public class ServiceResponse {
     private Integer reviewsCount;
     private Integer viewsCount;
     private Integer bookingsCount;
+    private Integer favoritesCount;
     private String thumbnail;
     private List<String> images;
     private Boolean isFavorite;
@@ -69,12 +69,16 @@ public class Service {
     @Column(name = "reviews_count")
     private Integer reviewsCount = 0;
 
-    @Column(name = "views_count")
+    // Счётчики меняются только атомарными UPDATE через CounterService
+    @Column(name = "views_count", updatable = false)
     private Integer viewsCount = 0;
 
-    @Column(name = "bookings_count")
+    @Column(name = "bookings_count", updatable = false)
     private Integer bookingsCount = 0;
 
+    @Column(name = "favorites_count", updatable = false)
+    private Integer favoritesCount = 0;
+
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -50,6 +51,15 @@ public interface ServiceVariantRepository extends JpaRepository<ServiceVariant,
      */
     boolean existsByServiceId(UUID serviceId);
 
+    /**
+     * Возвращает ID услуг из набора, у которых есть хотя бы один вариант (в т.ч. неактивный).
+     *
+     * @param serviceIds идентификаторы услуг
+     * @return список ID услуг с вариантами
+     */
+    @Query("SELECT DISTINCT v.service.id FROM ServiceVariant v WHERE v.service.id IN :serviceIds")
+    List<UUID> findServiceIdsWithVariants(@Param("serviceIds") Collection<UUID> serviceIds);
+
     /**
      * Проверяет, используется ли вариант в активных бронированиях.
      * Активными считаются брони в статусах PENDING_CONFIRMATION и CONFIRMED,
@@ -60,6 +60,7 @@ public class PartnerServiceService {
                 .reviewsCount(0)
                 .viewsCount(0)
                 .bookingsCount(0)
+                .favoritesCount(0)
                 .build();
 
         Service savedService = serviceRepository.save(service);
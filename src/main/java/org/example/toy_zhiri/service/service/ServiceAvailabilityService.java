@@ -2,6 +2,7 @@ package org.example.toy_zhiri.service.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.booking.service.PartnerCalendarFeedService;
 import org.example.toy_zhiri.exception.AccessDeniedException;
 import org.example.toy_zhiri.exception.BadRequestException;
 import org.example.toy_zhiri.exception.NotFoundException;
@@ -26,6 +27,7 @@ public class ServiceAvailabilityService {
     private final ServiceAvailabilityRepository availabilityRepository;
     private final ServiceRepository serviceRepository;
     private final PartnerRepository partnerRepository;
+    private final PartnerCalendarFeedService calendarFeedService;
 
     /**
      * Возвращает расписание доступности услуги за указанный период.
@@ -84,6 +86,7 @@ public class ServiceAvailabilityService {
         List<ServiceAvailability> saved = request.getDates().stream()
                 .map(date -> upsertAvailability(service, date, status, request.getNote()))
                 .collect(Collectors.toList());
+        calendarFeedService.touch(partner.getId());
 
         return saved.stream()
                 .map(this::mapToResponse)
@@ -115,6 +118,7 @@ public class ServiceAvailabilityService {
                 .orElseThrow(() -> new NotFoundException("Запись на дату " + date + " не найдена"));
 
         availabilityRepository.delete(availability);
+        calendarFeedService.touch(partner.getId());
     }
 
     /**
@@ -1,6 +1,7 @@
 package org.example.toy_zhiri.service.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.analytics.service.PartnerAnalyticsService;
 import org.example.toy_zhiri.exception.NotFoundException;
 import org.example.toy_zhiri.service.dto.ServiceFilterRequest;
 import org.example.toy_zhiri.service.dto.ServicePageResponse;
@@ -9,6 +10,8 @@ import org.example.toy_zhiri.service.entity.Service;
 import org.example.toy_zhiri.service.entity.ServiceImage;
 import org.example.toy_zhiri.service.enums.SortType;
 import org.example.toy_zhiri.cart.repository.CartItemRepository;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.favorite.repository.FavoriteRepository;
 import org.example.toy_zhiri.service.repository.ServiceRepository;
 import org.example.toy_zhiri.service.specification.ServiceSpecification;
@@ -28,6 +31,8 @@ public class ServiceService {
     private final ServiceRepository serviceRepository;
     private final FavoriteRepository favoriteRepository;
     private final CartItemRepository cartItemRepository;
+    private final CounterService counterService;
+    private final PartnerAnalyticsService analyticsService;
 
     /**
      * Получение услуг с расширенной фильтрацией и сортировкой.
@@ -61,9 +66,8 @@ public class ServiceService {
                 .orElseThrow(() -> new NotFoundException("Услуга не найдена"));
 
         // Увеличиваем счетчик просмотров
-        Integer currentViews = service.getViewsCount() != null ? service.getViewsCount() : 0;
-        service.setViewsCount(currentViews + 1);
-        serviceRepository.save(service);
+        counterService.increment(CounterType.SERVICE_VIEWS, serviceId);
+        analyticsService.recordView(service.getPartner().getId());
 
         return mapToResponse(service, userId);
     }
@@ -145,6 +149,7 @@ public class ServiceService {
                 .reviewsCount(service.getReviewsCount())
                 .viewsCount(service.getViewsCount())
                 .bookingsCount(service.getBookingsCount())
+                .favoritesCount(service.getFavoritesCount())
                 .thumbnail(service.getThumbnail())
                 .images(images)
                 .isFavorite(isFavorite)
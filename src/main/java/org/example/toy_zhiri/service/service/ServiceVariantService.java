@@ -22,11 +22,16 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис управления вариантами услуг (залы ресторана, модели авто, пакеты и т.п.).
@@ -197,6 +202,27 @@ public class ServiceVariantService {
         return variantRepository.existsByServiceId(serviceId);
     }
 
+    /**
+     * Возвращает ID услуг из набора, у которых есть варианты — одним запросом.
+     */
+    public Set<UUID> findServiceIdsWithVariants(Collection<UUID> serviceIds) {
+        if (serviceIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(variantRepository.findServiceIdsWithVariants(serviceIds));
+    }
+
+    /**
+     * Возвращает варианты по набору ID одним запросом.
+     */
+    public Map<UUID, ServiceVariant> findAllByIds(Collection<UUID> variantIds) {
+        if (variantIds.isEmpty()) {
+            return Map.of();
+        }
+        return variantRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(ServiceVariant::getId, Function.identity()));
+    }
+
     private Service findServiceOwnedByUser(UUID userId, UUID serviceId) {
         Partner partner = partnerRepository.findByUserId(userId)
                 .orElseThrow(() -> new NotFoundException("Профиль партнёра не найден"));
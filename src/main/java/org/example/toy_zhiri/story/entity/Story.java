@@ -70,7 +70,7 @@ public class Story {
     @Column(name = "payment_id", length = 255)
     private String paymentId;
 
-    @Column(name = "views_count", nullable = false)
+    @Column(name = "views_count", nullable = false, updatable = false)
     private Integer viewsCount = 0;
 
     @Column(name = "expires_at", nullable = false)
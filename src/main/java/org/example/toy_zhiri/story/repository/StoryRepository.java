@@ -5,7 +5,6 @@ import org.example.toy_zhiri.story.enums.StoryStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -51,14 +50,6 @@ public interface StoryRepository extends JpaRepository<Story, UUID> {
      */
     List<Story> findByStatusAndExpiresAtBefore(StoryStatus status, LocalDateTime now);
 
-    /**
-     * Атомарный инкремент счётчика просмотров.
-     * Используется только после успешной вставки уникального StoryView.
-     */
-    @Modifying
-    @Query("UPDATE Story s SET s.viewsCount = s.viewsCount + 1 WHERE s.id = :storyId")
-    void incrementViewsCount(@Param("storyId") UUID storyId);
-
     /**
      * Все сторис с фильтром по статусу — для админ-панели.
      */
@@ -4,6 +4,8 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.toy_zhiri.admin.dto.MessageResponse;
+import org.example.toy_zhiri.counter.enums.CounterType;
+import org.example.toy_zhiri.counter.service.CounterService;
 import org.example.toy_zhiri.exception.AccessDeniedException;
 import org.example.toy_zhiri.exception.InvalidStateException;
 import org.example.toy_zhiri.exception.NotFoundException;
@@ -65,6 +67,7 @@ public class StoryService {
     private final PartnerRepository partnerRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final CounterService counterService;
 
     /**
      * Создаёт сторис с моковой оплатой.
@@ -174,7 +177,7 @@ public class StoryService {
                     .user(user)
                     .build();
             storyViewRepository.save(view);
-            storyRepository.incrementViewsCount(storyId);
+            counterService.increment(CounterType.STORY_VIEWS, storyId);
         } catch (DataIntegrityViolationException e) {
             // Гонка: запись уже существует — это нормально, считается зарегистрированной
             log.debug("Просмотр сторис {} пользователем {} уже зарегистрирован", storyId, userId);
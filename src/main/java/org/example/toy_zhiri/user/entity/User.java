@@ -65,6 +65,13 @@ public class User {
     @Column(name = "lastlogin")
     private LocalDateTime lastLogin;
 
+    // Счётчики непрочитанного меняются только атомарными UPDATE через CounterService
+    @Column(name = "unread_notifications_count", insertable = false, updatable = false)
+    private Long unreadNotificationsCount;
+
+    @Column(name = "unread_chat_messages_count", insertable = false, updatable = false)
+    private Long unreadChatMessagesCount;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
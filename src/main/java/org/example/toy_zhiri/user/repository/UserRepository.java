@@ -4,6 +4,8 @@ import org.example.toy_zhiri.user.entity.User;
 import org.example.toy_zhiri.user.enums.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -60,4 +62,27 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
      * @return количество пользователей
      */
     long countByIsActive(Boolean isActive);
+
+    /**
+     * Возвращает денормализованные счётчики непрочитанного пользователя (чтение по PK).
+     *
+     * @param userId идентификатор пользователя
+     * @return Optional со счётчиками
+     */
+    @Query("""
+            SELECT u.unreadNotificationsCount AS notifications,
+                   u.unreadChatMessagesCount AS chatMessages
+            FROM User u
+            WHERE u.id = :userId
+            """)
+    Optional<UnreadCounters> findUnreadCounters(@Param("userId") UUID userId);
+
+    /**
+     * Проекция счётчиков непрочитанного.
+     */
+    interface UnreadCounters {
+        long getNotifications();
+
+        long getChatMessages();
+    }
 }
\ No newline at end of file
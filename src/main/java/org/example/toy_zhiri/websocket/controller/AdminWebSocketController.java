@@ -0,0 +1,34 @@
+package org.example.toy_zhiri.websocket.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.websocket.dto.WebSocketStatsResponse;
+import org.example.toy_zhiri.websocket.service.WebSocketMetricsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/websocket")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin WebSocket", description = "Мониторинг STOMP/WebSocket-слоя (только для админов)")
+public class AdminWebSocketController {
+    private final WebSocketMetricsService metricsService;
+
+    @GetMapping("/stats")
+    @Operation(
+            summary = "Состояние WebSocket-слоя",
+            description = "Открытые сессии, отклонённые подключения и отключения медленных клиентов, " +
+                    "количество и скорость входящих/исходящих фреймов, потерянные фреймы " +
+                    "и глубина очередей пулов каналов.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<WebSocketStatsResponse> getStats() {
+        return ResponseEntity.ok(metricsService.getStats());
+    }
+}
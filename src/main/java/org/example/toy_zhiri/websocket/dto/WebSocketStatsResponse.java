@@ -0,0 +1,42 @@
+package org.example.toy_zhiri.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Состояние STOMP/WebSocket-слоя.
+ * Счётчики накопительные с момента старта экземпляра, скорости — за последний интервал замера.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketStatsResponse {
+
+    // Сессии
+    private Integer openSessions;
+    private Integer connectedUsers;
+    private Long sessionsOpened;
+    private Long sessionsClosed;
+    private Long rejectedConnections;
+    private Long slowConsumerDisconnects;
+
+    // Фреймы
+    private Long inboundMessages;
+    private Long outboundMessages;
+    private Long droppedInbound;
+    private Long droppedOutbound;
+    private Double inboundPerSecond;
+    private Double outboundPerSecond;
+
+    // Очереди пулов каналов
+    private Integer inboundQueueDepth;
+    private Integer inboundActiveThreads;
+    private Integer outboundQueueDepth;
+    private Integer outboundActiveThreads;
+
+    // Сводка Spring (WebSocketMessageBrokerStats)
+    private String brokerStats;
+}
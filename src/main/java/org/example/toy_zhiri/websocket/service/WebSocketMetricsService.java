@@ -0,0 +1,174 @@
+package org.example.toy_zhiri.websocket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.toy_zhiri.websocket.dto.WebSocketStatsResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики STOMP/WebSocket-слоя: сессии, поток фреймов, глубина очередей и потери.
+ * <p>
+ * Подключается в WebSocketConfig: интерсепторы входящего и исходящего каналов считают
+ * фреймы и отказы пулов (переполненная очередь = потерянный фрейм), декоратор обработчика
+ * считает сессии и отключения медленных клиентов (закрытие с SESSION_NOT_RELIABLE при
+ * превышении send-time/buffer лимитов). Бины брокера берутся лениво, чтобы не создавать
+ * цикл зависимостей с конфигурацией брокера.
+ */
+@Service
+@RequiredArgsConstructor
+public class WebSocketMetricsService {
+    private static final String INBOUND_EXECUTOR = "clientInboundChannelExecutor";
+    private static final String OUTBOUND_EXECUTOR = "clientOutboundChannelExecutor";
+
+    private final ApplicationContext applicationContext;
+    private final ObjectProvider<SimpUserRegistry> simpUserRegistry;
+    private final ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicLong sessionsOpened = new AtomicLong();
+    private final AtomicLong sessionsClosed = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+
+    private final AtomicLong inboundMessages = new AtomicLong();
+    private final AtomicLong outboundMessages = new AtomicLong();
+    private final AtomicLong droppedInbound = new AtomicLong();
+    private final AtomicLong droppedOutbound = new AtomicLong();
+
+    private volatile long lastSampleAt = System.currentTimeMillis();
+    private volatile long lastInbound;
+    private volatile long lastOutbound;
+    private volatile double inboundPerSecond;
+    private volatile double outboundPerSecond;
+
+    /**
+     * Интерсептор входящего канала (фреймы от клиентов).
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new CountingInterceptor(inboundMessages, droppedInbound);
+    }
+
+    /**
+     * Интерсептор исходящего канала (фреймы клиентам).
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new CountingInterceptor(outboundMessages, droppedOutbound);
+    }
+
+    /**
+     * Декоратор WebSocket-обработчика для учёта сессий.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                sessionsOpened.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                sessionsClosed.incrementAndGet();
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                    slowConsumerDisconnects.incrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Учитывает подключение, отклонённое лимитом сессий на пользователя.
+     */
+    public void recordRejectedConnection() {
+        rejectedConnections.incrementAndGet();
+    }
+
+    /**
+     * Пересчитывает скорость фреймов за прошедший интервал.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.metrics-sample-interval-ms:10000}")
+    public void sample() {
+        long now = System.currentTimeMillis();
+        long inbound = inboundMessages.get();
+        long outbound = outboundMessages.get();
+        double seconds = Math.max(now - lastSampleAt, 1) / 1000.0;
+
+        inboundPerSecond = (inbound - lastInbound) / seconds;
+        outboundPerSecond = (outbound - lastOutbound) / seconds;
+        lastInbound = inbound;
+        lastOutbound = outbound;
+        lastSampleAt = now;
+    }
+
+    /**
+     * Текущее состояние WebSocket-слоя.
+     */
+    public WebSocketStatsResponse getStats() {
+        ThreadPoolExecutor inbound = findExecutor(INBOUND_EXECUTOR);
+        ThreadPoolExecutor outbound = findExecutor(OUTBOUND_EXECUTOR);
+        SimpUserRegistry registry = simpUserRegistry.getIfAvailable();
+        WebSocketMessageBrokerStats stats = brokerStats.getIfAvailable();
+
+        return WebSocketStatsResponse.builder()
+                .openSessions(openSessions.get())
+                .connectedUsers(registry != null ? registry.getUserCount() : null)
+                .sessionsOpened(sessionsOpened.get())
+                .sessionsClosed(sessionsClosed.get())
+                .rejectedConnections(rejectedConnections.get())
+                .slowConsumerDisconnects(slowConsumerDisconnects.get())
+                .inboundMessages(inboundMessages.get())
+                .outboundMessages(outboundMessages.get())
+                .droppedInbound(droppedInbound.get())
+                .droppedOutbound(droppedOutbound.get())
+                .inboundPerSecond(inboundPerSecond)
+                .outboundPerSecond(outboundPerSecond)
+                .inboundQueueDepth(inbound != null ? inbound.getQueue().size() : null)
+                .inboundActiveThreads(inbound != null ? inbound.getActiveCount() : null)
+                .outboundQueueDepth(outbound != null ? outbound.getQueue().size() : null)
+                .outboundActiveThreads(outbound != null ? outbound.getActiveCount() : null)
+                .brokerStats(stats != null ? stats.toString() : null)
+                .build();
+    }
+
+    private ThreadPoolExecutor findExecutor(String beanName) {
+        if (!applicationContext.containsBean(beanName)) {
+            return null;
+        }
+        Object bean = applicationContext.getBean(beanName);
+        return bean instanceof ThreadPoolTaskExecutor executor ? executor.getThreadPoolExecutor() : null;
+    }
+
+    /**
+     * Считает отправленные в канал фреймы; неудачная отправка (например, отказ
+     * переполненного пула) считается потерянным фреймом.
+     */
+    private record CountingInterceptor(AtomicLong messages, AtomicLong dropped) implements ChannelInterceptor {
+        @Override
+        public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+            if (sent && ex == null) {
+                messages.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+ALTER TABLE services
+    ADD COLUMN favorites_count INT NOT NULL DEFAULT 0;
+
+UPDATE services s
+SET favorites_count = (SELECT COUNT(*) FROM favorites f WHERE f.service_id = s.id);
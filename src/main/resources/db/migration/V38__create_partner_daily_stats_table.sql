@@ -0,0 +1,23 @@
+-- Дневные агрегаты по бронированиям партнёра.
+-- Обновляются инкрементально при переходах статусов бронирования,
+-- дашборд партнёра читает только эту таблицу.
+CREATE TABLE partner_daily_stats
+(
+    id                     UUID PRIMARY KEY        DEFAULT gen_random_uuid(),
+    partner_id             UUID           NOT NULL,
+    day                    DATE           NOT NULL,
+    created_count          INT            NOT NULL DEFAULT 0,
+    confirmed_count        INT            NOT NULL DEFAULT 0,
+    rejected_count         INT            NOT NULL DEFAULT 0,
+    cancelled_count        INT            NOT NULL DEFAULT 0,
+    completed_count        INT            NOT NULL DEFAULT 0,
+    expired_count          INT            NOT NULL DEFAULT 0,
+    views_count            INT            NOT NULL DEFAULT 0,
+    revenue                DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    response_seconds_total BIGINT         NOT NULL DEFAULT 0,
+    responses_count        INT            NOT NULL DEFAULT 0,
+
+    CONSTRAINT fk_partner_daily_stats_partner FOREIGN KEY (partner_id)
+        REFERENCES partners (id) ON DELETE CASCADE,
+    CONSTRAINT uq_partner_daily_stats_partner_day UNIQUE (partner_id, day)
+);
@@ -0,0 +1,12 @@
+-- Индексы для поиска по бронированиям партнёра.
+-- Курсорная пагинация идёт по (created_at DESC, id DESC) в рамках партнёра.
+CREATE INDEX idx_bookings_partner_created ON bookings (partner_id, created_at DESC, id DESC);
+CREATE INDEX idx_bookings_partner_status_created ON bookings (partner_id, status, created_at DESC, id DESC);
+CREATE INDEX idx_bookings_partner_event_date ON bookings (partner_id, event_date);
+
+-- Поиск клиента по началу имени/фамилии (LIKE 'ив%' и LIKE '% ив%') и по началу телефона
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_users_full_name_trgm ON users
+    USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+CREATE INDEX idx_users_phone_prefix ON users (phone text_pattern_ops);
@@ -0,0 +1,9 @@
+-- Подписка партнёра на календарь бронирований (iCal/JSON).
+-- calendar_token — секрет в URL ленты, calendar_version — счётчик изменений,
+-- по которому лента отдаёт ETag и 304 без чтения бронирований.
+ALTER TABLE partners
+    ADD COLUMN calendar_token      VARCHAR(64),
+    ADD COLUMN calendar_version    BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN calendar_updated_at TIMESTAMP;
+
+CREATE UNIQUE INDEX idx_partners_calendar_token ON partners (calendar_token);
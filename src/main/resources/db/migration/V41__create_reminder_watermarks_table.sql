@@ -0,0 +1,13 @@
+-- Водяной знак планировщика напоминаний: все напоминания со сроком
+-- не позже fired_until уже отправлены. После рестарта планировщик
+-- досылает только то, что попало в интервал (fired_until, now].
+CREATE TABLE reminder_watermarks
+(
+    name        VARCHAR(50) PRIMARY KEY,
+    fired_until TIMESTAMP NOT NULL,
+    updated_at  TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Старт с текущего момента: при первом деплое старые напоминания не рассылаются
+INSERT INTO reminder_watermarks (name, fired_until)
+VALUES ('EVENT_REMINDER', NOW());
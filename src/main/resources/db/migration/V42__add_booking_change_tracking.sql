@@ -0,0 +1,57 @@
+-- Инкрементальная синхронизация списков бронирований.
+-- Каждое изменение строки bookings получает новый номер из booking_change_seq,
+-- удаления (в т.ч. каскадные) оставляют tombstone с номером из той же последовательности.
+-- Клиент передаёт последний увиденный номер и получает только изменения после него.
+CREATE SEQUENCE booking_change_seq;
+
+ALTER TABLE bookings ADD COLUMN change_seq BIGINT;
+
+UPDATE bookings SET change_seq = nextval('booking_change_seq');
+
+ALTER TABLE bookings ALTER COLUMN change_seq SET NOT NULL;
+ALTER TABLE bookings ALTER COLUMN change_seq SET DEFAULT nextval('booking_change_seq');
+
+CREATE INDEX idx_bookings_user_change_seq ON bookings (user_id, change_seq);
+CREATE INDEX idx_bookings_partner_change_seq ON bookings (partner_id, change_seq);
+
+CREATE TABLE booking_tombstones
+(
+    booking_id UUID PRIMARY KEY,
+    user_id    UUID      NOT NULL,
+    partner_id UUID      NOT NULL,
+    change_seq BIGINT    NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_booking_tombstones_user_change_seq ON booking_tombstones (user_id, change_seq);
+CREATE INDEX idx_booking_tombstones_partner_change_seq ON booking_tombstones (partner_id, change_seq);
+
+-- Номер изменения выставляется в БД, поэтому его получают все пути записи:
+-- JPA save, условные UPDATE-ы переходов статусов и любые будущие запросы
+CREATE FUNCTION bookings_touch_change_seq() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.change_seq := nextval('booking_change_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_bookings_change_seq
+    BEFORE UPDATE ON bookings
+    FOR EACH ROW
+EXECUTE FUNCTION bookings_touch_change_seq();
+
+CREATE FUNCTION bookings_write_tombstone() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO booking_tombstones (booking_id, user_id, partner_id, change_seq)
+    VALUES (OLD.id, OLD.user_id, OLD.partner_id, nextval('booking_change_seq'))
+    ON CONFLICT (booking_id) DO UPDATE SET change_seq = EXCLUDED.change_seq, deleted_at = NOW();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_bookings_tombstone
+    AFTER DELETE ON bookings
+    FOR EACH ROW
+EXECUTE FUNCTION bookings_write_tombstone();
@@ -0,0 +1,14 @@
+-- Персистентная очередь уведомлений (app.notifications.persistent-queue=true).
+-- Запись добавляется в транзакции бизнес-операции и удаляется воркером
+-- в одной транзакции с доставкой, поэтому падение процесса не теряет уведомления.
+CREATE TABLE notification_outbox
+(
+    id                  BIGSERIAL PRIMARY KEY,
+    user_id             UUID         NOT NULL,
+    type                VARCHAR(50)  NOT NULL,
+    title               VARCHAR(255) NOT NULL,
+    message             TEXT         NOT NULL,
+    related_entity_type VARCHAR(50),
+    related_entity_id   UUID,
+    created_at          TIMESTAMP    NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,37 @@
+-- Денормализованные счётчики непрочитанного.
+-- Меняются только атомарными UPDATE через CounterService в той же транзакции,
+-- что и сами уведомления/сообщения; расхождения исправляет CounterReconciliationJob.
+ALTER TABLE users ADD COLUMN unread_notifications_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN unread_chat_messages_count BIGINT NOT NULL DEFAULT 0;
+
+-- Непрочитанное по участникам диалога: клиента (chats.user_id) и владельца партнёра
+ALTER TABLE chats ADD COLUMN client_unread_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE chats ADD COLUMN partner_unread_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET unread_notifications_count = (SELECT COUNT(*)
+                                  FROM notifications n
+                                  WHERE n.user_id = u.id
+                                    AND n.is_read = false);
+
+UPDATE chats c
+SET client_unread_count  = (SELECT COUNT(*)
+                            FROM chat_messages m
+                            WHERE m.chat_id = c.id
+                              AND m.is_read = false
+                              AND m.sender_id <> c.user_id),
+    partner_unread_count = (SELECT COUNT(*)
+                            FROM chat_messages m
+                                     JOIN partners p ON p.id = c.partner_id
+                            WHERE m.chat_id = c.id
+                              AND m.is_read = false
+                              AND m.sender_id <> p.user_id);
+
+UPDATE users u
+SET unread_chat_messages_count = COALESCE((SELECT SUM(c.client_unread_count)
+                                           FROM chats c
+                                           WHERE c.user_id = u.id), 0)
+                               + COALESCE((SELECT SUM(c.partner_unread_count)
+                                           FROM chats c
+                                                    JOIN partners p ON p.id = c.partner_id
+                                           WHERE p.user_id = u.id), 0);
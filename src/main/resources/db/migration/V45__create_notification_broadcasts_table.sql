@@ -0,0 +1,33 @@
+-- Массовые рассылки (PROMOTION) от администратора.
+-- Рассылка идёт порциями по users.id (keyset); курсор сохраняется в той же транзакции,
+-- что и вставка уведомлений порции, поэтому после рестарта она продолжается без дублей.
+CREATE TABLE notification_broadcasts
+(
+    id                   UUID PRIMARY KEY      DEFAULT gen_random_uuid(),
+    title                VARCHAR(255) NOT NULL,
+    message              TEXT         NOT NULL,
+    send_email           BOOLEAN      NOT NULL DEFAULT true,
+    status               VARCHAR(20)  NOT NULL,
+
+    -- Прогресс: in-app уведомления, затем email
+    recipients_count     BIGINT       NOT NULL DEFAULT 0,
+    emails_sent          BIGINT       NOT NULL DEFAULT 0,
+    cursor_user_id       UUID,
+    email_cursor_user_id UUID,
+
+    created_by           UUID,
+    error_message        TEXT,
+    created_at           TIMESTAMP    NOT NULL DEFAULT NOW(),
+    started_at           TIMESTAMP,
+    finished_at          TIMESTAMP,
+
+    CONSTRAINT fk_notification_broadcasts_created_by FOREIGN KEY (created_by)
+        REFERENCES users (id) ON DELETE SET NULL
+);
+
+CREATE INDEX idx_notification_broadcasts_status ON notification_broadcasts (status);
+
+-- Выборка получателей рассылки: только пользователи с включёнными акциями
+CREATE INDEX idx_notification_settings_promotions
+    ON notification_settings (user_id)
+    WHERE promotions = true;
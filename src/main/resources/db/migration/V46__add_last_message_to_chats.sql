@@ -0,0 +1,19 @@
+-- Превью последнего сообщения хранится в самом диалоге:
+-- список чатов читается одним запросом без подзапросов к chat_messages.
+ALTER TABLE chats ADD COLUMN last_message_preview TEXT;
+ALTER TABLE chats ADD COLUMN last_message_sender_id UUID;
+
+UPDATE chats c
+SET last_message_preview   = last.preview,
+    last_message_sender_id = last.sender_id
+FROM (SELECT DISTINCT ON (m.chat_id) m.chat_id,
+                                     m.sender_id,
+                                     CASE
+                                         WHEN m.content IS NOT NULL AND btrim(m.content) <> '' THEN m.content
+                                         WHEN cardinality(m.attachment_urls) > 1
+                                             THEN '📎 Вложение (' || cardinality(m.attachment_urls) || ')'
+                                         WHEN cardinality(m.attachment_urls) = 1 THEN '📎 Вложение'
+                                         END AS preview
+      FROM chat_messages m
+      ORDER BY m.chat_id, m.created_at DESC) last
+WHERE last.chat_id = c.id;
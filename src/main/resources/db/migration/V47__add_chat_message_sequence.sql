@@ -0,0 +1,27 @@
+-- Монотонный номер сообщения внутри чата и идемпотентные клиентские ID.
+-- Номер выдаётся из chats.last_message_seq под блокировкой строки чата,
+-- поэтому порядок номеров совпадает с порядком коммитов в пределах чата
+-- и догрузка «после seq» после переподключения ничего не пропускает.
+ALTER TABLE chats ADD COLUMN last_message_seq BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE chat_messages ADD COLUMN seq BIGINT;
+ALTER TABLE chat_messages ADD COLUMN client_message_id UUID;
+
+UPDATE chat_messages m
+SET seq = numbered.seq
+FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY chat_id ORDER BY created_at, id) AS seq
+      FROM chat_messages) numbered
+WHERE numbered.id = m.id;
+
+UPDATE chats c
+SET last_message_seq = COALESCE((SELECT MAX(m.seq) FROM chat_messages m WHERE m.chat_id = c.id), 0);
+
+ALTER TABLE chat_messages ALTER COLUMN seq SET NOT NULL;
+
+-- Курсорная выборка истории в обе стороны
+CREATE UNIQUE INDEX uq_chat_messages_chat_seq ON chat_messages (chat_id, seq);
+
+-- Повтор отправки с тем же client_message_id возвращает уже сохранённое сообщение
+CREATE UNIQUE INDEX uq_chat_messages_client_message_id
+    ON chat_messages (chat_id, sender_id, client_message_id)
+    WHERE client_message_id IS NOT NULL;
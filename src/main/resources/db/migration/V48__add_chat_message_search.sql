@@ -0,0 +1,8 @@
+-- Полнотекстовый поиск по сообщениям чатов.
+-- tsvector вычисляется самой БД при вставке/изменении текста, GIN-индекс
+-- находит совпадения без полного просмотра chat_messages.
+ALTER TABLE chat_messages
+    ADD COLUMN content_tsv tsvector
+        GENERATED ALWAYS AS (to_tsvector('russian', COALESCE(content, ''))) STORED;
+
+CREATE INDEX idx_chat_messages_content_tsv ON chat_messages USING GIN (content_tsv);
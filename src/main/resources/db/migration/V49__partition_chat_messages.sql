@@ -0,0 +1,112 @@
+-- Помесячное секционирование chat_messages по created_at и архив холодных месяцев.
+--
+-- Секции создаются заранее функцией create_chat_messages_partition (её вызывает
+-- ChatPartitionMaintenanceJob на несколько месяцев вперёд). Индексы объявлены на
+-- родительской таблице и создаются в каждой секции автоматически.
+--
+-- Уникальные индексы секционированной таблицы обязаны включать ключ секционирования,
+-- поэтому (chat_id, seq) и (chat_id, sender_id, client_message_id) дополнены created_at.
+-- Номера по-прежнему уникальны — их выдаёт атомарный UPDATE chats.last_message_seq;
+-- повтор clientMessageId отсекается проверкой в ChatService/ChatMessageWriter.
+
+ALTER TABLE chat_messages RENAME TO chat_messages_legacy;
+
+CREATE TABLE chat_messages
+(
+    id                UUID      NOT NULL DEFAULT gen_random_uuid(),
+    chat_id           UUID      NOT NULL,
+    sender_id         UUID      NOT NULL,
+    seq               BIGINT    NOT NULL,
+    client_message_id UUID,
+    content           TEXT,
+    attachment_urls   text[],
+    is_read           BOOLEAN   NOT NULL DEFAULT false,
+    read_at           TIMESTAMP,
+    created_at        TIMESTAMP NOT NULL DEFAULT NOW(),
+    content_tsv       tsvector GENERATED ALWAYS AS (to_tsvector('russian', COALESCE(content, ''))) STORED,
+
+    CONSTRAINT pk_chat_messages PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_chat_messages_chat_p FOREIGN KEY (chat_id)
+        REFERENCES chats (id) ON DELETE CASCADE,
+    CONSTRAINT fk_chat_messages_sender_p FOREIGN KEY (sender_id)
+        REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT chk_chat_messages_content_or_attachments_p
+        CHECK (
+            content IS NOT NULL
+                OR (attachment_urls IS NOT NULL AND array_length(attachment_urls, 1) > 0)
+            )
+) PARTITION BY RANGE (created_at);
+
+-- Создаёт секцию месяца, в который попадает p_month (если её ещё нет)
+CREATE OR REPLACE FUNCTION create_chat_messages_partition(p_month DATE) RETURNS TEXT AS
+$$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_to   DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'chat_messages_' || to_char(v_from, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_from, v_to);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Секции под существующие данные и на три месяца вперёд
+DO
+$$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM chat_messages_legacy), NOW()))::DATE;
+BEGIN
+    WHILE v_month <= (date_trunc('month', NOW()) + INTERVAL '3 months')::DATE
+        LOOP
+            PERFORM create_chat_messages_partition(v_month);
+            v_month := (v_month + INTERVAL '1 month')::DATE;
+        END LOOP;
+END;
+$$;
+
+-- Страховка: строки вне созданных секций не теряются (в норме секция пустая)
+CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+
+INSERT INTO chat_messages (id, chat_id, sender_id, seq, client_message_id, content,
+                           attachment_urls, is_read, read_at, created_at)
+SELECT id, chat_id, sender_id, seq, client_message_id, content,
+       attachment_urls, is_read, read_at, created_at
+FROM chat_messages_legacy;
+
+DROP TABLE chat_messages_legacy;
+
+ALTER TABLE chat_messages RENAME CONSTRAINT fk_chat_messages_chat_p TO fk_chat_messages_chat;
+ALTER TABLE chat_messages RENAME CONSTRAINT fk_chat_messages_sender_p TO fk_chat_messages_sender;
+ALTER TABLE chat_messages RENAME CONSTRAINT chk_chat_messages_content_or_attachments_p
+    TO chk_chat_messages_content_or_attachments;
+
+CREATE INDEX idx_chat_messages_chat_created ON chat_messages (chat_id, created_at DESC);
+CREATE INDEX idx_chat_messages_sender_id ON chat_messages (sender_id);
+CREATE INDEX idx_chat_messages_unread ON chat_messages (chat_id, is_read) WHERE is_read = false;
+CREATE INDEX idx_chat_messages_content_tsv ON chat_messages USING GIN (content_tsv);
+CREATE UNIQUE INDEX uq_chat_messages_chat_seq ON chat_messages (chat_id, seq, created_at);
+CREATE UNIQUE INDEX uq_chat_messages_client_message_id
+    ON chat_messages (chat_id, sender_id, client_message_id, created_at)
+    WHERE client_message_id IS NOT NULL;
+
+-- Архив: один сжатый JSON-массив сообщений на (чат, месяц).
+-- Читается историей чата, когда живые сообщения закончились.
+CREATE TABLE chat_message_archive
+(
+    chat_id       UUID      NOT NULL,
+    period_start  DATE      NOT NULL,
+    min_seq       BIGINT    NOT NULL,
+    max_seq       BIGINT    NOT NULL,
+    message_count INTEGER   NOT NULL,
+    messages      JSONB     NOT NULL,
+    archived_at   TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT pk_chat_message_archive PRIMARY KEY (chat_id, period_start),
+    CONSTRAINT fk_chat_message_archive_chat FOREIGN KEY (chat_id)
+        REFERENCES chats (id) ON DELETE CASCADE
+);
+
+ALTER TABLE chat_message_archive ALTER COLUMN messages SET COMPRESSION lz4;
+
+CREATE INDEX idx_chat_message_archive_chat_seq ON chat_message_archive (chat_id, max_seq DESC);
@@ -0,0 +1,69 @@
+-- Курсор дельта-синхронизации бронирований по номеру транзакции.
+-- Номер из booking_change_seq выдаётся при записи, а виден — только после коммита, поэтому
+-- долгая транзакция может закоммитить номер N после того, как клиент уже прочитал N+1.
+-- Теперь каждая запись помечается номером своей транзакции (change_xid), а изменения
+-- отдаются только из транзакций старше самой старой незавершённой
+-- (pg_snapshot_xmin(pg_current_snapshot())) — такие транзакции гарантированно завершены,
+-- и ни одна из них больше не станет видимой позже.
+CREATE FUNCTION current_change_xid() RETURNS BIGINT AS
+$$
+SELECT pg_current_xact_id()::text::bigint
+$$ LANGUAGE sql VOLATILE;
+
+CREATE FUNCTION stable_change_xid() RETURNS BIGINT AS
+$$
+SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+$$ LANGUAGE sql STABLE;
+
+-- Существующие строки получают номер транзакции миграции: клиенты со старыми
+-- курсорами (номерами из booking_change_seq) один раз получат всё заново
+ALTER TABLE bookings ADD COLUMN change_xid BIGINT;
+UPDATE bookings SET change_xid = current_change_xid();
+ALTER TABLE bookings ALTER COLUMN change_xid SET NOT NULL;
+ALTER TABLE bookings ALTER COLUMN change_xid SET DEFAULT current_change_xid();
+
+ALTER TABLE booking_tombstones ADD COLUMN change_xid BIGINT;
+UPDATE booking_tombstones SET change_xid = current_change_xid();
+ALTER TABLE booking_tombstones ALTER COLUMN change_xid SET NOT NULL;
+
+DROP INDEX idx_bookings_user_change_seq;
+DROP INDEX idx_bookings_partner_change_seq;
+DROP INDEX idx_booking_tombstones_user_change_seq;
+DROP INDEX idx_booking_tombstones_partner_change_seq;
+
+CREATE INDEX idx_bookings_user_change_xid ON bookings (user_id, change_xid, change_seq);
+CREATE INDEX idx_bookings_partner_change_xid ON bookings (partner_id, change_xid, change_seq);
+CREATE INDEX idx_booking_tombstones_user_change_xid ON booking_tombstones (user_id, change_xid, change_seq);
+CREATE INDEX idx_booking_tombstones_partner_change_xid ON booking_tombstones (partner_id, change_xid, change_seq);
+CREATE INDEX idx_booking_tombstones_deleted_at ON booking_tombstones (deleted_at);
+
+CREATE OR REPLACE FUNCTION bookings_touch_change_seq() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.change_seq := nextval('booking_change_seq');
+    NEW.change_xid := current_change_xid();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bookings_write_tombstone() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO booking_tombstones (booking_id, user_id, partner_id, change_seq, change_xid)
+    VALUES (OLD.id, OLD.user_id, OLD.partner_id, nextval('booking_change_seq'), current_change_xid())
+    ON CONFLICT (booking_id) DO UPDATE SET change_seq = EXCLUDED.change_seq,
+                                           change_xid = EXCLUDED.change_xid,
+                                           deleted_at = NOW();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Граница очистки tombstone-ов: клиенту с курсором ниже неё нужна полная пересинхронизация
+CREATE TABLE booking_tombstone_watermark
+(
+    id           SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    pruned_until BIGINT    NOT NULL,
+    updated_at   TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO booking_tombstone_watermark (pruned_until) VALUES (0);
@@ -0,0 +1,24 @@
+-- Повторы и dead-letter для notification_outbox.
+-- Пачка, которая не доставляется, раньше откатывалась и забиралась снова в порядке id,
+-- навсегда блокируя голову очереди. Теперь при отказе пачки строки доставляются по одной:
+-- неудачная строка откладывается с экспоненциальной задержкой (next_attempt_at),
+-- а после app.notifications.max-attempts попыток переносится в notification_outbox_dead.
+ALTER TABLE notification_outbox
+    ADD COLUMN attempts        INT       NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    ADD COLUMN last_error      TEXT;
+
+CREATE TABLE notification_outbox_dead
+(
+    id                  BIGINT PRIMARY KEY,
+    user_id             UUID        NOT NULL,
+    type                VARCHAR(50) NOT NULL,
+    title               TEXT        NOT NULL,
+    message             TEXT        NOT NULL,
+    related_entity_type VARCHAR(50),
+    related_entity_id   UUID,
+    created_at          TIMESTAMP   NOT NULL,
+    attempts            INT         NOT NULL,
+    last_error          TEXT,
+    dead_at             TIMESTAMP   NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,8 @@
+-- Поиск по сообщениям всегда ограничен чатами пользователя. Составной GIN-индекс
+-- (chat_id, content_tsv) находит совпадения сразу внутри нужных чатов, а не по всем
+-- сообщениям всех пользователей с последующей фильтрацией. uuid в GIN — через btree_gin.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX idx_chat_messages_chat_content_tsv ON chat_messages USING gin (chat_id, content_tsv);
+
+DROP INDEX idx_chat_messages_content_tsv;
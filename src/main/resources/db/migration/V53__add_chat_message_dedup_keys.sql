@@ -0,0 +1,44 @@
+-- Уникальность номеров и идемпотентность clientMessageId для секционированной chat_messages.
+--
+-- Уникальные индексы секционированной таблицы обязаны включать created_at (см. V49), поэтому
+-- сами по себе не отсекают ни повторный номер, ни повтор clientMessageId с другим временем.
+-- Эти несекционированные таблицы держат настоящие ограничения: ChatMessageWriter пишет в них
+-- в той же транзакции, что и сообщение, а повтор clientMessageId отсекается
+-- ON CONFLICT (chat_id, sender_id, client_message_id).
+-- При архивации секции ключи её сообщений удаляются вместе с ней.
+CREATE TABLE chat_message_keys
+(
+    chat_id    UUID   NOT NULL,
+    seq        BIGINT NOT NULL,
+    message_id UUID   NOT NULL,
+
+    CONSTRAINT pk_chat_message_keys PRIMARY KEY (chat_id, seq),
+    CONSTRAINT fk_chat_message_keys_chat FOREIGN KEY (chat_id)
+        REFERENCES chats (id) ON DELETE CASCADE
+);
+
+CREATE TABLE chat_message_client_ids
+(
+    chat_id           UUID      NOT NULL,
+    sender_id         UUID      NOT NULL,
+    client_message_id UUID      NOT NULL,
+    message_id        UUID      NOT NULL,
+    -- Ключ секции исходного сообщения — поиск по (id, created_at) затрагивает одну секцию
+    created_at        TIMESTAMP NOT NULL,
+
+    CONSTRAINT pk_chat_message_client_ids PRIMARY KEY (chat_id, sender_id, client_message_id),
+    CONSTRAINT fk_chat_message_client_ids_chat FOREIGN KEY (chat_id)
+        REFERENCES chats (id) ON DELETE CASCADE
+);
+
+INSERT INTO chat_message_keys (chat_id, seq, message_id)
+SELECT chat_id, seq, id
+FROM chat_messages;
+
+-- Повторы, записанные до появления таблицы, сводятся к самому раннему сообщению
+INSERT INTO chat_message_client_ids (chat_id, sender_id, client_message_id, message_id, created_at)
+SELECT DISTINCT ON (chat_id, sender_id, client_message_id)
+       chat_id, sender_id, client_message_id, id, created_at
+FROM chat_messages
+WHERE client_message_id IS NOT NULL
+ORDER BY chat_id, sender_id, client_message_id, created_at, id;
@@ -0,0 +1,146 @@
+package org.example.toy_zhiri.chat.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.toy_zhiri.chat.entity.Chat;
+import org.example.toy_zhiri.partner.entity.Partner;
+import org.example.toy_zhiri.partner.enums.PartnerStatus;
+import org.example.toy_zhiri.user.entity.User;
+import org.example.toy_zhiri.user.enums.AuthProvider;
+import org.example.toy_zhiri.user.enums.UserRole;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страница списка диалогов загружается фиксированным числом запросов независимо
+ * от числа диалогов: один fetch-join запрос страницы и один count — без догрузки
+ * клиента, партнёра и владельца партнёра по каждой строке.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ChatRepositoryStatementCountTest {
+    private static final int CHATS = 25;
+    private static final int PAGE_SIZE = 20;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User client;
+    private Partner partner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        client = persistUser("client");
+        List<Partner> partners = new ArrayList<>();
+        for (int i = 0; i < CHATS; i++) {
+            partners.add(persistPartner(persistUser("partner" + i), i));
+        }
+        partner = partners.get(0);
+
+        for (Partner chatPartner : partners) {
+            entityManager.persist(Chat.builder().user(client).partner(chatPartner).build());
+        }
+        for (int i = 1; i < CHATS; i++) {
+            entityManager.persist(Chat.builder().user(persistUser("client" + i)).partner(partner).build());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void clientInboxPageUsesTwoStatements() {
+        Page<Chat> page = chatRepository.findAllByUserId(client.getId(), PageRequest.of(0, PAGE_SIZE));
+        touchAsInbox(page);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(CHATS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+    }
+
+    @Test
+    void partnerInboxPageUsesTwoStatements() {
+        Page<Chat> page = chatRepository.findAllByPartnerId(partner.getId(), PageRequest.of(0, PAGE_SIZE));
+        touchAsInbox(page);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(CHATS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+    }
+
+    /**
+     * Обращается к тем же связям, что и ChatService при построении ChatResponse.
+     */
+    private void touchAsInbox(Page<Chat> page) {
+        for (Chat chat : page.getContent()) {
+            assertThat(chat.getUser().getFullName()).isNotBlank();
+            assertThat(chat.getPartner().getCompanyName()).isNotBlank();
+            assertThat(chat.getPartner().getUser().getEmail()).isNotBlank();
+        }
+    }
+
+    private User persistUser(String name) {
+        User user = User.builder()
+                .email(name + "-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .firstName(name)
+                .lastName("Test")
+                .role(UserRole.USER)
+                .emailVerified(true)
+                .isActive(true)
+                .authProvider(AuthProvider.LOCAL)
+                .profileCompleted(true)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Partner persistPartner(User owner, int index) {
+        Partner created = Partner.builder()
+                .user(owner)
+                .bin(String.format("%012d", index + 1))
+                .companyName("Company " + index)
+                .status(PartnerStatus.APPROVED)
+                .build();
+        entityManager.persist(created);
+        return created;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.toy_zhiri.chat.service;
+
+import org.example.toy_zhiri.chat.dto.ChatTypingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * «Перестал печатать» доходит до собеседника, даже если метка прореживания
+ * уже снята очисткой — иначе индикатор «печатает…» у него не гаснет.
+ */
+class ChatPresenceServiceTest {
+    private static final String PARTNER_EMAIL = "partner@example.com";
+
+    private final PresenceTracker presenceTracker = mock(PresenceTracker.class);
+    private final ChatMembershipCache membershipCache = mock(ChatMembershipCache.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    private ChatPresenceService service;
+    private UUID chatId;
+    private UUID clientUserId;
+
+    @BeforeEach
+    void setUp() {
+        chatId = UUID.randomUUID();
+        clientUserId = UUID.randomUUID();
+        ChatMembership membership = new ChatMembership(chatId,
+                clientUserId, "client@example.com", "Клиент",
+                UUID.randomUUID(), UUID.randomUUID(), PARTNER_EMAIL, "Партнёр", "Той-холл");
+        when(membershipCache.get(chatId)).thenReturn(membership);
+        when(presenceTracker.expire()).thenReturn(List.of());
+
+        service = new ChatPresenceService(presenceTracker, membershipCache, messagingTemplate);
+        ReflectionTestUtils.setField(service, "typingThrottleMillis", 1L);
+    }
+
+    @Test
+    void typingStopIsForwardedAfterSweep() throws InterruptedException {
+        service.typing(chatId, clientUserId, true);
+
+        // Клиент шлёт «перестал» по своему таймауту — позже, чем очистка сняла метку
+        Thread.sleep(10);
+        service.sweep();
+        service.typing(chatId, clientUserId, false);
+
+        ArgumentCaptor<ChatTypingEvent> events = ArgumentCaptor.forClass(ChatTypingEvent.class);
+        verify(messagingTemplate, times(2)).convertAndSendToUser(eq(PARTNER_EMAIL), eq("/queue/typing"), events.capture());
+        assertThat(events.getAllValues()).extracting(ChatTypingEvent::getTyping).containsExactly(true, false);
+    }
+
+    @Test
+    void repeatedTypingWithinThrottleIsDropped() {
+        ReflectionTestUtils.setField(service, "typingThrottleMillis", 60_000L);
+
+        service.typing(chatId, clientUserId, true);
+        service.typing(chatId, clientUserId, true);
+        service.typing(chatId, clientUserId, false);
+
+        ArgumentCaptor<ChatTypingEvent> events = ArgumentCaptor.forClass(ChatTypingEvent.class);
+        verify(messagingTemplate, times(2)).convertAndSendToUser(eq(PARTNER_EMAIL), eq("/queue/typing"), events.capture());
+        assertThat(events.getAllValues()).extracting(ChatTypingEvent::getTyping).containsExactly(true, false);
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.toy_zhiri.config;
+
+import org.example.toy_zhiri.ToyZhiriApplication;
+import org.example.toy_zhiri.auth.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Режим внешнего брокера (app.websocket.relay.enabled=true) на двух экземплярах приложения
+ * с общим ActiveMQ: сообщение, опубликованное одним узлом, доходит до клиента, подключённого
+ * к другому, — и для топиков чатов, и для персональных очередей /user/queue/*.
+ */
+@Testcontainers
+class WebSocketRelayClusterTest {
+    private static final int STOMP_PORT = 61613;
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static GenericContainer<?> broker = new GenericContainer<>(DockerImageName.parse("apache/activemq-classic:5.18.3"))
+            .withExposedPorts(STOMP_PORT)
+            .waitingFor(Wait.forLogMessage(".*Apache ActiveMQ .* started.*", 1));
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static WebSocketStompClient stompClient;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+
+        stompClient = new WebSocketStompClient(new SockJsClient(
+                List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void chatTopicIsDeliveredAcrossNodes() throws Exception {
+        UUID chatId = UUID.randomUUID();
+        StompSession session = connect(nodeA, "topic-" + chatId + "@example.com");
+        BlockingQueue<Map<String, Object>> received = subscribe(session, "/topic/chats/" + chatId);
+
+        // Подписка проходит через брокер асинхронно — публикуем, пока сообщение не дойдёт
+        Map<String, Object> payload = Map.of("chatId", chatId.toString(), "content", "привет");
+        AtomicReference<Map<String, Object>> message = new AtomicReference<>();
+        await().atMost(TIMEOUT).until(() -> {
+            nodeB.getBean(SimpMessagingTemplate.class).convertAndSend("/topic/chats/" + chatId, payload);
+            message.set(received.poll(500, TimeUnit.MILLISECONDS));
+            return message.get() != null;
+        });
+
+        assertThat(message.get()).containsEntry("content", "привет");
+        session.disconnect();
+    }
+
+    @Test
+    void userQueueIsDeliveredAcrossNodes() throws Exception {
+        String email = "user-" + UUID.randomUUID() + "@example.com";
+        StompSession session = connect(nodeA, email);
+        BlockingQueue<Map<String, Object>> received = subscribe(session, "/user/queue/notifications");
+
+        // Узел B разрешает пользователя через общий реестр или рассылку неразрешённых адресов
+        Map<String, Object> payload = Map.of("type", "COUNTS", "unread", 3);
+        AtomicReference<Map<String, Object>> message = new AtomicReference<>();
+        await().atMost(TIMEOUT).until(() -> {
+            nodeB.getBean(SimpMessagingTemplate.class).convertAndSendToUser(email, "/queue/notifications", payload);
+            message.set(received.poll(500, TimeUnit.MILLISECONDS));
+            return message.get() != null;
+        });
+
+        assertThat(message.get()).containsEntry("type", "COUNTS");
+        session.disconnect();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(ToyZhiriApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "app.jwt.secret=relay-cluster-test-secret-relay-cluster-test-secret-relay-cluster-test-secret",
+                        "app.websocket.relay.enabled=true",
+                        "app.websocket.relay.host=" + broker.getHost(),
+                        "app.websocket.relay.port=" + broker.getMappedPort(STOMP_PORT),
+                        "app.websocket.relay.heartbeat-send-ms=0",
+                        "app.websocket.relay.heartbeat-receive-ms=0")
+                .run();
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, String email) throws Exception {
+        String token = node.getBean(JwtTokenProvider.class).generateToken(UUID.randomUUID(), email, "USER");
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+
+        return stompClient.connectAsync("http://localhost:" + port + "/ws", new WebSocketHttpHeaders(),
+                        connectHeaders, new StompSessionHandlerAdapter() {
+                        })
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private static BlockingQueue<Map<String, Object>> subscribe(StompSession session, String destination) {
+        BlockingQueue<Map<String, Object>> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((Map<String, Object>) payload);
+            }
+        });
+        return received;
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.toy_zhiri.notification.service;
+
+import org.example.toy_zhiri.notification.dto.MailDeliveryStatsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Доставка писем через SMTP-стенд в процессе: пачки в одной сессии,
+ * переиспользование соединения и повторы с экспоненциальной задержкой.
+ */
+class MailDeliveryServiceTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private SmtpStubServer smtp;
+    private MailDeliveryService service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.stop();
+        }
+        if (smtp != null) {
+            smtp.close();
+        }
+    }
+
+    @Test
+    void sendsQueuedMailsAsOneBatchOverOneConnection() throws Exception {
+        smtp = new SmtpStubServer(0, true);
+        service = startService(4, 100);
+
+        // Первое письмо держит воркер в SMTP-сессии, пока копятся остальные
+        assertThat(service.submit("user0@example.com", "Тема", "<p>0</p>")).isTrue();
+        assertThat(smtp.awaitFirstMessage(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < 10; i++) {
+            assertThat(service.submit("user" + i + "@example.com", "Тема", "<p>" + i + "</p>")).isTrue();
+        }
+        smtp.releaseFirstMessage();
+
+        await().atMost(TIMEOUT).until(() -> service.getStats().getSent() == 10);
+
+        MailDeliveryStatsResponse stats = service.getStats();
+        assertThat(stats.getSent()).isEqualTo(10);
+        assertThat(stats.getBatches()).isEqualTo(2);
+        assertThat(stats.getConnectionsOpened()).isEqualTo(1);
+        assertThat(smtp.getConnections()).isEqualTo(1);
+        assertThat(smtp.getMessagesPerConnection()).containsExactly(10);
+        assertThat(smtp.getRecipients()).hasSize(10);
+    }
+
+    @Test
+    void reusesConnectionBetweenBatches() throws Exception {
+        smtp = new SmtpStubServer(0, false);
+        service = startService(4, 100);
+
+        service.submit("first@example.com", "Тема", "<p>1</p>");
+        await().atMost(TIMEOUT).until(() -> service.getStats().getSent() == 1);
+
+        service.submit("second@example.com", "Тема", "<p>2</p>");
+        await().atMost(TIMEOUT).until(() -> service.getStats().getSent() == 2);
+
+        MailDeliveryStatsResponse stats = service.getStats();
+        assertThat(stats.getBatches()).isEqualTo(2);
+        assertThat(stats.getConnectionsOpened()).isEqualTo(1);
+        assertThat(smtp.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesTemporaryFailuresWithExponentialBackoff() throws Exception {
+        smtp = new SmtpStubServer(2, false);
+        service = startService(4, 200);
+
+        service.submit("retry@example.com", "Тема", "<p>retry</p>");
+
+        await().atMost(TIMEOUT).until(() -> service.getStats().getSent() == 1);
+
+        MailDeliveryStatsResponse stats = service.getStats();
+        assertThat(stats.getSent()).isEqualTo(1);
+        assertThat(stats.getRetried()).isEqualTo(2);
+        assertThat(stats.getFailed()).isZero();
+        // После ошибки соединение закрывается, каждая попытка открывает новое
+        assertThat(stats.getConnectionsOpened()).isEqualTo(3);
+
+        List<Long> attempts = smtp.getDataAttemptTimes();
+        assertThat(attempts).hasSize(3);
+        assertThat(attempts.get(1) - attempts.get(0)).isGreaterThanOrEqualTo(200);
+        assertThat(attempts.get(2) - attempts.get(1)).isGreaterThanOrEqualTo(400);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        smtp = new SmtpStubServer(5, false);
+        service = startService(3, 50);
+
+        service.submit("lost@example.com", "Тема", "<p>lost</p>");
+
+        await().atMost(TIMEOUT).until(() -> service.getStats().getFailed() == 1);
+
+        MailDeliveryStatsResponse stats = service.getStats();
+        assertThat(stats.getSent()).isZero();
+        assertThat(stats.getRetried()).isEqualTo(2);
+        assertThat(smtp.getDataAttemptTimes()).hasSize(3);
+        assertThat(smtp.getDeliveredMessages()).isZero();
+    }
+
+    private MailDeliveryService startService(int maxAttempts, long retryBackoffMs) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.getPort());
+        mailSender.getJavaMailProperties().put("mail.transport.protocol", "smtp");
+        mailSender.getJavaMailProperties().put("mail.smtp.auth", "false");
+
+        MailDeliveryService mailDeliveryService = new MailDeliveryService(mailSender);
+        ReflectionTestUtils.setField(mailDeliveryService, "mailEnabled", true);
+        ReflectionTestUtils.setField(mailDeliveryService, "fromAddress", "noreply@toyzhiri.kz");
+        ReflectionTestUtils.setField(mailDeliveryService, "workers", 1);
+        ReflectionTestUtils.setField(mailDeliveryService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(mailDeliveryService, "batchSize", 50);
+        ReflectionTestUtils.setField(mailDeliveryService, "offerTimeoutMs", 50L);
+        ReflectionTestUtils.setField(mailDeliveryService, "pollIntervalMs", 50L);
+        ReflectionTestUtils.setField(mailDeliveryService, "idleTimeoutMs", 30000L);
+        ReflectionTestUtils.setField(mailDeliveryService, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(mailDeliveryService, "retryBackoffMs", retryBackoffMs);
+        ReflectionTestUtils.setField(mailDeliveryService, "maxBackoffMs", 60000L);
+        ReflectionTestUtils.setField(mailDeliveryService, "shutdownTimeoutMs", 2000L);
+        mailDeliveryService.start();
+        return mailDeliveryService;
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.toy_zhiri.notification.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Минимальный SMTP-сервер для тестов доставки писем.
+ * <p>
+ * Принимает любые команды без аутентификации и TLS, считает соединения и письма
+ * в каждом соединении. Первые failDataCount писем отклоняются временной ошибкой 451,
+ * а ответ на первое письмо можно задержать до вызова releaseFirstMessage().
+ */
+class SmtpStubServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger dataCommands = new AtomicInteger();
+    private final AtomicInteger remainingFailures;
+    private final List<Integer> messagesPerConnection = new CopyOnWriteArrayList<>();
+    private final List<Long> dataAttemptTimes = new CopyOnWriteArrayList<>();
+    private final List<String> recipients = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch firstMessageReceived = new CountDownLatch(1);
+    private final CountDownLatch firstMessageRelease;
+
+    private volatile boolean running = true;
+
+    SmtpStubServer(int failDataCount, boolean holdFirstMessage) throws IOException {
+        this.remainingFailures = new AtomicInteger(failDataCount);
+        this.firstMessageRelease = new CountDownLatch(holdFirstMessage ? 1 : 0);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.acceptThread = new Thread(this::acceptLoop, "smtp-stub-accept");
+        this.acceptThread.setDaemon(true);
+        this.acceptThread.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    int getDeliveredMessages() {
+        return messagesPerConnection.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    List<Integer> getMessagesPerConnection() {
+        return List.copyOf(messagesPerConnection);
+    }
+
+    List<Long> getDataAttemptTimes() {
+        return List.copyOf(dataAttemptTimes);
+    }
+
+    List<String> getRecipients() {
+        return List.copyOf(recipients);
+    }
+
+    boolean awaitFirstMessage(long timeout, TimeUnit unit) throws InterruptedException {
+        return firstMessageReceived.await(timeout, unit);
+    }
+
+    void releaseFirstMessage() {
+        firstMessageRelease.countDown();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        firstMessageRelease.countDown();
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                int index = connections.getAndIncrement();
+                messagesPerConnection.add(0);
+                Thread handler = new Thread(() -> handle(socket, index), "smtp-stub-" + index);
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket, int index) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+
+            reply(out, "220 localhost SMTP stub");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost", "250 8BITMIME");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "RCPT" -> {
+                        recipients.add(line.substring(line.indexOf(':') + 1).trim());
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        readMessage(in);
+                        finishMessage(out, index);
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Клиент закрыл соединение или тест завершился
+        }
+    }
+
+    private void readMessage(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return;
+            }
+        }
+    }
+
+    private void finishMessage(OutputStream out, int index) throws IOException, InterruptedException {
+        dataAttemptTimes.add(System.currentTimeMillis());
+
+        if (remainingFailures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            reply(out, "451 Temporary failure, try again later");
+            return;
+        }
+
+        if (dataCommands.getAndIncrement() == 0) {
+            firstMessageReceived.countDown();
+            firstMessageRelease.await(10, TimeUnit.SECONDS);
+        }
+        messagesPerConnection.set(index, messagesPerConnection.get(index) + 1);
+        reply(out, "250 OK queued");
+    }
+
+    private static void reply(OutputStream out, String... lines) throws IOException {
+        for (String line : lines) {
+            out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        out.flush();
+    }
+}
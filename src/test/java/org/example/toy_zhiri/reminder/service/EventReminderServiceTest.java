@@ -0,0 +1,135 @@
+package org.example.toy_zhiri.reminder.service;
+
+import org.example.toy_zhiri.booking.repository.BookingRepository;
+import org.example.toy_zhiri.booking.repository.BookingRepository.ReminderTarget;
+import org.example.toy_zhiri.counter.service.CounterService;
+import org.example.toy_zhiri.notification.enums.NotificationSettingFlag;
+import org.example.toy_zhiri.notification.repository.NotificationRepository;
+import org.example.toy_zhiri.notification.service.EmailNotificationService;
+import org.example.toy_zhiri.notification.service.NotificationDeliveryService;
+import org.example.toy_zhiri.notification.service.NotificationPushService;
+import org.example.toy_zhiri.notification.service.NotificationSettingsCache;
+import org.example.toy_zhiri.notification.service.SmsNotificationService;
+import org.example.toy_zhiri.reminder.entity.ReminderWatermark;
+import org.example.toy_zhiri.reminder.enums.ReminderOffset;
+import org.example.toy_zhiri.reminder.repository.ReminderWatermarkRepository;
+import org.example.toy_zhiri.reminder.service.ReminderTimerWheel.ReminderTimeout;
+import org.example.toy_zhiri.user.entity.User;
+import org.example.toy_zhiri.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Откат транзакции водяного знака не должен оставлять отправленных писем:
+ * после отката и повторной отправки напоминание уходит ровно один раз.
+ */
+class EventReminderServiceTest {
+    private static final String EMAIL = "client@example.com";
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ReminderWatermarkRepository watermarkRepository = mock(ReminderWatermarkRepository.class);
+    private final NotificationSettingsCache settingsCache = mock(NotificationSettingsCache.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailNotificationService emailNotificationService = mock(EmailNotificationService.class);
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+    private EventReminderService service;
+    private LocalDateTime now;
+    private List<ReminderTimeout> due;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        UUID userId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        LocalDateTime eventStart = now.plusHours(2);
+
+        ReminderTarget target = mock(ReminderTarget.class);
+        when(target.getId()).thenReturn(bookingId);
+        when(target.getUserId()).thenReturn(userId);
+        when(target.getEventDate()).thenReturn(eventStart.toLocalDate());
+        when(target.getEventTime()).thenReturn(eventStart.toLocalTime());
+        when(target.getServiceName()).thenReturn("Ресторан");
+        when(bookingRepository.findReminderTargetsByIdIn(any())).thenReturn(List.of(target));
+
+        // Каждая транзакция читает водяной знак заново — изменения откаченной не видны
+        when(watermarkRepository.findForUpdate(anyString())).thenAnswer(invocation -> Optional.of(
+                ReminderWatermark.builder().name("EVENT_REMINDER").firedUntil(now.minusHours(3)).build()));
+
+        when(settingsCache.getMasks(any())).thenReturn(Map.of(userId, NotificationSettingFlag.DEFAULT_MASK));
+        when(userRepository.findAllById(any())).thenReturn(List.of(User.builder().id(userId).email(EMAIL).build()));
+
+        NotificationDeliveryService deliveryService = new NotificationDeliveryService(
+                mock(NotificationRepository.class), settingsCache, userRepository,
+                mock(SmsNotificationService.class), emailNotificationService,
+                mock(NotificationPushService.class), mock(CounterService.class));
+        service = new EventReminderService(bookingRepository, watermarkRepository, deliveryService);
+
+        ReminderTimerWheel wheel = new ReminderTimerWheel(60000, 64, now.minusHours(2));
+        wheel.schedule(bookingId, ReminderOffset.HOURS_BEFORE, eventStart.minus(ReminderOffset.HOURS_BEFORE.getBeforeEvent()));
+        due = wheel.advance(now);
+    }
+
+    @Test
+    void rolledBackWatermarkDoesNotDoubleSend() {
+        when(watermarkRepository.save(any()))
+                .thenThrow(new IllegalStateException("watermark update failed"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(due).hasSize(1);
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> service.deliver(due, now)))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(emailNotificationService);
+
+        // Повтор после отката (как reschedule в EventReminderJob)
+        Integer sent = transactionTemplate.execute(status -> service.deliver(due, now));
+
+        assertThat(sent).isEqualTo(1);
+        verify(emailNotificationService, times(1)).send(eq(EMAIL), any(), any());
+    }
+
+    /**
+     * Менеджер транзакций без ресурса: даёт настоящую синхронизацию (afterCommit вызывается
+     * только при коммите) без подключения к БД.
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}